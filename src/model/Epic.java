@@ -2,12 +2,17 @@ package model;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.function.LongConsumer;
+
+import util.LongLinkedSet;
 
 public final class Epic extends Task {
 
-    private final List<Long> subtaskIds = new ArrayList<>();
+    private LongLinkedSet subtaskIds = new LongLinkedSet();
+
+    // Неизменяемый список id, разделяемый с другими версиями эпика; пока он задан, subtaskIds не используется
+    private List<Long> sharedSubtaskIds;
 
     private LocalDateTime endTime;
 
@@ -31,18 +36,47 @@ public final class Epic extends Task {
         this.endTime = endTime;
     }
 
+    // Неизменяемое представление в порядке добавления
     public List<Long> getSubtaskIds() {
-        return subtaskIds;
+        return null != sharedSubtaskIds ? sharedSubtaskIds : subtaskIds.asList();
     }
 
     public void setSubtaskIds(List<Long> subtaskIds) {
+        // Список может быть представлением этого же эпика, поэтому сначала копируем
+        long[] ids = subtaskIds.stream().mapToLong(Long::longValue).toArray();
+
         deleteSubtasks();
 
-        for (Long subtaskId : subtaskIds) {
+        for (long subtaskId : ids) {
             addSubtask(subtaskId);
         }
     }
 
+    /*
+     * Берёт неизменяемый список id без копирования: так публикуется версия эпика, которая делит id подзадач с
+     * предыдущей. Список копируется только при первом изменении подзадач этого эпика.
+     */
+    public void shareSubtaskIds(List<Long> subtaskIds) {
+        this.sharedSubtaskIds = subtaskIds;
+        this.subtaskIds = null;
+    }
+
+    public int getSubtaskCount() {
+        return null != sharedSubtaskIds ? sharedSubtaskIds.size() : subtaskIds.size();
+    }
+
+    public boolean containsSubtask(long id) {
+        return null != sharedSubtaskIds ? sharedSubtaskIds.contains(id) : subtaskIds.contains(id);
+    }
+
+    public void forEachSubtaskId(LongConsumer action) {
+        if (null != sharedSubtaskIds) {
+            sharedSubtaskIds.forEach(action::accept);
+        } else {
+            subtaskIds.forEach(action);
+        }
+    }
+
     public TaskType getType() {
         return TaskType.EPIC;
     }
@@ -65,15 +99,31 @@ public final class Epic extends Task {
     }
 
     public void deleteSubtasks() {
-        subtaskIds.clear();
+        if (null != sharedSubtaskIds) {
+            sharedSubtaskIds = null;
+            subtaskIds = new LongLinkedSet();
+        } else {
+            subtaskIds.clear();
+        }
     }
 
-    public void deleteSubtask(Long id) {
-        subtaskIds.remove(id);
+    public void deleteSubtask(long id) {
+        ownSubtaskIds().remove(id);
     }
 
-    public void addSubtask(Long id) {
-        subtaskIds.add(id);
+    public void addSubtask(long id) {
+        ownSubtaskIds().add(id);
+    }
+
+    private LongLinkedSet ownSubtaskIds() {
+        if (null != sharedSubtaskIds) {
+            LongLinkedSet ids = new LongLinkedSet();
+            sharedSubtaskIds.forEach(ids::add);
+            subtaskIds = ids;
+            sharedSubtaskIds = null;
+        }
+
+        return subtaskIds;
     }
 
     @Override
@@ -90,20 +140,4 @@ public final class Epic extends Task {
                "}";
     }
 
-    @Override
-    public String toCSVString() {
-        return String.format(
-                "%d,%s,%s,%s,%s,%s,%s,%s,%s",
-                getId(),
-                getType().name(),
-                getTitle(),
-                getStatus().name(),
-                getDescription(),
-                null,
-                null,
-                null,
-                getEndTime()
-        );
-    }
-
 }
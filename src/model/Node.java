@@ -4,6 +4,7 @@ public class Node<T> {
     private Node<T> prev;
     private Node<T> next;
     private final T data;
+    private long timestamp;
 
     public Node(T data) {
         this.data = data;
@@ -29,4 +30,12 @@ public class Node<T> {
         return data;
     }
 
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
 }
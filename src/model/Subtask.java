@@ -54,20 +54,4 @@ public final class Subtask extends Task {
                "}";
     }
 
-    @Override
-    public String toCSVString() {
-        return String.format(
-                "%d,%s,%s,%s,%s,%d,%s,%s,%s",
-                getId(),
-                getType().name(),
-                getTitle(),
-                getStatus().name(),
-                getDescription(),
-                getEpicId(),
-                getStartTime(),
-                getDurationMinutes(),
-                null
-        );
-    }
-
 }
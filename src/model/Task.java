@@ -146,18 +146,7 @@ public class Task {
     }
 
     public String toCSVString() {
-        return String.format(
-                "%d,%s,%s,%s,%s,%s,%s,%s,%s",
-                getId(),
-                getType().name(),
-                getTitle(),
-                getStatus().name(),
-                getDescription(),
-                null,
-                getStartTime(),
-                getDurationMinutes(),
-                null
-        );
+        return TaskCsvWriter.toCSVString(this);
     }
 
 }
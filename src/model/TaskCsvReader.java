@@ -0,0 +1,459 @@
+package model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Потоковый разбор CSV: строка разбирается прямо в буфере символов, поля запоминаются как границы в буфере.
+ * Числа, даты и перечисления читаются из буфера без промежуточных строк; строки создаются только для названия и
+ * описания. Поддерживаются поля в кавычках, в том числе с запятыми и переводами строк.
+ */
+public final class TaskCsvReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final TaskType[] TYPES = TaskType.values();
+
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private final Reader in;
+
+    private char[] buffer;
+
+    private int position;
+
+    private int limit;
+
+    private boolean endOfInput;
+
+    private int rowStart;
+
+    private int rowEnd;
+
+    private int fieldCount;
+
+    private int[] fieldStarts = new int[16];
+
+    private int[] fieldEnds = new int[16];
+
+    private boolean[] fieldQuoted = new boolean[16];
+
+    private boolean[] fieldEscaped = new boolean[16];
+
+    public TaskCsvReader(Reader in) {
+        this(in, BUFFER_SIZE);
+    }
+
+    TaskCsvReader(Reader in, int bufferSize) {
+        this.in = in;
+        this.buffer = new char[bufferSize];
+    }
+
+    public static TaskCsvReader of(String text) {
+        return new TaskCsvReader(new StringReader(text), Math.max(16, text.length() + 1));
+    }
+
+    // Чтение из буфера байт UTF-8 (например, отображённого в память файла) без промежуточного массива байт
+    public static TaskCsvReader of(ByteBuffer bytes) {
+        return new TaskCsvReader(new ByteBufferReader(bytes));
+    }
+
+    public boolean next() throws IOException {
+        while (true) {
+            int parsed = parseRow();
+            if (parsed > 0) {
+                return true;
+            }
+
+            if (0 == parsed) {
+                continue;
+            }
+
+            if (endOfInput) {
+                return false;
+            }
+
+            fill();
+        }
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    public String getRowText() {
+        return new String(buffer, rowStart, rowEnd - rowStart);
+    }
+
+    public boolean isNull(int field) {
+        checkField(field);
+
+        return !fieldQuoted[field] && 4 == fieldEnds[field] - fieldStarts[field]
+               && matches(fieldStarts[field], "null");
+    }
+
+    public String getString(int field) {
+        if (isNull(field)) {
+            return null;
+        }
+
+        String value = new String(buffer, fieldStarts[field], fieldEnds[field] - fieldStarts[field]);
+
+        return fieldEscaped[field] ? value.replace("\"\"", "\"") : value;
+    }
+
+    public Long getLong(int field) {
+        return isNull(field) ? null : parseLong(field);
+    }
+
+    public long getLongValue(int field) {
+        checkField(field);
+
+        return parseLong(field);
+    }
+
+    public LocalDateTime getDateTime(int field) {
+        return isNull(field) ? null : parseDateTime(field);
+    }
+
+    public TaskType getType(int field) {
+        return getEnum(field, TYPES);
+    }
+
+    public TaskStatus getStatus(int field) {
+        return getEnum(field, STATUSES);
+    }
+
+    // Задача из полей id,type,name,status,description,epic,startTime,duration,endTime начиная с firstField
+    public Task readTask(int firstField) {
+        if (fieldCount < firstField + 9) {
+            throw new IllegalArgumentException("Not enough CSV fields for a task: " + getRowText());
+        }
+
+        long id = getLongValue(firstField);
+        TaskType type = getType(firstField + 1);
+        String title = getString(firstField + 2);
+        TaskStatus status = getStatus(firstField + 3);
+        String description = getString(firstField + 4);
+
+        return switch (type) {
+            case TASK -> new Task(id, title, description, status, getDateTime(firstField + 6),
+                    getDuration(firstField + 7));
+            case SUBTASK -> new Subtask(id, title, description, status, getLong(firstField + 5),
+                    getDateTime(firstField + 6), getDuration(firstField + 7));
+            case EPIC -> new Epic(id, title, description, status, getDateTime(firstField + 8));
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private Duration getDuration(int field) {
+        Long minutes = getLong(field);
+
+        return null != minutes ? Duration.ofMinutes(minutes) : null;
+    }
+
+    /*
+     * Разбирает строку, начиная с position. Возвращает 1, если строка разобрана, 0 для пустой строки и -1, если
+     * в буфере не хватает данных.
+     */
+    private int parseRow() {
+        int i = position;
+        fieldCount = 0;
+
+        if (i >= limit) {
+            return -1;
+        }
+
+        if ('\n' == buffer[i] || '\r' == buffer[i]) {
+            int next = skipLineBreak(i);
+            if (next < 0) {
+                return -1;
+            }
+
+            position = next;
+
+            return 0;
+        }
+
+        rowStart = i;
+
+        while (true) {
+            int start;
+            int end;
+            boolean quoted = false;
+            boolean escaped = false;
+
+            if (i < limit && '"' == buffer[i]) {
+                quoted = true;
+                start = ++i;
+
+                while (true) {
+                    if (i >= limit) {
+                        return -1;
+                    }
+
+                    if ('"' == buffer[i]) {
+                        if (i + 1 >= limit && !endOfInput) {
+                            return -1;
+                        }
+
+                        if (i + 1 < limit && '"' == buffer[i + 1]) {
+                            escaped = true;
+                            i += 2;
+                            continue;
+                        }
+
+                        end = i++;
+                        break;
+                    }
+
+                    i++;
+                }
+            } else {
+                start = i;
+                while (i < limit && ',' != buffer[i] && '\n' != buffer[i] && '\r' != buffer[i]) {
+                    i++;
+                }
+                end = i;
+            }
+
+            addField(start, end, quoted, escaped);
+
+            if (i >= limit) {
+                if (!endOfInput) {
+                    return -1;
+                }
+
+                rowEnd = i;
+                position = i;
+
+                return 1;
+            }
+
+            if (',' == buffer[i]) {
+                i++;
+                continue;
+            }
+
+            int next = skipLineBreak(i);
+            if (next < 0) {
+                return -1;
+            }
+
+            rowEnd = i;
+            position = next;
+
+            return 1;
+        }
+    }
+
+    private int skipLineBreak(int i) {
+        if ('\r' == buffer[i]) {
+            if (i + 1 >= limit) {
+                return endOfInput ? i + 1 : -1;
+            }
+
+            return '\n' == buffer[i + 1] ? i + 2 : i + 1;
+        }
+
+        return i + 1;
+    }
+
+    private void addField(int start, int end, boolean quoted, boolean escaped) {
+        if (fieldCount == fieldStarts.length) {
+            int length = fieldStarts.length * 2;
+            fieldStarts = Arrays.copyOf(fieldStarts, length);
+            fieldEnds = Arrays.copyOf(fieldEnds, length);
+            fieldQuoted = Arrays.copyOf(fieldQuoted, length);
+            fieldEscaped = Arrays.copyOf(fieldEscaped, length);
+        }
+
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = end;
+        fieldQuoted[fieldCount] = quoted;
+        fieldEscaped[fieldCount] = escaped;
+        fieldCount++;
+    }
+
+    // Переносит неразобранный хвост в начало буфера и дочитывает данные
+    private void fill() throws IOException {
+        int remaining = limit - position;
+        System.arraycopy(buffer, position, buffer, 0, remaining);
+
+        position = 0;
+        limit = remaining;
+
+        // Оставляем место хотя бы для суррогатной пары
+        if (buffer.length - limit < 2) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+
+        while (limit < buffer.length) {
+            int read = in.read(buffer, limit, buffer.length - limit);
+            if (-1 == read) {
+                endOfInput = true;
+
+                return;
+            }
+
+            if (0 < read) {
+                limit += read;
+
+                return;
+            }
+        }
+    }
+
+    private long parseLong(int field) {
+        int i = fieldStarts[field];
+        int end = fieldEnds[field];
+        boolean negative = i < end && '-' == buffer[i];
+        if (negative) {
+            i++;
+        }
+
+        if (i >= end || end - i > 19) {
+            return Long.parseLong(new String(buffer, fieldStarts[field], end - fieldStarts[field]));
+        }
+
+        long value = 0L;
+        for (; i < end; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Invalid number: " + new String(buffer, fieldStarts[field],
+                        end - fieldStarts[field]));
+            }
+
+            value = value * 10 + digit;
+        }
+
+        return negative ? -value : value;
+    }
+
+    // Формат LocalDateTime.toString(): uuuu-MM-ddTHH:mm[:ss[.n]]
+    private LocalDateTime parseDateTime(int field) {
+        int start = fieldStarts[field];
+        int length = fieldEnds[field] - start;
+
+        if (length < 16 || '-' != buffer[start + 4] || 'T' != buffer[start + 10]) {
+            return LocalDateTime.parse(new String(buffer, start, length));
+        }
+
+        int year = digits(start, 4);
+        int month = digits(start + 5, 2);
+        int day = digits(start + 8, 2);
+        int hour = digits(start + 11, 2);
+        int minute = digits(start + 14, 2);
+        int second = 0;
+        int nano = 0;
+
+        if (length > 16) {
+            second = digits(start + 17, 2);
+        }
+
+        if (length > 20) {
+            int fractionLength = length - 20;
+            nano = digits(start + 20, fractionLength);
+            for (int i = fractionLength; i < 9; i++) {
+                nano *= 10;
+            }
+        }
+
+        return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+    }
+
+    private int digits(int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IllegalArgumentException("Invalid date: " + getRowText());
+            }
+
+            value = value * 10 + digit;
+        }
+
+        return value;
+    }
+
+    public <E extends Enum<E>> E getEnum(int field, E[] values) {
+        checkField(field);
+
+        int length = fieldEnds[field] - fieldStarts[field];
+        for (E value : values) {
+            if (value.name().length() == length && matches(fieldStarts[field], value.name())) {
+                return value;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown value: " + getString(field));
+    }
+
+    private boolean matches(int start, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (buffer[start + i] != value.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void checkField(int field) {
+        if (field >= fieldCount) {
+            throw new IllegalArgumentException("No field " + field + " in CSV row: " + getRowText());
+        }
+    }
+
+    private static final class ByteBufferReader extends Reader {
+
+        private final ByteBuffer in;
+
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        private boolean flushed;
+
+        private ByteBufferReader(ByteBuffer in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read(char[] chars, int offset, int length) {
+            if (flushed) {
+                return -1;
+            }
+
+            CharBuffer out = CharBuffer.wrap(chars, offset, length);
+            decoder.decode(in, out, true);
+            if (!in.hasRemaining() && out.hasRemaining()) {
+                flushed = !decoder.flush(out).isOverflow();
+            }
+
+            int read = out.position() - offset;
+
+            return 0 == read && flushed ? -1 : read;
+        }
+
+        @Override
+        public void close() {
+        }
+
+    }
+
+}
@@ -0,0 +1,241 @@
+package model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+
+/**
+ * Потоковая запись задач в CSV: поля пишутся прямо в буфер символов без промежуточных строк и форматирования.
+ * Значения с запятыми, кавычками и переводами строк, а также строка {@code null}, заключаются в кавычки.
+ */
+public final class TaskCsvWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String NULL = "null";
+
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final Writer out;
+
+    private char[] buffer;
+
+    private int position;
+
+    public TaskCsvWriter(Writer out) {
+        this(out, BUFFER_SIZE);
+    }
+
+    private TaskCsvWriter(Writer out, int bufferSize) {
+        this.out = out;
+        this.buffer = new char[bufferSize];
+    }
+
+    public static String toCSVString(Task task) {
+        TaskCsvWriter writer = new TaskCsvWriter(null, 128);
+        writer.writeFields(task);
+
+        return new String(writer.buffer, 0, writer.position);
+    }
+
+    public void writeHeader() throws IOException {
+        appendRaw(Task.CSV_HEADER);
+        flushIfFull();
+    }
+
+    public void writeRow(Task task) throws IOException {
+        writeFields(task);
+        appendRaw(LINE_SEPARATOR);
+        flushIfFull();
+    }
+
+    public void flush() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        out.close();
+    }
+
+    private void writeFields(Task task) {
+        final boolean isEpic = TaskType.EPIC == task.getType();
+
+        appendLong(task.getId());
+        append(',');
+        appendRaw(task.getType().name());
+        append(',');
+        appendString(task.getTitle());
+        append(',');
+        appendRaw(task.getStatus().name());
+        append(',');
+        appendString(task.getDescription());
+        append(',');
+        appendLong(task instanceof Subtask subtask ? subtask.getEpicId() : null);
+        append(',');
+        appendDateTime(isEpic ? null : task.getStartTime());
+        append(',');
+        appendLong(isEpic ? null : task.getDurationMinutes());
+        append(',');
+        appendDateTime(isEpic ? task.getEndTime() : null);
+    }
+
+    private void flushIfFull() throws IOException {
+        if (position >= BUFFER_SIZE / 2) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    private void appendString(String value) {
+        if (null == value) {
+            appendRaw(NULL);
+
+            return;
+        }
+
+        if (!needsQuotes(value)) {
+            appendRaw(value);
+
+            return;
+        }
+
+        ensureCapacity(2 * value.length() + 2);
+        buffer[position++] = '"';
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if ('"' == c) {
+                buffer[position++] = '"';
+            }
+            buffer[position++] = c;
+        }
+        buffer[position++] = '"';
+    }
+
+    private static boolean needsQuotes(String value) {
+        if (NULL.equals(value)) {
+            return true;
+        }
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (',' == c || '"' == c || '\n' == c || '\r' == c) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void appendLong(Long value) {
+        if (null == value) {
+            appendRaw(NULL);
+
+            return;
+        }
+
+        long number = value;
+        if (Long.MIN_VALUE == number) {
+            appendRaw(Long.toString(number));
+
+            return;
+        }
+
+        ensureCapacity(20);
+        if (number < 0) {
+            buffer[position++] = '-';
+            number = -number;
+        }
+
+        int digits = 1;
+        for (long rest = number / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (char) ('0' + number % 10);
+            number /= 10;
+        }
+        position += digits;
+    }
+
+    // Тот же формат, что у LocalDateTime.toString()
+    private void appendDateTime(LocalDateTime dateTime) {
+        if (null == dateTime) {
+            appendRaw(NULL);
+
+            return;
+        }
+
+        if (dateTime.getYear() < 0 || dateTime.getYear() > 9999) {
+            appendRaw(dateTime.toString());
+
+            return;
+        }
+
+        ensureCapacity(29);
+        appendDigits(dateTime.getYear(), 4);
+        buffer[position++] = '-';
+        appendDigits(dateTime.getMonthValue(), 2);
+        buffer[position++] = '-';
+        appendDigits(dateTime.getDayOfMonth(), 2);
+        buffer[position++] = 'T';
+        appendDigits(dateTime.getHour(), 2);
+        buffer[position++] = ':';
+        appendDigits(dateTime.getMinute(), 2);
+
+        int second = dateTime.getSecond();
+        int nano = dateTime.getNano();
+        if (0 == second && 0 == nano) {
+            return;
+        }
+
+        buffer[position++] = ':';
+        appendDigits(second, 2);
+
+        if (0 == nano) {
+            return;
+        }
+
+        buffer[position++] = '.';
+        if (0 == nano % 1_000_000) {
+            appendDigits(nano / 1_000_000, 3);
+        } else if (0 == nano % 1_000) {
+            appendDigits(nano / 1_000, 6);
+        } else {
+            appendDigits(nano, 9);
+        }
+    }
+
+    private void appendDigits(int value, int width) {
+        for (int i = position + width - 1; i >= position; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        position += width;
+    }
+
+    private void appendRaw(String value) {
+        ensureCapacity(value.length());
+        value.getChars(0, value.length(), buffer, position);
+        position += value.length();
+    }
+
+    private void append(char c) {
+        ensureCapacity(1);
+        buffer[position++] = c;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (position + extra > buffer.length) {
+            char[] grown = new char[Math.max(buffer.length * 2, position + extra)];
+            System.arraycopy(buffer, 0, grown, 0, position);
+            buffer = grown;
+        }
+    }
+
+}
@@ -0,0 +1,84 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Результат пакетной операции: для каждого элемента входной коллекции, в том же порядке, - принятая задача или
+ * причина отказа.
+ */
+public final class BatchResult<T> {
+
+    private final List<T> items;
+
+    private final List<String> rejections;
+
+    // В каждой позиции задан ровно один из элементов: результат или причина отказа
+    public BatchResult(List<T> items, List<String> rejections) {
+        if (items.size() != rejections.size()) {
+            throw new IllegalArgumentException("items and rejections must have the same size");
+        }
+
+        this.items = Collections.unmodifiableList(new ArrayList<>(items));
+        this.rejections = Collections.unmodifiableList(new ArrayList<>(rejections));
+    }
+
+    // Поэлементное применение одиночной операции; null в ответе операции считается отказом
+    public static <S, T> BatchResult<T> ofEach(Collection<? extends S> inputs, Function<? super S, ? extends T> action,
+                                              String rejection) {
+        List<T> items = new ArrayList<>(inputs.size());
+        List<String> rejections = new ArrayList<>(inputs.size());
+
+        for (S input : inputs) {
+            T item = action.apply(input);
+            items.add(item);
+            rejections.add(null != item ? null : rejection);
+        }
+
+        return new BatchResult<>(items, rejections);
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public boolean isAccepted(int index) {
+        return null == rejections.get(index);
+    }
+
+    // Принятая задача в позиции входной коллекции или null при отказе
+    public T get(int index) {
+        return items.get(index);
+    }
+
+    // Причина отказа или null, если элемент принят
+    public String getRejection(int index) {
+        return rejections.get(index);
+    }
+
+    public List<T> getAccepted() {
+        List<T> accepted = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            if (isAccepted(i)) {
+                accepted.add(items.get(i));
+            }
+        }
+
+        return accepted;
+    }
+
+    public int getRejectedCount() {
+        int rejected = 0;
+        for (String rejection : rejections) {
+            if (null != rejection) {
+                rejected++;
+            }
+        }
+
+        return rejected;
+    }
+
+}
@@ -1,5 +1,8 @@
 package service;
 
+import service.impl.ArrayHistoryManager;
+import service.impl.ConcurrentTaskManager;
+import service.impl.HistoryPolicy;
 import service.impl.InMemoryHistoryManager;
 import service.impl.InMemoryTaskManager;
 
@@ -9,8 +12,28 @@ public final class Managers {
         return new InMemoryTaskManager();
     }
 
+    // Менеджер для общего доступа из нескольких потоков
+    public static TaskManager getConcurrent() {
+        return new ConcurrentTaskManager();
+    }
+
+    // Списки задач читаются из неизменяемого снимка без копирования; запись дороже на O(log n)
+    public static TaskManager getConcurrent(boolean snapshotReads) {
+        return new ConcurrentTaskManager(snapshotReads);
+    }
+
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
 
+    // История с ограничением по количеству записей и/или времени с последнего просмотра
+    public static HistoryManager getDefaultHistory(HistoryPolicy policy) {
+        return new InMemoryHistoryManager(policy);
+    }
+
+    // История на массивах: повторный просмотр не выделяет память
+    public static HistoryManager getArrayHistory(HistoryPolicy policy) {
+        return new ArrayHistoryManager(policy);
+    }
+
 }
@@ -0,0 +1,35 @@
+package service;
+
+import java.util.List;
+
+/**
+ * Страница выдачи и курсор для следующей страницы.
+ * <p>
+ * Курсор хранит ключ сортировки последней выданной задачи, а не номер позиции, поэтому задачи, добавленные или
+ * удалённые между запросами, не сдвигают страницы: уже выданные задачи не повторяются, а оставшиеся не пропадают.
+ */
+public final class Page<T> {
+
+    private final List<T> items;
+
+    private final String nextCursor;
+
+    public Page(List<T> items, String nextCursor) {
+        this.items = List.copyOf(items);
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    // null, если страница последняя
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return null != nextCursor;
+    }
+
+}
@@ -0,0 +1,19 @@
+package service;
+
+// Способ отбора задач, который выбрал менеджер для запроса
+public enum QueryIndex {
+    // Подзадачи эпика
+    EPIC,
+
+    // Множество задач в статусе
+    STATUS,
+
+    // Индекс расписания по времени начала
+    TIME,
+
+    // Полнотекстовый индекс
+    TEXT,
+
+    // Обход всех задач запрошенных типов
+    SCAN
+}
@@ -0,0 +1,42 @@
+package service;
+
+import java.util.List;
+
+/**
+ * План запроса: выбранный индекс, оценка числа задач, которые придётся просмотреть, и условия, проверяемые для
+ * каждой из них после отбора по индексу.
+ */
+public final class QueryPlan {
+
+    private final QueryIndex index;
+
+    private final long estimatedRows;
+
+    private final List<String> filters;
+
+    public QueryPlan(QueryIndex index, long estimatedRows, List<String> filters) {
+        this.index = index;
+        this.estimatedRows = estimatedRows;
+        this.filters = List.copyOf(filters);
+    }
+
+    public QueryIndex getIndex() {
+        return index;
+    }
+
+    public long getEstimatedRows() {
+        return estimatedRows;
+    }
+
+    public List<String> getFilters() {
+        return filters;
+    }
+
+    @Override
+    public String toString() {
+        String plan = index + " (~" + estimatedRows + " rows)";
+
+        return filters.isEmpty() ? plan : plan + ", filter: " + String.join(", ", filters);
+    }
+
+}
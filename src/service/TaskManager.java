@@ -1,11 +1,18 @@
 package service;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import model.Epic;
 import model.Subtask;
 import model.Task;
+import model.TaskStatus;
+import model.TaskType;
 
 public interface TaskManager {
 
@@ -15,30 +22,111 @@ public interface TaskManager {
 
     List<Subtask> getSubtasks();
 
+    // Страница не больше чем из limit задач после курсора; null - с начала
+    Page<Task> getTasks(String cursor, int limit, TaskSort sort);
+
+    Page<Subtask> getSubtasks(String cursor, int limit, TaskSort sort);
+
+    /*
+     * Ленивый обход без копирования хранилища, например для выгрузки. Пока поток не дочитан, менеджер не изменяют:
+     * однопоточные менеджеры при изменении бросают ConcurrentModificationException, а ConcurrentTaskManager
+     * обходит слабо согласованно - без null и пропусков неизменённых задач, но изменения могут быть не видны.
+     */
+    Stream<Task> streamTasks();
+
+    Stream<Subtask> streamSubtasks();
+
+    // Задачи указанного типа в статусе, без обхода остальных задач
+    List<Task> getByStatus(TaskType type, TaskStatus status);
+
+    // Количество задач типа в каждом статусе
+    Map<TaskStatus, Integer> countByStatus(TaskType type);
+
+    // Задачи любого типа, в названии или описании которых есть все слова запроса, по убыванию релевантности
+    List<Task> search(String query, int limit);
+
+    /*
+     * Задачи, подходящие под все условия запроса. Менеджер отбирает их по самому избирательному из доступных
+     * индексов, поэтому порядок выдачи зависит от выбранного индекса (см. explain): по времени начала для индекса
+     * расписания, по релевантности для текстового, иначе в порядке хранения. Поток ленивый.
+     */
+    Stream<Task> query(TaskQuery query);
+
+    // План, по которому будет выполнен запрос
+    QueryPlan explain(TaskQuery query);
+
     Task getTask(Long id);
 
     Epic getEpic(Long id);
 
     Subtask getSubtask(Long id);
 
+    // Перегрузки с примитивными id для вызывающих, которые хранят id без упаковки
+
+    default Task getTask(long id) {
+        return getTask(Long.valueOf(id));
+    }
+
+    default Epic getEpic(long id) {
+        return getEpic(Long.valueOf(id));
+    }
+
+    default Subtask getSubtask(long id) {
+        return getSubtask(Long.valueOf(id));
+    }
+
+    // Просмотр от имени пользователя попадает только в его историю, общая история getHistory() не меняется
+
+    Task getTask(Long id, String userId);
+
+    Epic getEpic(Long id, String userId);
+
+    Subtask getSubtask(Long id, String userId);
+
     Task createTask(Task task);
 
     Epic createEpic(Epic epic);
 
     Subtask createSubtask(Subtask subtask);
 
+    // Пакетные операции: результат по каждому элементу в порядке входной коллекции
+
+    BatchResult<Task> createTasks(Collection<? extends Task> tasks);
+
+    BatchResult<Subtask> createSubtasks(Collection<? extends Subtask> subtasks);
+
+    // Задачи, эпики и подзадачи вперемешку
+    BatchResult<Task> updateAll(Collection<? extends Task> tasks);
+
+    // Удаляет задачи любого типа по id; эпик удаляется вместе с подзадачами
+    BatchResult<Task> deleteAll(Collection<Long> ids);
+
     Task updateTask(Task task);
 
     Epic updateEpic(Epic epic);
 
     Subtask updateSubtask(Subtask subtask);
 
+    Subtask moveSubtask(Long subtaskId, Long epicId);
+
     void deleteTask(Long id);
 
     void deleteEpic(Long id);
 
     void deleteSubtask(Long id);
 
+    default void deleteTask(long id) {
+        deleteTask(Long.valueOf(id));
+    }
+
+    default void deleteEpic(long id) {
+        deleteEpic(Long.valueOf(id));
+    }
+
+    default void deleteSubtask(long id) {
+        deleteSubtask(Long.valueOf(id));
+    }
+
     void deleteTasks();
 
     void deleteEpics();
@@ -47,8 +135,36 @@ public interface TaskManager {
 
     List<Subtask> getEpicSubtasks(Epic epic);
 
+    Page<Subtask> getEpicSubtasks(Epic epic, String cursor, int limit, TaskSort sort);
+
     List<Task> getHistory();
 
+    // История просмотров пользователя; пустая, если он ничего не смотрел или история вытеснена
+    List<Task> getHistory(String userId);
+
+    // Запланированные задачи по возрастанию времени начала
     Set<Task> getPrioritizedTasks();
 
+    // Задачи, начинающиеся в [from, to), по возрастанию времени начала
+    List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to);
+
+    // Ближайшие limit задач, начинающихся строго после instant
+    List<Task> getPrioritizedTasksAfter(LocalDateTime instant, int limit);
+
+    // Последние limit задач, начинающихся строго до instant, от поздних к ранним
+    List<Task> getPrioritizedTasksBefore(LocalDateTime instant, int limit);
+
+    /*
+     * Самое раннее начало, при котором задача длительностью duration целиком укладывается в [notBefore, notAfter] и
+     * не пересекается с расписанием, или null, если места нет. Слоты выравниваются по минутам.
+     */
+    default LocalDateTime findFreeSlot(Duration duration, LocalDateTime notBefore, LocalDateTime notAfter) {
+        List<LocalDateTime> slots = findFreeSlots(duration, notBefore, notAfter, 1);
+
+        return slots.isEmpty() ? null : slots.getFirst();
+    }
+
+    // Самые ранние начала в первых limit свободных промежутках расписания, по возрастанию
+    List<LocalDateTime> findFreeSlots(Duration duration, LocalDateTime notBefore, LocalDateTime notAfter, int limit);
+
 }
@@ -0,0 +1,119 @@
+package service;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+import model.TaskStatus;
+import model.TaskType;
+
+/**
+ * Неизменяемый запрос к задачам: каждое условие возвращает новый запрос, условия объединяются по «и».
+ * <p>
+ * {@code TaskQuery.all().ofType(TaskType.SUBTASK).withStatus(TaskStatus.DONE).limit(10)}
+ */
+public final class TaskQuery {
+
+    private static final TaskQuery ALL = new TaskQuery(EnumSet.allOf(TaskType.class), null, null, null, null, null,
+            null);
+
+    private final Set<TaskType> types;
+
+    private final TaskStatus status;
+
+    private final Long epicId;
+
+    private final LocalDateTime from;
+
+    private final LocalDateTime to;
+
+    private final String text;
+
+    private final Integer limit;
+
+    private TaskQuery(Set<TaskType> types, TaskStatus status, Long epicId, LocalDateTime from, LocalDateTime to,
+                      String text, Integer limit) {
+        this.types = Collections.unmodifiableSet(types);
+        this.status = status;
+        this.epicId = epicId;
+        this.from = from;
+        this.to = to;
+        this.text = text;
+        this.limit = limit;
+    }
+
+    public static TaskQuery all() {
+        return ALL;
+    }
+
+    public TaskQuery ofType(TaskType type, TaskType... otherTypes) {
+        return new TaskQuery(EnumSet.of(type, otherTypes), status, epicId, from, to, text, limit);
+    }
+
+    public TaskQuery withStatus(TaskStatus status) {
+        return new TaskQuery(EnumSet.copyOf(types), status, epicId, from, to, text, limit);
+    }
+
+    // Подзадачи эпика
+    public TaskQuery inEpic(long epicId) {
+        return new TaskQuery(EnumSet.copyOf(types), status, epicId, from, to, text, limit);
+    }
+
+    // Задачи, начинающиеся в [from, to)
+    public TaskQuery startingBetween(LocalDateTime from, LocalDateTime to) {
+        if (null == from || null == to || to.isBefore(from)) {
+            throw new IllegalArgumentException("Invalid time range: [" + from + ", " + to + ")");
+        }
+
+        return new TaskQuery(EnumSet.copyOf(types), status, epicId, from, to, text, limit);
+    }
+
+    // Задачи, в названии или описании которых есть все слова (целиком или как начало слова)
+    public TaskQuery matching(String text) {
+        if (null == text) {
+            throw new IllegalArgumentException("text must not be null");
+        }
+
+        return new TaskQuery(EnumSet.copyOf(types), status, epicId, from, to, text, limit);
+    }
+
+    public TaskQuery limit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+
+        return new TaskQuery(EnumSet.copyOf(types), status, epicId, from, to, text, limit);
+    }
+
+    public Set<TaskType> getTypes() {
+        return types;
+    }
+
+    // null - любой статус
+    public TaskStatus getStatus() {
+        return status;
+    }
+
+    public Long getEpicId() {
+        return epicId;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    // null - без ограничения
+    public Integer getLimit() {
+        return limit;
+    }
+
+}
@@ -0,0 +1,11 @@
+package service;
+
+// Порядок постраничной выдачи; при равных ключах задачи упорядочены по id
+public enum TaskSort {
+    ID,
+
+    // Запланированные задачи по времени начала, за ними незапланированные
+    START_TIME,
+
+    STATUS
+}
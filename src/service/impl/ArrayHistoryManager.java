@@ -0,0 +1,187 @@
+package service.impl;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+import model.Task;
+import service.HistoryManager;
+import util.LongLinkedIndex;
+
+/**
+ * История просмотров без выделения памяти на повторный просмотр.
+ * <p>
+ * Записи лежат в ячейках {@link LongLinkedIndex}: порядок просмотров - его порядок обхода, а задача и время
+ * просмотра - параллельные массивы по номеру ячейки. Повторный просмотр только переносит ячейку в конец; память
+ * выделяется лишь при росте массивов. Ограничения {@link HistoryPolicy} работают так же, как в
+ * {@link InMemoryHistoryManager}.
+ */
+public class ArrayHistoryManager implements HistoryManager {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final HistoryPolicy policy;
+
+    private final Clock clock;
+
+    // Получает id записей, которые история удалила сама: по ёмкости или времени жизни
+    private final LongConsumer evictionListener;
+
+    private final Entries entries;
+
+    private long capacityEvictions;
+    private long expirations;
+
+    public ArrayHistoryManager() {
+        this(HistoryPolicy.unbounded());
+    }
+
+    public ArrayHistoryManager(HistoryPolicy policy) {
+        this(policy, Clock.systemUTC());
+    }
+
+    ArrayHistoryManager(HistoryPolicy policy, Clock clock) {
+        this(policy, clock, id -> {
+        });
+    }
+
+    ArrayHistoryManager(HistoryPolicy policy, Clock clock, LongConsumer evictionListener) {
+        this.policy = policy;
+        this.clock = clock;
+        this.evictionListener = evictionListener;
+
+        entries = new Entries(policy.isBounded()
+                ? Math.min(policy.getCapacity() + 1, INITIAL_CAPACITY)
+                : INITIAL_CAPACITY);
+    }
+
+    @Override
+    public void add(Task task) {
+        long now = policy.isExpiring() ? clock.millis() : 0;
+
+        entries.putLast(task, now);
+
+        expire(now);
+
+        if (policy.isBounded() && entries.size() > policy.getCapacity()) {
+            capacityEvictions++;
+            evictFirst();
+        }
+    }
+
+    @Override
+    public void remove(Long id) {
+        if (null != id) {
+            entries.remove(id);
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        if (policy.isExpiring()) {
+            expire(clock.millis());
+        }
+
+        return entries.toList();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // Количество записей, вытесненных из-за превышения ёмкости
+    public long getCapacityEvictions() {
+        return capacityEvictions;
+    }
+
+    // Количество записей, удалённых по истечении времени жизни
+    public long getExpirations() {
+        return expirations;
+    }
+
+    private void expire(long now) {
+        if (!policy.isExpiring()) {
+            return;
+        }
+
+        long expiredBefore = now - policy.getMaxAge().toMillis();
+        while (!entries.isEmpty() && entries.firstTimestamp() <= expiredBefore) {
+            expirations++;
+            evictFirst();
+        }
+    }
+
+    private void evictFirst() {
+        evictionListener.accept(entries.removeFirst());
+    }
+
+    // Ячейки истории: задача и время просмотра по номеру ячейки индекса
+    private static final class Entries extends LongLinkedIndex {
+
+        private Task[] tasks;
+
+        private long[] timestamps;
+
+        private Entries(int initialCapacity) {
+            super(initialCapacity);
+            tasks = new Task[capacity()];
+            timestamps = new long[capacity()];
+        }
+
+        private void putLast(Task task, long timestamp) {
+            int cell = findOrInsert(task.getId());
+            moveToEnd(cell);
+            tasks[cell] = task;
+            timestamps[cell] = timestamp;
+        }
+
+        private void remove(long id) {
+            int cell = find(id);
+            if (NIL != cell) {
+                release(cell);
+            }
+        }
+
+        private long firstTimestamp() {
+            return timestamps[firstCell()];
+        }
+
+        // Удаляет самую старую запись и возвращает её id
+        private long removeFirst() {
+            int cell = firstCell();
+            long id = keyAt(cell);
+            release(cell);
+
+            return id;
+        }
+
+        private List<Task> toList() {
+            List<Task> history = new ArrayList<>(size());
+            for (int cell = firstCell(); NIL != cell; cell = nextCell(cell)) {
+                history.add(tasks[cell]);
+            }
+
+            return history;
+        }
+
+        @Override
+        protected void onGrow(int capacity) {
+            tasks = Arrays.copyOf(tasks, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+        }
+
+        @Override
+        protected void onClear() {
+            Arrays.fill(tasks, null);
+        }
+
+        @Override
+        protected void onRelease(int cell) {
+            tasks[cell] = null;
+        }
+
+    }
+
+}
@@ -0,0 +1,277 @@
+package service.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import exceptions.ManagerLoadException;
+import exceptions.ManagerSaveException;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import model.TaskType;
+
+/**
+ * Двоичный формат снимка задач.
+ * <p>
+ * Заголовок: сигнатура {@code KANB} (4 байта), версия (2 байта), количество записей (4 байта). Запись: id (8),
+ * тип (1), статус (1), id эпика (8), начало, длительность и окончание (по 8, минуты от эпохи в UTC и минуты), затем
+ * название и описание - длина в байтах (4) и UTF-8. Отсутствующие значения кодируются как {@link #NULL_VALUE}
+ * и длина {@code -1}. Время хранится с точностью до минуты.
+ */
+public final class BinarySnapshotCodec {
+
+    public static final int MAGIC = 0x4B414E42;
+
+    public static final short VERSION = 1;
+
+    private static final int HEADER_SIZE = Integer.BYTES + Short.BYTES + Integer.BYTES;
+
+    private static final int FIXED_RECORD_SIZE = 5 * Long.BYTES + 2 * Byte.BYTES;
+
+    private static final long NULL_VALUE = Long.MIN_VALUE;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final long WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private static final TaskType[] TYPES = TaskType.values();
+
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private BinarySnapshotCodec() {
+    }
+
+    public static boolean isBinary(File file) {
+        if (file.length() < Integer.BYTES) {
+            return false;
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES);
+            while (buffer.hasRemaining() && -1 != channel.read(buffer)) {
+                // читаем сигнатуру целиком
+            }
+
+            return !buffer.hasRemaining() && MAGIC == buffer.flip().getInt();
+        } catch (IOException e) {
+            throw new ManagerLoadException(e.getMessage());
+        }
+    }
+
+    public static void write(File file, List<? extends Task> tasks) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            buffer.putInt(MAGIC).putShort(VERSION).putInt(tasks.size());
+
+            for (Task task : tasks) {
+                byte[] title = encode(task.getTitle());
+                byte[] description = encode(task.getDescription());
+                int recordSize = FIXED_RECORD_SIZE + 2 * Integer.BYTES + length(title) + length(description);
+
+                if (buffer.remaining() < recordSize) {
+                    drain(channel, buffer);
+                }
+
+                if (buffer.capacity() < recordSize) {
+                    buffer = ByteBuffer.allocateDirect(recordSize);
+                }
+
+                encode(buffer, task, title, description);
+            }
+
+            drain(channel, buffer);
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        }
+    }
+
+    public static List<Task> read(File file) {
+        try (MappedFile mappedFile = MappedFile.open(file)) {
+            return read(mappedFile);
+        }
+    }
+
+    public static List<Task> read(MappedFile file) {
+        Reader reader = new Reader(file);
+
+        ByteBuffer header = reader.require(HEADER_SIZE);
+        if (MAGIC != header.getInt()) {
+            throw new ManagerLoadException("Not a binary task snapshot");
+        }
+
+        short version = header.getShort();
+        if (VERSION != version) {
+            throw new ManagerLoadException("Unsupported binary snapshot version: " + version);
+        }
+
+        int count = header.getInt();
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tasks.add(decode(reader));
+        }
+
+        return tasks;
+    }
+
+    public static void encode(ByteBuffer buffer, Task task, byte[] title, byte[] description) {
+        buffer.putLong(task.getId());
+        buffer.put((byte) task.getType().ordinal());
+        buffer.put((byte) task.getStatus().ordinal());
+        buffer.putLong(task instanceof Subtask subtask ? toLong(subtask.getEpicId()) : NULL_VALUE);
+        buffer.putLong(TaskType.EPIC != task.getType() ? toEpochMinute(task.getStartTime()) : NULL_VALUE);
+        buffer.putLong(TaskType.EPIC != task.getType() ? toLong(task.getDurationMinutes()) : NULL_VALUE);
+        buffer.putLong(TaskType.EPIC == task.getType() ? toEpochMinute(task.getEndTime()) : NULL_VALUE);
+        putString(buffer, title);
+        putString(buffer, description);
+    }
+
+    public static Task decode(ByteBuffer buffer) {
+        long id = buffer.getLong();
+        TaskType type = TYPES[buffer.get()];
+        TaskStatus status = STATUSES[buffer.get()];
+        Long epicId = fromLong(buffer.getLong());
+        LocalDateTime startTime = fromEpochMinute(buffer.getLong());
+        Long durationMinutes = fromLong(buffer.getLong());
+        LocalDateTime endTime = fromEpochMinute(buffer.getLong());
+        String title = getString(buffer);
+        String description = getString(buffer);
+
+        return create(id, type, status, epicId, startTime, durationMinutes, endTime, title, description);
+    }
+
+    private static Task decode(Reader reader) {
+        ByteBuffer buffer = reader.require(FIXED_RECORD_SIZE + Integer.BYTES);
+
+        long id = buffer.getLong();
+        TaskType type = TYPES[buffer.get()];
+        TaskStatus status = STATUSES[buffer.get()];
+        Long epicId = fromLong(buffer.getLong());
+        LocalDateTime startTime = fromEpochMinute(buffer.getLong());
+        Long durationMinutes = fromLong(buffer.getLong());
+        LocalDateTime endTime = fromEpochMinute(buffer.getLong());
+        String title = readString(reader, buffer.getInt());
+        String description = readString(reader, reader.require(Integer.BYTES).getInt());
+
+        return create(id, type, status, epicId, startTime, durationMinutes, endTime, title, description);
+    }
+
+    private static Task create(long id, TaskType type, TaskStatus status, Long epicId, LocalDateTime startTime,
+                               Long durationMinutes, LocalDateTime endTime, String title, String description) {
+        Duration duration = null != durationMinutes ? Duration.ofMinutes(durationMinutes) : null;
+
+        return switch (type) {
+            case TASK -> new Task(id, title, description, status, startTime, duration);
+            case SUBTASK -> new Subtask(id, title, description, status, epicId, startTime, duration);
+            case EPIC -> new Epic(id, title, description, status, endTime);
+        };
+    }
+
+    private static String readString(Reader reader, int length) {
+        if (length < 0) {
+            return null;
+        }
+
+        ByteBuffer buffer = reader.require(length);
+        String value = StandardCharsets.UTF_8.decode(buffer.slice(buffer.position(), length)).toString();
+        buffer.position(buffer.position() + length);
+
+        return value;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        if (null == bytes) {
+            buffer.putInt(-1);
+
+            return;
+        }
+
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+
+        String value = StandardCharsets.UTF_8.decode(buffer.slice(buffer.position(), length)).toString();
+        buffer.position(buffer.position() + length);
+
+        return value;
+    }
+
+    private static byte[] encode(String value) {
+        return null != value ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static int length(byte[] bytes) {
+        return null != bytes ? bytes.length : 0;
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static long toLong(Long value) {
+        return null != value ? value : NULL_VALUE;
+    }
+
+    private static Long fromLong(long value) {
+        return NULL_VALUE != value ? value : null;
+    }
+
+    private static long toEpochMinute(LocalDateTime dateTime) {
+        return null != dateTime ? Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60) : NULL_VALUE;
+    }
+
+    private static LocalDateTime fromEpochMinute(long epochMinute) {
+        return NULL_VALUE != epochMinute ? LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC) : null;
+    }
+
+    // Чтение файла окнами отображения: гарантирует, что в текущем окне есть нужное количество байт
+    private static final class Reader {
+
+        private final MappedFile file;
+
+        private long windowStart;
+
+        private ByteBuffer buffer = ByteBuffer.allocate(0);
+
+        private Reader(MappedFile file) {
+            this.file = file;
+        }
+
+        private ByteBuffer require(int bytes) {
+            if (buffer.remaining() >= bytes) {
+                return buffer;
+            }
+
+            windowStart += buffer.position();
+            if (file.size() - windowStart < bytes) {
+                throw new ManagerLoadException("Unexpected end of binary snapshot");
+            }
+
+            buffer = file.map(windowStart, Math.min(file.size(), windowStart + Math.max(bytes, WINDOW_SIZE)));
+
+            return buffer;
+        }
+
+    }
+
+}
@@ -0,0 +1,61 @@
+package service.impl;
+
+import java.time.Duration;
+
+/**
+ * Условия фонового сжатия журнала {@link FileBackedTaskManager}: размер журнала в байтах, количество записей или
+ * время с последнего сжатия. Нулевое значение (или {@code null} для интервала) отключает соответствующее условие.
+ */
+public final class CompactionPolicy {
+
+    private final long maxJournalBytes;
+
+    private final long maxRecords;
+
+    private final Duration maxInterval;
+
+    public CompactionPolicy(long maxJournalBytes, long maxRecords, Duration maxInterval) {
+        this.maxJournalBytes = maxJournalBytes;
+        this.maxRecords = maxRecords;
+        this.maxInterval = maxInterval;
+    }
+
+    public static CompactionPolicy manual() {
+        return new CompactionPolicy(0L, 0L, null);
+    }
+
+    public static CompactionPolicy ofJournalBytes(long maxJournalBytes) {
+        return new CompactionPolicy(maxJournalBytes, 0L, null);
+    }
+
+    public static CompactionPolicy ofRecords(long maxRecords) {
+        return new CompactionPolicy(0L, maxRecords, null);
+    }
+
+    public static CompactionPolicy ofInterval(Duration maxInterval) {
+        return new CompactionPolicy(0L, 0L, maxInterval);
+    }
+
+    public long getMaxJournalBytes() {
+        return maxJournalBytes;
+    }
+
+    public long getMaxRecords() {
+        return maxRecords;
+    }
+
+    public Duration getMaxInterval() {
+        return maxInterval;
+    }
+
+    public boolean shouldCompact(long journalBytes, long records, Duration sinceLastCompaction) {
+        if (0 == records) {
+            return false;
+        }
+
+        return (0 < maxJournalBytes && journalBytes >= maxJournalBytes)
+               || (0 < maxRecords && records >= maxRecords)
+               || (null != maxInterval && sinceLastCompaction.compareTo(maxInterval) >= 0);
+    }
+
+}
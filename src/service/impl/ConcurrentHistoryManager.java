@@ -0,0 +1,180 @@
+package service.impl;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import model.Task;
+import service.HistoryManager;
+
+/**
+ * Потокобезопасная история просмотров для частых параллельных вызовов {@link #add}.
+ * <p>
+ * Просмотр не трогает общий список: он получает номер из глобального счётчика и дописывается в буфер своей полосы,
+ * выбранной по потоку. Полосы сливаются в упорядоченную историю ({@link ArrayHistoryManager}) пачками - при
+ * заполнении буфера, при удалении и при чтении истории. Номера просмотров, вошедших в одно слияние, образуют
+ * непрерывный диапазон, поэтому просмотры раскладываются по местам за O(n) без сортировки, и история всегда
+ * отражает порядок, в котором просмотры получили номера.
+ */
+public class ConcurrentHistoryManager implements HistoryManager {
+
+    private static final int STRIPE_CAPACITY = 128;
+
+    private final HistoryManager history;
+
+    private final Lock historyLock = new ReentrantLock();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final Stripe[] stripes;
+
+    // Номер последнего просмотра, уже перенесённого в историю; меняется под historyLock
+    private long drainedSequence;
+
+    private Task[] drainBuffer = new Task[STRIPE_CAPACITY];
+
+    public ConcurrentHistoryManager() {
+        this(HistoryPolicy.unbounded());
+    }
+
+    // Время просмотра для ограничения по возрасту фиксируется в момент слияния полос
+    public ConcurrentHistoryManager(HistoryPolicy policy) {
+        this.history = new ArrayHistoryManager(policy);
+
+        int count = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1) << 1;
+        stripes = new Stripe[Math.min(count, 64)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    @Override
+    public void add(Task task) {
+        Stripe stripe = stripes[(int) mix(Thread.currentThread().threadId()) & (stripes.length - 1)];
+
+        boolean appended = false;
+        while (!appended) {
+            int count;
+
+            stripe.lock.lock();
+            try {
+                count = stripe.count;
+                if (count < STRIPE_CAPACITY) {
+                    stripe.tasks[count] = task;
+                    stripe.sequences[count] = sequence.incrementAndGet();
+                    stripe.count = ++count;
+                    appended = true;
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+
+            // Полный буфер сливается с ожиданием, наполовину заполненный - только если история свободна
+            if (count == STRIPE_CAPACITY) {
+                historyLock.lock();
+            } else if (count < STRIPE_CAPACITY / 2 || !historyLock.tryLock()) {
+                continue;
+            }
+
+            try {
+                drain();
+            } finally {
+                historyLock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void remove(Long id) {
+        historyLock.lock();
+        try {
+            drain();
+            history.remove(id);
+        } finally {
+            historyLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        historyLock.lock();
+        try {
+            drain();
+
+            return history.getHistory();
+        } finally {
+            historyLock.unlock();
+        }
+    }
+
+    /*
+     * Переносит в историю все просмотры с номером не больше текущего значения счётчика. Номер выдаётся под
+     * блокировкой полосы вместе с записью в буфер, поэтому к моменту захвата полосы все такие просмотры уже в ней
+     * и лежат в начале буфера. Вызывается под historyLock.
+     */
+    private void drain() {
+        long cutoff = sequence.get();
+        int total = (int) (cutoff - drainedSequence);
+        if (0 == total) {
+            return;
+        }
+
+        if (drainBuffer.length < total) {
+            drainBuffer = new Task[Math.max(total, drainBuffer.length * 2)];
+        }
+
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                int taken = 0;
+                while (taken < stripe.count && stripe.sequences[taken] <= cutoff) {
+                    drainBuffer[(int) (stripe.sequences[taken] - drainedSequence - 1)] = stripe.tasks[taken];
+                    taken++;
+                }
+
+                if (taken > 0) {
+                    stripe.take(taken);
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+
+        for (int i = 0; i < total; i++) {
+            history.add(drainBuffer[i]);
+            drainBuffer[i] = null;
+        }
+
+        drainedSequence = cutoff;
+    }
+
+    private static long mix(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+
+        return h ^ (h >>> 32);
+    }
+
+    private static final class Stripe {
+
+        private final Lock lock = new ReentrantLock();
+
+        private final Task[] tasks = new Task[STRIPE_CAPACITY];
+
+        private final long[] sequences = new long[STRIPE_CAPACITY];
+
+        private int count;
+
+        // Убирает из начала буфера перенесённые в историю просмотры
+        private void take(int taken) {
+            int rest = count - taken;
+            System.arraycopy(tasks, taken, tasks, 0, rest);
+            System.arraycopy(sequences, taken, sequences, 0, rest);
+            Arrays.fill(tasks, rest, count, null);
+            count = rest;
+        }
+
+    }
+
+}
@@ -0,0 +1,1018 @@
+package service.impl;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import model.TaskType;
+import service.BatchResult;
+import service.HistoryManager;
+import service.Page;
+import service.QueryIndex;
+import service.QueryPlan;
+import service.TaskManager;
+import service.TaskQuery;
+import service.TaskSort;
+
+/**
+ * Потокобезопасный менеджер задач.
+ * <p>
+ * Чтение идёт без блокировок из конкурентных хранилищ. Изменения эпика и его подзадач выполняются под блокировкой
+ * полосы, выбранной по id эпика, поэтому записи в разные эпики не конкурируют друг с другом, а статус и время эпика
+ * всегда пересчитываются атомарно вместе с изменением подзадачи. После каждого изменения эпика публикуется его копия:
+ * читатели получают эпик целиком в согласованном состоянии.
+ * <p>
+ * Проверка пересечений по времени затрагивает все задачи сразу, поэтому проверка и изменение расписания выполняются
+ * под отдельной короткой блокировкой. Порядок захвата: блокировки полос по возрастанию номера, затем расписание.
+ */
+public class ConcurrentTaskManager implements TaskManager {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final AtomicLong taskIdCounter = new AtomicLong();
+    private final Map<Long, Task> tasks = new ConcurrentHashMap<>();
+    private final Map<Long, Epic> epics = new ConcurrentHashMap<>();
+    private final Map<Long, Epic> publishedEpics = new ConcurrentHashMap<>();
+    private final Map<Long, Subtask> subtasks = new ConcurrentHashMap<>();
+    private final Map<Long, EpicAggregate> epicAggregates = new ConcurrentHashMap<>();
+    private final Map<Long, PersistentIdList> epicSubtaskIds = new ConcurrentHashMap<>();
+    private final HistoryManager historyManager = new ConcurrentHistoryManager();
+    // Истории пользователей не потокобезопасны и меняются под своим монитором
+    private final HistoryPartitions userHistories = HistoryPartitions.withDefaults();
+    private final TaskIntervalIndex prioritizedTasks = TaskIntervalIndex.concurrent();
+    private final TaskOrderIndex taskOrder = TaskOrderIndex.concurrent();
+    private final Lock scheduleLock = new ReentrantLock();
+    private final Lock[] epicLocks = new Lock[LOCK_STRIPES];
+    private final boolean snapshotReads;
+    private final AtomicReference<TaskSnapshot> snapshot = new AtomicReference<>(TaskSnapshot.EMPTY);
+
+    public ConcurrentTaskManager() {
+        this(false);
+    }
+
+    public ConcurrentTaskManager(boolean snapshotReads) {
+        this.snapshotReads = snapshotReads;
+
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            epicLocks[i] = new ReentrantLock();
+        }
+    }
+
+    private Long generateId() {
+        return taskIdCounter.incrementAndGet();
+    }
+
+    // Текущий неизменяемый снимок всех задач: O(1), без копирования и блокировок
+    public TaskSnapshot snapshot() {
+        if (!snapshotReads) {
+            throw new IllegalStateException("Snapshot reads are disabled for this manager");
+        }
+
+        return snapshot.get();
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        return snapshotReads ? snapshot.get().getTasks() : new ArrayList<>(tasks.values());
+    }
+
+    @Override
+    public List<Epic> getEpics() {
+        return snapshotReads ? snapshot.get().getEpics() : new ArrayList<>(publishedEpics.values());
+    }
+
+    @Override
+    public List<Subtask> getSubtasks() {
+        return snapshotReads ? snapshot.get().getSubtasks() : new ArrayList<>(subtasks.values());
+    }
+
+    // Без вторичного индекса: обходятся только задачи запрошенного типа
+    @Override
+    public List<Task> getByStatus(TaskType type, TaskStatus status) {
+        return valuesOf(type).stream()
+                .filter(task -> status == task.getStatus())
+                .map(Task.class::cast)
+                .toList();
+    }
+
+    @Override
+    public Map<TaskStatus, Integer> countByStatus(TaskType type) {
+        Map<TaskStatus, Integer> counts = new EnumMap<>(TaskStatus.class);
+        for (TaskStatus status : TaskStatus.values()) {
+            counts.put(status, 0);
+        }
+
+        for (Task task : valuesOf(type)) {
+            counts.merge(task.getStatus(), 1, Integer::sum);
+        }
+
+        return counts;
+    }
+
+    // Перебор с тем же ранжированием, кроме редкости терминов: индекс пришлось бы обновлять под общей блокировкой
+    @Override
+    public List<Task> search(String query, int limit) {
+        List<String> tokens = TextIndex.queryTokens(query, limit);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Task> matches = new HashMap<>();
+        Map<Long, Double> scores = new HashMap<>();
+        for (TaskType type : TaskType.values()) {
+            for (Task task : valuesOf(type)) {
+                double score = TextIndex.score(task, tokens);
+                if (score > 0) {
+                    matches.put(task.getId(), task);
+                    scores.put(task.getId(), score);
+                }
+            }
+        }
+
+        return TextIndex.top(scores, limit).stream()
+                .map(matches::get)
+                .toList();
+    }
+
+    @Override
+    public Stream<Task> query(TaskQuery query) {
+        return QueryPlanner.execute(query, accessPath(query));
+    }
+
+    @Override
+    public QueryPlan explain(TaskQuery query) {
+        return QueryPlanner.plan(query, accessPath(query));
+    }
+
+    // Без индексов по статусу и тексту: остаются перебор, подзадачи эпика и расписание
+    private QueryPlanner.AccessPath accessPath(TaskQuery query) {
+        List<QueryPlanner.AccessPath> paths = new ArrayList<>();
+        TaskSnapshot current = snapshotReads ? snapshot.get() : null;
+
+        long storedCount = 0;
+        List<Iterable<Task>> stores = new ArrayList<>();
+        for (TaskType type : query.getTypes()) {
+            Collection<? extends Task> values = null != current ? valuesOf(type) : switch (type) {
+                case TaskType.TASK -> tasks.values();
+                case TaskType.SUBTASK -> subtasks.values();
+                case TaskType.EPIC -> publishedEpics.values();
+            };
+            storedCount += values.size();
+            stores.add(Collections.unmodifiableCollection(values));
+        }
+        paths.add(new QueryPlanner.AccessPath(QueryIndex.SCAN, storedCount, () -> QueryPlanner.concat(stores)));
+
+        if (null != query.getEpicId()) {
+            List<? extends Task> epicSubtasks = !query.getTypes().contains(TaskType.SUBTASK) ? List.of()
+                    : null != current ? current.getEpicSubtasks(query.getEpicId())
+                    : Optional.ofNullable(publishedEpics.get(query.getEpicId())).map(this::getEpicSubtasks)
+                    .orElse(List.of());
+            paths.add(new QueryPlanner.AccessPath(QueryIndex.EPIC, epicSubtasks.size(),
+                    () -> Collections.unmodifiableList(epicSubtasks)));
+        }
+
+        if (null != query.getFrom()) {
+            if (!QueryPlanner.schedulable(query)) {
+                paths.add(new QueryPlanner.AccessPath(QueryIndex.TIME, 0, List::of));
+            } else if (null != current) {
+                // В снимке окно расписания собирается сразу: так оценка и выдача согласованы
+                List<Task> scheduled = current.getPrioritizedTasks(query.getFrom(), query.getTo());
+                paths.add(new QueryPlanner.AccessPath(QueryIndex.TIME, scheduled.size(), () -> scheduled));
+            } else {
+                long timeCount = prioritizedTasks.countBetween(query.getFrom(), query.getTo(),
+                        QueryPlanner.choose(paths).estimatedRows());
+                paths.add(new QueryPlanner.AccessPath(QueryIndex.TIME, timeCount,
+                        () -> prioritizedTasks.valuesBetween(query.getFrom(), query.getTo())));
+            }
+        }
+
+        return QueryPlanner.choose(paths);
+    }
+
+    private List<? extends Task> valuesOf(TaskType type) {
+        return switch (type) {
+            case TaskType.TASK -> getTasks();
+            case TaskType.SUBTASK -> getSubtasks();
+            case TaskType.EPIC -> getEpics();
+        };
+    }
+
+    @Override
+    public Page<Task> getTasks(String cursor, int limit, TaskSort sort) {
+        return TaskPager.page(taskOrder, prioritizedTasks, TaskType.TASK, tasks::get, cursor, limit, sort);
+    }
+
+    @Override
+    public Page<Subtask> getSubtasks(String cursor, int limit, TaskSort sort) {
+        return TaskPager.page(taskOrder, prioritizedTasks, TaskType.SUBTASK, subtasks::get, cursor, limit, sort);
+    }
+
+    // Слабо согласованный обход ConcurrentHashMap: параллельные изменения не прерывают выгрузку
+    @Override
+    public Stream<Task> streamTasks() {
+        return tasks.values().stream();
+    }
+
+    @Override
+    public Stream<Subtask> streamSubtasks() {
+        return subtasks.values().stream();
+    }
+
+    @Override
+    public Task getTask(Long id) {
+        Optional<Task> optionalTask = Optional.ofNullable(null != id ? tasks.get(id) : null);
+
+        optionalTask.ifPresentOrElse(
+                historyManager::add,
+                () -> System.out.println("Task with id=" + id + " not found")
+        );
+
+        return optionalTask.orElse(null);
+    }
+
+    @Override
+    public Epic getEpic(Long id) {
+        Optional<Epic> optionalEpic = Optional.ofNullable(null != id ? publishedEpics.get(id) : null);
+
+        optionalEpic.ifPresentOrElse(
+                historyManager::add,
+                () -> System.out.println("Epic with id=" + id + " not found")
+        );
+
+        return optionalEpic.orElse(null);
+    }
+
+    @Override
+    public Subtask getSubtask(Long id) {
+        Optional<Subtask> optionalSubtask = Optional.ofNullable(null != id ? subtasks.get(id) : null);
+
+        optionalSubtask.ifPresentOrElse(
+                historyManager::add,
+                () -> System.out.println("Subtask with id=" + id + " not found")
+        );
+
+        return optionalSubtask.orElse(null);
+    }
+
+    @Override
+    public Task getTask(Long id, String userId) {
+        return addToUserHistory(userId, id, tasks, "Task");
+    }
+
+    @Override
+    public Epic getEpic(Long id, String userId) {
+        return addToUserHistory(userId, id, publishedEpics, "Epic");
+    }
+
+    @Override
+    public Subtask getSubtask(Long id, String userId) {
+        return addToUserHistory(userId, id, subtasks, "Subtask");
+    }
+
+    private <T extends Task> T addToUserHistory(String userId, Long id, Map<Long, T> store, String name) {
+        T task = null != id ? store.get(id) : null;
+        if (null == task) {
+            System.out.println(name + " with id=" + id + " not found");
+
+            return null;
+        }
+
+        synchronized (userHistories) {
+            userHistories.add(userId, task);
+        }
+
+        return task;
+    }
+
+    @Override
+    public Task createTask(Task task) {
+        return withScheduleLock(() -> {
+            if (prioritizedTasks.intersects(task)) {
+                return null;
+            }
+
+            task.setId(generateId());
+
+            if (TaskStatus.NEW != task.getStatus()) {
+                task.setStatus(TaskStatus.NEW);
+            }
+
+            tasks.put(task.getId(), task);
+            prioritizedTasks.add(task);
+            taskOrder.put(task);
+            publish(snapshot -> snapshot.withTask(task).withScheduled(null, task));
+
+            return task;
+        });
+    }
+
+    @Override
+    public Epic createEpic(Epic epic) {
+        epic.setId(generateId());
+
+        if (TaskStatus.NEW != epic.getStatus()) {
+            epic.setStatus(TaskStatus.NEW);
+        }
+
+        return withEpicLocks(epic.getId(), null, () -> {
+            epicAggregates.put(epic.getId(), new EpicAggregate());
+            epicSubtaskIds.put(epic.getId(), PersistentIdList.copyOf(epic.getSubtaskIds()));
+            epics.put(epic.getId(), epic);
+            Epic publishedEpic = publishEpic(epic);
+            publish(snapshot -> snapshot.withEpic(publishedEpic));
+
+            return epic;
+        });
+    }
+
+    @Override
+    public Subtask createSubtask(Subtask subtask) {
+        if (null == subtask.getEpicId()) {
+            System.out.println("No epic specified");
+
+            return null;
+        }
+
+        return withEpicLocks(subtask.getEpicId(), null, () -> {
+            Epic epic = epics.get(subtask.getEpicId());
+            if (null == epic) {
+                System.out.println("Epic with id=" + subtask.getEpicId() + " not found");
+
+                return null;
+            }
+
+            boolean scheduled = withScheduleLock(() -> {
+                if (prioritizedTasks.intersects(subtask)) {
+                    return false;
+                }
+
+                subtask.setId(generateId());
+
+                if (TaskStatus.NEW != subtask.getStatus()) {
+                    subtask.setStatus(TaskStatus.NEW);
+                }
+
+                prioritizedTasks.add(subtask);
+
+                return true;
+            });
+
+            if (!scheduled) {
+                return null;
+            }
+
+            subtasks.put(subtask.getId(), subtask);
+            taskOrder.put(subtask);
+            changeSubtaskIds(epic, ids -> ids.with(subtask.getId()));
+            epicAggregates.get(epic.getId()).put(subtask);
+            Epic publishedEpic = refreshEpic(epic);
+            publish(snapshot -> snapshot.withSubtask(subtask).withEpic(publishedEpic).withScheduled(null, subtask));
+
+            return subtask;
+        });
+    }
+
+    // Пакетные операции выполняются поэлементно: каждое изменение атомарно само по себе
+    @Override
+    public BatchResult<Task> createTasks(Collection<? extends Task> newTasks) {
+        return BatchResult.ofEach(newTasks, this::createTask, "Task was rejected");
+    }
+
+    @Override
+    public BatchResult<Subtask> createSubtasks(Collection<? extends Subtask> newSubtasks) {
+        return BatchResult.ofEach(newSubtasks, this::createSubtask, "Subtask was rejected");
+    }
+
+    @Override
+    public BatchResult<Task> updateAll(Collection<? extends Task> updatedTasks) {
+        return BatchResult.ofEach(updatedTasks, task -> switch (task.getType()) {
+            case TaskType.TASK -> updateTask(task);
+            case TaskType.SUBTASK -> updateSubtask((Subtask) task);
+            case TaskType.EPIC -> updateEpic((Epic) task);
+        }, "Update was rejected");
+    }
+
+    @Override
+    public BatchResult<Task> deleteAll(Collection<Long> ids) {
+        return BatchResult.ofEach(ids, id -> {
+            Task task = null != id ? tasks.get(id) : null;
+            if (null != task) {
+                deleteTask(id);
+
+                return task;
+            }
+
+            Subtask subtask = null != id ? subtasks.get(id) : null;
+            if (null != subtask) {
+                deleteSubtask(id);
+
+                return subtask;
+            }
+
+            Epic epic = null != id ? publishedEpics.get(id) : null;
+            if (null != epic) {
+                deleteEpic(id);
+            }
+
+            return epic;
+        }, "Task was not found");
+    }
+
+    @Override
+    public Task updateTask(Task task) {
+        if (null == task.getId()) {
+            System.out.println("Task with id=null not found");
+
+            return null;
+        }
+
+        return withScheduleLock(() -> {
+            if (!tasks.containsKey(task.getId())) {
+                System.out.println("Task with id=" + task.getId() + " not found");
+
+                return null;
+            }
+
+            if (prioritizedTasks.intersects(task, task.getId())) {
+                System.out.println("Task with id=" + task.getId() + " intersects with other tasks");
+
+                return null;
+            }
+
+            Task oldTask = tasks.put(task.getId(), task);
+            prioritizedTasks.replace(oldTask, task);
+            taskOrder.put(task);
+            publish(snapshot -> snapshot.withTask(task).withScheduled(oldTask, task));
+
+            return task;
+        });
+    }
+
+    @Override
+    public Epic updateEpic(Epic epic) {
+        if (null == epic.getId()) {
+            System.out.println("Epic with id=null not found");
+
+            return null;
+        }
+
+        return withEpicLocks(epic.getId(), null, () -> {
+            Epic oldEpic = epics.get(epic.getId());
+            if (null == oldEpic) {
+                System.out.println("Epic with id=" + epic.getId() + " not found");
+
+                return null;
+            }
+
+            // Восстанавливаем привязанные подзадачи
+            epic.shareSubtaskIds(epicSubtaskIds.get(epic.getId()));
+
+            epics.put(epic.getId(), epic);
+
+            // Нельзя менять статус и время эпика вручную
+            Epic publishedEpic = refreshEpic(epic);
+            publish(snapshot -> snapshot.withEpic(publishedEpic));
+
+            return epic;
+        });
+    }
+
+    @Override
+    public Subtask updateSubtask(Subtask subtask) {
+        if (null == subtask.getId()) {
+            System.out.println("Subtask with id=null not found");
+
+            return null;
+        }
+
+        if (null == subtask.getEpicId()) {
+            if (!subtasks.containsKey(subtask.getId())) {
+                System.out.println("Subtask with id=" + subtask.getId() + " not found");
+            } else {
+                System.out.println("No epic specified");
+            }
+
+            return null;
+        }
+
+        return withSubtaskLocks(subtask.getId(), subtask.getEpicId(), oldSubtask -> {
+            if (null == oldSubtask) {
+                System.out.println("Subtask with id=" + subtask.getId() + " not found");
+
+                return null;
+            }
+
+            if (null == epics.get(subtask.getEpicId())) {
+                System.out.println("Epic with id=" + subtask.getEpicId() + " not found. Updating subtask failed.");
+
+                return null;
+            }
+
+            if (!replaceScheduled(oldSubtask, subtask)) {
+                System.out.println("Subtask with id=" + subtask.getId() + " intersects with other tasks");
+
+                return null;
+            }
+
+            subtasks.put(subtask.getId(), subtask);
+            taskOrder.put(subtask);
+            linkSubtask(oldSubtask, subtask);
+
+            return subtask;
+        });
+    }
+
+    @Override
+    public Subtask moveSubtask(Long subtaskId, Long epicId) {
+        if (null == subtaskId) {
+            System.out.println("Subtask with id=null not found");
+
+            return null;
+        }
+
+        return withSubtaskLocks(subtaskId, epicId, subtask -> {
+            if (null == subtask) {
+                System.out.println("Subtask with id=" + subtaskId + " not found");
+
+                return null;
+            }
+
+            if (null == epicId || null == epics.get(epicId)) {
+                System.out.println("Epic with id=" + epicId + " not found. Moving subtask failed.");
+
+                return null;
+            }
+
+            Subtask movedSubtask = new Subtask(
+                    subtask.getId(),
+                    subtask.getTitle(),
+                    subtask.getDescription(),
+                    subtask.getStatus(),
+                    epicId,
+                    subtask.getStartTime(),
+                    subtask.getDuration()
+            );
+
+            withScheduleLock(() -> {
+                prioritizedTasks.replace(subtask, movedSubtask);
+
+                return null;
+            });
+
+            subtasks.put(subtaskId, movedSubtask);
+            linkSubtask(subtask, movedSubtask);
+
+            return movedSubtask;
+        });
+    }
+
+    @Override
+    public void deleteTask(Long id) {
+        if (null == id) {
+            System.out.println("Task with id=null not found");
+
+            return;
+        }
+
+        withScheduleLock(() -> {
+            Task task = tasks.remove(id);
+            if (null == task) {
+                System.out.println("Task with id=" + id + " not found");
+
+                return null;
+            }
+
+            prioritizedTasks.remove(task);
+            taskOrder.remove(task);
+            publish(snapshot -> snapshot.withoutTask(id).withScheduled(task, null));
+            removeFromHistory(id);
+
+            return null;
+        });
+    }
+
+    @Override
+    public void deleteEpic(Long id) {
+        if (null == id) {
+            System.out.println("Epic with id=null not found");
+
+            return;
+        }
+
+        withEpicLocks(id, null, () -> {
+            Epic epic = epics.remove(id);
+            if (null == epic) {
+                System.out.println("Epic with id=" + id + " not found");
+
+                return null;
+            }
+
+            publishedEpics.remove(id);
+            epicAggregates.remove(id);
+            epicSubtaskIds.remove(id);
+
+            List<Subtask> deletedSubtasks = new ArrayList<>();
+            withScheduleLock(() -> {
+                for (Long subtaskId : epic.getSubtaskIds()) {
+                    Subtask subtask = subtasks.remove(subtaskId);
+                    if (null != subtask) {
+                        taskOrder.remove(subtask);
+                        deletedSubtasks.add(subtask);
+                    }
+                }
+                prioritizedTasks.removeAll(deletedSubtasks);
+
+                return null;
+            });
+
+            publish(snapshot -> {
+                snapshot = snapshot.withoutEpic(id);
+                for (Subtask subtask : deletedSubtasks) {
+                    snapshot = snapshot.withoutSubtask(subtask.getId()).withScheduled(subtask, null);
+                }
+
+                return snapshot;
+            });
+
+            epic.getSubtaskIds().forEach(this::removeFromHistory);
+            removeFromHistory(id);
+
+            return null;
+        });
+    }
+
+    @Override
+    public void deleteSubtask(Long id) {
+        if (null == id) {
+            System.out.println("Subtask with id=null not found");
+
+            return;
+        }
+
+        withSubtaskLocks(id, null, subtask -> {
+            if (null == subtask) {
+                System.out.println("Subtask with id=" + id + " not found");
+
+                return null;
+            }
+
+            withScheduleLock(() -> {
+                prioritizedTasks.remove(subtask);
+
+                return null;
+            });
+
+            subtasks.remove(id);
+            taskOrder.remove(subtask);
+            Epic publishedEpic = unlinkSubtask(id, subtask.getEpicId());
+            publish(snapshot -> snapshot.withoutSubtask(id).withEpic(publishedEpic).withScheduled(subtask, null));
+            removeFromHistory(id);
+
+            return null;
+        });
+    }
+
+    @Override
+    public void deleteTasks() {
+        withScheduleLock(() -> {
+            prioritizedTasks.removeByType(TaskType.TASK);
+            taskOrder.clear(TaskType.TASK);
+            tasks.keySet().forEach(this::removeFromHistory);
+            tasks.clear();
+            publish(snapshot -> snapshot.withoutType(TaskType.TASK));
+
+            return null;
+        });
+    }
+
+    @Override
+    public void deleteEpics() {
+        withAllEpicLocks(() -> {
+            internalDeleteSubtasks();
+
+            epics.keySet().forEach(this::removeFromHistory);
+            epics.clear();
+            publishedEpics.clear();
+            epicAggregates.clear();
+            epicSubtaskIds.clear();
+            publish(snapshot -> snapshot.withoutType(TaskType.SUBTASK).withoutType(TaskType.EPIC));
+        });
+    }
+
+    @Override
+    public void deleteSubtasks() {
+        withAllEpicLocks(() -> {
+            internalDeleteSubtasks();
+
+            List<Epic> refreshedEpics = List.copyOf(publishedEpics.values());
+            publish(snapshot -> {
+                snapshot = snapshot.withoutType(TaskType.SUBTASK);
+                for (Epic epic : refreshedEpics) {
+                    snapshot = snapshot.withEpic(epic);
+                }
+
+                return snapshot;
+            });
+        });
+    }
+
+    private void internalDeleteSubtasks() {
+        epics.values().forEach(epic -> {
+            changeSubtaskIds(epic, ids -> PersistentIdList.empty());
+            epicAggregates.get(epic.getId()).clear();
+            refreshEpic(epic);
+        });
+
+        withScheduleLock(() -> {
+            prioritizedTasks.removeByType(TaskType.SUBTASK);
+            taskOrder.clear(TaskType.SUBTASK);
+
+            return null;
+        });
+
+        subtasks.keySet().forEach(this::removeFromHistory);
+        subtasks.clear();
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasks(Epic epic) {
+        Epic publishedEpic = publishedEpics.getOrDefault(epic.getId(), epic);
+
+        return publishedEpic.getSubtaskIds().stream()
+                .map(subtasks::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    // Эпик вызывающего не потокобезопасен: страница строится по опубликованной версии эпика с тем же id
+    @Override
+    public Page<Subtask> getEpicSubtasks(Epic epic, String cursor, int limit, TaskSort sort) {
+        if (snapshotReads) {
+            return TaskPager.page(snapshot.get().getEpicSubtasks(epic.getId()), cursor, limit, sort);
+        }
+
+        Epic publishedEpic = publishedEpics.get(epic.getId());
+        Iterable<Subtask> epicSubtasks = null == publishedEpic ? List.of()
+                : () -> publishedEpic.getSubtaskIds().stream().map(subtasks::get).iterator();
+
+        return TaskPager.page(epicSubtasks, cursor, limit, sort);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public List<Task> getHistory(String userId) {
+        synchronized (userHistories) {
+            return userHistories.getHistory(userId);
+        }
+    }
+
+    private void removeFromHistory(long id) {
+        historyManager.remove(id);
+        synchronized (userHistories) {
+            userHistories.remove(id);
+        }
+    }
+
+    @Override
+    public Set<Task> getPrioritizedTasks() {
+        return snapshotReads
+                ? snapshot.get().getPrioritizedTasks()
+                : Collections.unmodifiableSequencedSet(new LinkedHashSet<>(prioritizedTasks.values()));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+        return snapshotReads
+                ? snapshot.get().getPrioritizedTasks(from, to)
+                : prioritizedTasks.between(from, to);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasksAfter(LocalDateTime instant, int limit) {
+        return snapshotReads
+                ? snapshot.get().getPrioritizedTasksAfter(instant, limit)
+                : prioritizedTasks.nextAfter(instant, limit);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasksBefore(LocalDateTime instant, int limit) {
+        return snapshotReads
+                ? snapshot.get().getPrioritizedTasksBefore(instant, limit)
+                : prioritizedTasks.lastBefore(instant, limit);
+    }
+
+    // Ответ может устареть к моменту создания задачи: createTask всё равно проверит пересечение
+    @Override
+    public List<LocalDateTime> findFreeSlots(Duration duration, LocalDateTime notBefore, LocalDateTime notAfter,
+                                             int limit) {
+        return snapshotReads
+                ? snapshot.get().findFreeSlots(duration, notBefore, notAfter, limit)
+                : prioritizedTasks.freeSlots(duration, notBefore, notAfter, limit);
+    }
+
+    // Вызывается под блокировками полос старого и нового эпиков
+    private void linkSubtask(Subtask oldSubtask, Subtask subtask) {
+        Epic oldPublishedEpic = null;
+        if (!Objects.equals(oldSubtask.getEpicId(), subtask.getEpicId())) {
+            oldPublishedEpic = unlinkSubtask(subtask.getId(), oldSubtask.getEpicId());
+            changeSubtaskIds(epics.get(subtask.getEpicId()), ids -> ids.with(subtask.getId()));
+        }
+
+        Epic epic = epics.get(subtask.getEpicId());
+        epicAggregates.get(epic.getId()).put(subtask);
+        Epic publishedEpic = refreshEpic(epic);
+
+        Epic unlinkedEpic = oldPublishedEpic;
+        publish(snapshot -> snapshot.withSubtask(subtask)
+                .withEpic(unlinkedEpic)
+                .withEpic(publishedEpic)
+                .withScheduled(oldSubtask, subtask));
+    }
+
+    private Epic unlinkSubtask(Long subtaskId, Long epicId) {
+        Epic epic = epics.get(epicId);
+        if (null == epic) {
+            return null;
+        }
+
+        changeSubtaskIds(epic, ids -> ids.without(subtaskId));
+        epicAggregates.get(epicId).remove(subtaskId);
+
+        return refreshEpic(epic);
+    }
+
+    /*
+     * id подзадач эпика - постоянный список: изменение стоит O(log k), а эпик и его опубликованная копия делят одну
+     * версию без копирования. Вызывается под блокировкой полосы эпика.
+     */
+    private void changeSubtaskIds(Epic epic, UnaryOperator<PersistentIdList> change) {
+        PersistentIdList ids = change.apply(epicSubtaskIds.get(epic.getId()));
+        epicSubtaskIds.put(epic.getId(), ids);
+        epic.shareSubtaskIds(ids);
+    }
+
+    // Пересчитывает эпик и публикует его копию для читателей; вызывается под блокировкой полосы эпика
+    private Epic refreshEpic(Epic epic) {
+        epicAggregates.get(epic.getId()).applyTo(epic);
+
+        return publishEpic(epic);
+    }
+
+    private Epic publishEpic(Epic epic) {
+        Epic copy = new Epic(epic.getId(), epic.getTitle(), epic.getDescription(), epic.getStatus(),
+                epic.getEndTime());
+        copy.setStartTime(epic.getStartTime());
+        copy.setDuration(epic.getDuration());
+        copy.shareSubtaskIds(epicSubtaskIds.get(epic.getId()));
+
+        publishedEpics.put(epic.getId(), copy);
+
+        return copy;
+    }
+
+    /*
+     * Применяет изменение к общему снимку. Вызывается под теми же блокировками, что и само изменение, поэтому
+     * изменения одной записи попадают в снимок по порядку; изменения разных записей коммутируют, и повтор CAS
+     * из-за соседнего писателя лишь заново копирует O(log n) узлов.
+     */
+    private void publish(UnaryOperator<TaskSnapshot> change) {
+        if (snapshotReads) {
+            snapshot.updateAndGet(change);
+        }
+    }
+
+    private boolean replaceScheduled(Task oldTask, Task newTask) {
+        return withScheduleLock(() -> {
+            if (prioritizedTasks.intersects(newTask, newTask.getId())) {
+                return false;
+            }
+
+            prioritizedTasks.replace(oldTask, newTask);
+
+            return true;
+        });
+    }
+
+    private <T> T withScheduleLock(Supplier<T> action) {
+        scheduleLock.lock();
+        try {
+            return action.get();
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    /*
+     * Выполняет действие над подзадачей под блокировками полос её текущего эпика и эпика newEpicId. Если подзадачу
+     * изменили или перенесли, пока захватывались блокировки, попытка повторяется.
+     */
+    private <T> T withSubtaskLocks(Long subtaskId, Long newEpicId, Function<Subtask, T> action) {
+        while (true) {
+            Subtask subtask = subtasks.get(subtaskId);
+            Long epicId = null != subtask ? subtask.getEpicId() : null;
+
+            lockEpics(epicId, newEpicId);
+            try {
+                if (subtasks.get(subtaskId) == subtask) {
+                    return action.apply(subtask);
+                }
+            } finally {
+                unlockEpics(epicId, newEpicId);
+            }
+        }
+    }
+
+    private <T> T withEpicLocks(Long firstEpicId, Long secondEpicId, Supplier<T> action) {
+        lockEpics(firstEpicId, secondEpicId);
+        try {
+            return action.get();
+        } finally {
+            unlockEpics(firstEpicId, secondEpicId);
+        }
+    }
+
+    // Полосы захватываются по возрастанию номера, чтобы два переноса навстречу друг другу не взаимоблокировались
+    private void lockEpics(Long firstEpicId, Long secondEpicId) {
+        int first = stripe(firstEpicId);
+        int second = stripe(secondEpicId);
+
+        lock(Math.min(first, second));
+        if (first != second) {
+            lock(Math.max(first, second));
+        }
+    }
+
+    private void unlockEpics(Long firstEpicId, Long secondEpicId) {
+        int first = stripe(firstEpicId);
+        int second = stripe(secondEpicId);
+
+        if (first != second) {
+            unlock(Math.max(first, second));
+        }
+        unlock(Math.min(first, second));
+    }
+
+    private void withAllEpicLocks(Runnable action) {
+        for (Lock lock : epicLocks) {
+            lock.lock();
+        }
+
+        try {
+            action.run();
+        } finally {
+            for (int i = LOCK_STRIPES - 1; i >= 0; i--) {
+                epicLocks[i].unlock();
+            }
+        }
+    }
+
+    private void lock(int stripe) {
+        if (stripe >= 0) {
+            epicLocks[stripe].lock();
+        }
+    }
+
+    private void unlock(int stripe) {
+        if (stripe >= 0) {
+            epicLocks[stripe].unlock();
+        }
+    }
+
+    private static int stripe(Long epicId) {
+        if (null == epicId) {
+            return -1;
+        }
+
+        int hash = Long.hashCode(epicId);
+
+        return (hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1);
+    }
+
+}
@@ -0,0 +1,131 @@
+package service.impl;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import model.Epic;
+import model.Subtask;
+import model.TaskStatus;
+import util.LongLinkedMap;
+
+/**
+ * Агрегаты эпика по его подзадачам: количество подзадач в каждом статусе, суммарная длительность и упорядоченные
+ * мультимножества времени начала и окончания. Изменение одной подзадачи обновляет агрегаты за O(log k).
+ * <p>
+ * Вклад каждой подзадачи запоминается отдельно, поэтому повторное добавление той же подзадачи (в том числе
+ * изменённой на месте) сначала корректно вычитает её прежние значения.
+ */
+public class EpicAggregate {
+
+    private final LongLinkedMap<Contribution> contributions = new LongLinkedMap<>();
+
+    private final int[] statusCounts = new int[TaskStatus.values().length];
+
+    private final NavigableMap<LocalDateTime, Integer> startTimes = new TreeMap<>();
+
+    private final NavigableMap<LocalDateTime, Integer> endTimes = new TreeMap<>();
+
+    private Duration duration = Duration.ZERO;
+
+    public void put(Subtask subtask) {
+        remove(subtask.getId());
+
+        Contribution contribution = new Contribution(
+                subtask.getStatus(),
+                subtask.getStartTime(),
+                subtask.getEndTime(),
+                subtask.getDuration()
+        );
+        contributions.put(subtask.getId(), contribution);
+
+        statusCounts[contribution.status().ordinal()]++;
+        increment(startTimes, contribution.startTime());
+        increment(endTimes, contribution.endTime());
+        if (null != contribution.duration()) {
+            duration = duration.plus(contribution.duration());
+        }
+    }
+
+    public void remove(long subtaskId) {
+        Contribution contribution = contributions.remove(subtaskId);
+        if (null == contribution) {
+            return;
+        }
+
+        statusCounts[contribution.status().ordinal()]--;
+        decrement(startTimes, contribution.startTime());
+        decrement(endTimes, contribution.endTime());
+        if (null != contribution.duration()) {
+            duration = duration.minus(contribution.duration());
+        }
+    }
+
+    public void clear() {
+        contributions.clear();
+        Arrays.fill(statusCounts, 0);
+        startTimes.clear();
+        endTimes.clear();
+        duration = Duration.ZERO;
+    }
+
+    public int size() {
+        return contributions.size();
+    }
+
+    public int getStatusCount(TaskStatus status) {
+        return statusCounts[status.ordinal()];
+    }
+
+    public TaskStatus getStatus() {
+        final int subtasksCount = size();
+
+        if (0 == subtasksCount || subtasksCount == getStatusCount(TaskStatus.NEW)) {
+            return TaskStatus.NEW;
+        }
+
+        if (subtasksCount == getStatusCount(TaskStatus.DONE)) {
+            return TaskStatus.DONE;
+        }
+
+        return TaskStatus.IN_PROGRESS;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTimes.isEmpty() ? null : startTimes.firstKey();
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTimes.isEmpty() ? null : endTimes.lastKey();
+    }
+
+    public Duration getDuration() {
+        return Duration.ZERO.equals(duration) ? null : duration;
+    }
+
+    public void applyTo(Epic epic) {
+        epic.setStatus(getStatus());
+        epic.setStartTime(getStartTime());
+        epic.setDuration(getDuration());
+        epic.setEndTime(getEndTime());
+    }
+
+    private static void increment(NavigableMap<LocalDateTime, Integer> multiset, LocalDateTime key) {
+        if (null != key) {
+            multiset.merge(key, 1, Integer::sum);
+        }
+    }
+
+    private static void decrement(NavigableMap<LocalDateTime, Integer> multiset, LocalDateTime key) {
+        if (null != key) {
+            multiset.computeIfPresent(key, (k, count) -> 1 == count ? null : count - 1);
+        }
+    }
+
+    private record Contribution(TaskStatus status, LocalDateTime startTime, LocalDateTime endTime,
+                                Duration duration) {
+    }
+
+}
@@ -1,42 +1,104 @@
 package service.impl;
 
-import exceptions.ManagerLoadException;
 import exceptions.ManagerSaveException;
 import model.Epic;
 import model.Subtask;
 import model.Task;
-import model.TaskStatus;
+import model.TaskCsvReader;
+import model.TaskCsvWriter;
 import model.TaskType;
+import service.BatchResult;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-public class FileBackedTaskManager extends InMemoryTaskManager {
+public class FileBackedTaskManager extends InMemoryTaskManager implements AutoCloseable {
 
     private final File file;
 
+    private final TaskJournal journal;
+
+    private final CompactionPolicy compactionPolicy;
+
+    private final SnapshotFormat snapshotFormat;
+
+    private ExecutorService compactionExecutor;
+
+    private Future<?> compaction = CompletableFuture.completedFuture(null);
+
+    private Instant lastCompaction = Instant.now();
+
+    private long lastSequence;
+
+    private LoadStats loadStats;
+
     public FileBackedTaskManager(File file) {
+        this(file, SnapshotFormat.CSV);
+    }
+
+    public FileBackedTaskManager(File file, SnapshotFormat snapshotFormat) {
+        this(file, null, CompactionPolicy.manual(), JournalDurability.sync(), snapshotFormat);
+    }
+
+    public FileBackedTaskManager(File file, File journalFile) {
+        this(file, journalFile, CompactionPolicy.manual());
+    }
+
+    public FileBackedTaskManager(File file, File journalFile, CompactionPolicy compactionPolicy) {
+        this(file, journalFile, compactionPolicy, JournalDurability.sync());
+    }
+
+    public FileBackedTaskManager(File file, File journalFile, CompactionPolicy compactionPolicy,
+                                 JournalDurability durability) {
+        this(file, journalFile, compactionPolicy, durability, SnapshotFormat.CSV);
+    }
+
+    public FileBackedTaskManager(File file, File journalFile, CompactionPolicy compactionPolicy,
+                                 JournalDurability durability, SnapshotFormat snapshotFormat) {
         this.file = file;
+        this.journal = null != journalFile ? new TaskJournal(journalFile, durability) : null;
+        this.compactionPolicy = compactionPolicy;
+        this.snapshotFormat = snapshotFormat;
+        this.loadStats = LoadStats.empty(snapshotFormat);
 
         if (file.exists() && file.isFile()) {
             load();
         }
+
+        if (null != journal) {
+            journal.replay(this::replay);
+
+            // Прошлое сжатие не завершилось: не даём журналу расти дальше, чем на одно окно
+            if (journal.hasRotated()) {
+                startCompaction();
+            }
+        }
     }
 
     @Override
     public Task createTask(Task task) {
         task = super.createTask(task);
 
-        save();
+        if (null != task) {
+            persist(TaskJournal.create(task));
+        }
 
         return task;
     }
@@ -45,7 +107,9 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     public Epic createEpic(Epic epic) {
         epic = super.createEpic(epic);
 
-        save();
+        if (null != epic) {
+            persist(TaskJournal.create(epic));
+        }
 
         return epic;
     }
@@ -54,16 +118,55 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     public Subtask createSubtask(Subtask subtask) {
         subtask = super.createSubtask(subtask);
 
-        save();
+        if (null != subtask) {
+            persist(TaskJournal.create(subtask));
+        }
 
         return subtask;
     }
 
+    // Пакет сохраняется одной записью: без журнала - один снимок, с журналом - одна запись и один fsync
+    @Override
+    public BatchResult<Task> createTasks(Collection<? extends Task> tasks) {
+        BatchResult<Task> result = super.createTasks(tasks);
+        persistAll(result.getAccepted().stream().map(TaskJournal::create).toList());
+
+        return result;
+    }
+
+    @Override
+    public BatchResult<Subtask> createSubtasks(Collection<? extends Subtask> subtasks) {
+        BatchResult<Subtask> result = super.createSubtasks(subtasks);
+        persistAll(result.getAccepted().stream().map(TaskJournal::create).toList());
+
+        return result;
+    }
+
+    @Override
+    public BatchResult<Task> updateAll(Collection<? extends Task> tasks) {
+        BatchResult<Task> result = super.updateAll(tasks);
+        persistAll(result.getAccepted().stream().map(TaskJournal::update).toList());
+
+        return result;
+    }
+
+    @Override
+    public BatchResult<Task> deleteAll(Collection<Long> ids) {
+        BatchResult<Task> result = super.deleteAll(ids);
+        persistAll(result.getAccepted().stream()
+                .map(task -> TaskJournal.delete(task.getType(), task.getId()))
+                .toList());
+
+        return result;
+    }
+
     @Override
     public Task updateTask(Task task) {
         task = super.updateTask(task);
 
-        save();
+        if (null != task) {
+            persist(TaskJournal.update(task));
+        }
 
         return task;
     }
@@ -72,7 +175,9 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     public Epic updateEpic(Epic epic) {
         epic = super.updateEpic(epic);
 
-        save();
+        if (null != epic) {
+            persist(TaskJournal.update(epic));
+        }
 
         return epic;
     }
@@ -81,67 +186,257 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     public Subtask updateSubtask(Subtask subtask) {
         subtask = super.updateSubtask(subtask);
 
-        save();
+        if (null != subtask) {
+            persist(TaskJournal.update(subtask));
+        }
+
+        return subtask;
+    }
+
+    @Override
+    public Subtask moveSubtask(Long subtaskId, Long epicId) {
+        Subtask subtask = super.moveSubtask(subtaskId, epicId);
+
+        if (null != subtask) {
+            persist(TaskJournal.move(subtaskId, epicId));
+        }
 
         return subtask;
     }
 
+    // Удаление журналируется, только если запись была: отклонённый id в журнале ломает воспроизведение
     @Override
     public void deleteTask(Long id) {
+        boolean exists = contains(TaskType.TASK, id);
         super.deleteTask(id);
 
-        save();
+        if (exists) {
+            persist(TaskJournal.delete(TaskType.TASK, id));
+        }
     }
 
     @Override
     public void deleteEpic(Long id) {
+        boolean exists = contains(TaskType.EPIC, id);
         super.deleteEpic(id);
 
-        save();
+        if (exists) {
+            persist(TaskJournal.delete(TaskType.EPIC, id));
+        }
     }
 
     @Override
     public void deleteSubtask(Long id) {
+        boolean exists = contains(TaskType.SUBTASK, id);
         super.deleteSubtask(id);
 
-        save();
+        if (exists) {
+            persist(TaskJournal.delete(TaskType.SUBTASK, id));
+        }
     }
 
     @Override
     public void deleteTasks() {
         super.deleteTasks();
 
-        save();
+        persist(TaskJournal.clear(TaskType.TASK));
     }
 
     @Override
     public void deleteEpics() {
         super.deleteEpics();
 
-        save();
+        persist(TaskJournal.clear(TaskType.EPIC));
     }
 
     @Override
     public void deleteSubtasks() {
         super.deleteSubtasks();
 
-        save();
+        persist(TaskJournal.clear(TaskType.SUBTASK));
     }
 
-    private void save() {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(file))) {
-            bw.write(Task.CSV_HEADER);
+    public void compact() {
+        if (null == journal) {
+            return;
+        }
 
-            for (Task task : getTasks()) {
-                bw.write(String.format("%s%n", task.toCSVString()));
-            }
+        awaitCompaction();
+
+        // Сначала доводим до конца прерванное сжатие, затем сжимаем всё, что накопилось после него
+        if (journal.hasRotated()) {
+            startCompaction();
+            awaitCompaction();
+        }
+
+        startCompaction();
+        awaitCompaction();
+    }
+
+    public void export(File target, SnapshotFormat format) {
+        writeSnapshot(target, format, snapshot());
+    }
+
+    public boolean isCompacting() {
+        return !compaction.isDone();
+    }
+
+    // Статистика загрузки снимка при создании менеджера
+    public LoadStats getLoadStats() {
+        return loadStats;
+    }
 
-            for (Epic epic : getEpics()) {
-                bw.write(String.format("%s%n", epic.toCSVString()));
+    // Номер последнего изменения, записанного в журнал
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    public void awaitDurable(long sequence) {
+        if (null != journal) {
+            journal.awaitDurable(sequence);
+        }
+    }
+
+    public void awaitDurable() {
+        awaitDurable(lastSequence);
+    }
+
+    @Override
+    public void close() {
+        if (null != compactionExecutor) {
+            awaitCompaction();
+            compactionExecutor.shutdown();
+        }
+
+        if (null != journal) {
+            journal.close();
+        }
+    }
+
+    private void persist(String journalRecord) {
+        persistAll(List.of(journalRecord));
+    }
+
+    private void persistAll(List<String> journalRecords) {
+        if (journalRecords.isEmpty()) {
+            return;
+        }
+
+        if (null == journal) {
+            save();
+
+            return;
+        }
+
+        lastSequence = journal.append(journalRecords);
+
+        if (isCompacting()) {
+            return;
+        }
+
+        reportCompactionFailure();
+
+        if (compactionPolicy.shouldCompact(journal.getSize(), journal.getRecordCount(),
+                Duration.between(lastCompaction, Instant.now()))) {
+            startCompaction();
+        }
+    }
+
+    /*
+     * В потоке писателя - только ротация журнала. Новый снимок собирается в фоне из прежнего снимка и отделённой
+     * части журнала, как при загрузке, поэтому задачи писателя не копируются и не читаются из другого потока. Если
+     * отделённая часть осталась от неудачного сжатия, сжимается она, а ротация откладывается до следующего раза.
+     */
+    private void startCompaction() {
+        if (!journal.hasRotated()) {
+            journal.rotate();
+        }
+
+        lastCompaction = Instant.now();
+
+        if (null == compactionExecutor) {
+            compactionExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "task-journal-compactor");
+                thread.setDaemon(true);
+
+                return thread;
+            });
+        }
+
+        compaction = compactionExecutor.submit(() -> {
+            List<Task> tasks = rebuildRotated();
+            File tempFile = new File(file.getPath() + ".tmp");
+            writeSnapshot(tempFile, snapshotFormat, tasks);
+
+            try (FileChannel channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.WRITE)) {
+                channel.force(true);
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new ManagerSaveException(e.getMessage());
             }
 
-            for (Subtask subtask : getSubtasks()) {
-                bw.write(String.format("%s%n", subtask.toCSVString()));
+            journal.deleteRotated();
+        });
+    }
+
+    // Состояние на момент ротации: прежний снимок и отделённая часть журнала, воспроизведённые в отдельном менеджере
+    private List<Task> rebuildRotated() {
+        FileBackedTaskManager rotatedState = new FileBackedTaskManager(file, snapshotFormat);
+        journal.replayRotated(rotatedState::replay);
+
+        return rotatedState.snapshot();
+    }
+
+    // Неудачное фоновое сжатие сообщается один раз; отделённая часть журнала остаётся и сжимается при следующем запуске
+    private void reportCompactionFailure() {
+        try {
+            compaction.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.out.println("Journal compaction failed: " + e.getCause().getMessage());
+            compaction = CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private void awaitCompaction() {
+        try {
+            compaction.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new ManagerSaveException(e.getMessage());
+        } catch (ExecutionException e) {
+            throw new ManagerSaveException(e.getCause().getMessage());
+        }
+    }
+
+    private void save() {
+        writeSnapshot(file, snapshotFormat, snapshot());
+    }
+
+    private List<Task> snapshot() {
+        List<Task> tasks = new ArrayList<>(getTasks());
+        tasks.addAll(getEpics());
+        tasks.addAll(getSubtasks());
+
+        return tasks;
+    }
+
+    private static void writeSnapshot(File file, SnapshotFormat format, List<Task> tasks) {
+        switch (format) {
+            case CSV -> writeCsv(file, tasks);
+            case BINARY -> BinarySnapshotCodec.write(file, tasks);
+        }
+    }
+
+    private static void writeCsv(File file, List<Task> tasks) {
+        try (TaskCsvWriter csvWriter = new TaskCsvWriter(new FileWriter(file, StandardCharsets.UTF_8))) {
+            csvWriter.writeHeader();
+
+            for (Task task : tasks) {
+                csvWriter.writeRow(task);
             }
         } catch (IOException e) {
             throw new ManagerSaveException(e.getMessage());
@@ -149,60 +444,70 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     }
 
     private void load() {
-        boolean headerSkipped = false;
-        long taskIdCounter = 0L;
-        List<Subtask> subtasks = new ArrayList<>();
+        SnapshotFormat format = BinarySnapshotCodec.isBinary(file) ? SnapshotFormat.BINARY : SnapshotFormat.CSV;
 
-        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-            while (br.ready()) {
-                String csvLine = br.readLine();
+        try (MappedFile mappedFile = MappedFile.open(file)) {
+            long decodeStarted = System.nanoTime();
+            List<Task> tasks = switch (format) {
+                case CSV -> ParallelCsvLoader.read(mappedFile);
+                case BINARY -> BinarySnapshotCodec.read(mappedFile);
+            };
 
-                if (!headerSkipped) {
-                    headerSkipped = true;
-                    continue;
-                }
+            long buildStarted = System.nanoTime();
+            internalLoad(tasks);
+            setTaskIdCounter(tasks.stream().mapToLong(Task::getId).max().orElse(0L));
+
+            loadStats = new LoadStats(format, mappedFile.getBytesMapped(), tasks.size(),
+                    Duration.ofNanos(buildStarted - decodeStarted), Duration.ofNanos(System.nanoTime() - buildStarted));
+        }
+    }
 
-                List<String> taskData = Arrays.stream(csvLine.split(","))
-                        .map(csvValue -> "null".equalsIgnoreCase(csvValue) ? null : csvValue)
-                        .toList();
+    // Запись журнала: операция в первом поле, данные в остальных
+    private void replay(TaskCsvReader record) {
+        switch (record.getEnum(0, TaskJournal.Operation.values())) {
+            case CREATE:
+                Task createdTask = record.readTask(1);
+                switch (createdTask.getType()) {
+                    case TaskType.TASK -> internalCreateTask(createdTask);
+                    case TaskType.SUBTASK -> internalCreateSubtask((Subtask) createdTask);
+                    case TaskType.EPIC -> internalCreateEpic((Epic) createdTask);
+                }
 
-                Long id = Long.parseLong(taskData.get(0));
-                if (id > taskIdCounter) {
-                    taskIdCounter = id;
+                if (createdTask.getId() > getTaskIdCounter()) {
+                    setTaskIdCounter(createdTask.getId());
                 }
-                TaskType type = TaskType.valueOf(taskData.get(1));
-                String title = taskData.get(2);
-                TaskStatus status = TaskStatus.valueOf(taskData.get(3));
-                String description = taskData.get(4);
-
-                Long epicId = null != taskData.get(5) ? Long.parseLong(taskData.get(5)) : null;
-                LocalDateTime startTime = null != taskData.get(6) ? LocalDateTime.parse(taskData.get(6)) : null;
-                Duration duration = null != taskData.get(7) ? Duration.ofMinutes(Long.parseLong(taskData.get(7))) : null;
-                LocalDateTime endTime = null != taskData.get(8) ? LocalDateTime.parse(taskData.get(8)) : null;
-
-                switch (type) {
-                    case TaskType.TASK:
-                        internalCreateTask(new Task(id, title, description, status, startTime, duration));
-                    break;
-
-                    case TaskType.SUBTASK:
-                        subtasks.add(new Subtask(id, title, description, status, epicId, startTime, duration));
-                    break;
-
-                    case TaskType.EPIC:
-                        internalCreateEpic(new Epic(id, title, description, status, endTime));
-                    break;
+            break;
+
+            case UPDATE:
+                Task updatedTask = record.readTask(1);
+                switch (updatedTask.getType()) {
+                    case TaskType.TASK -> super.updateTask(updatedTask);
+                    case TaskType.SUBTASK -> super.updateSubtask((Subtask) updatedTask);
+                    case TaskType.EPIC -> super.updateEpic((Epic) updatedTask);
                 }
-            }
-        } catch (IOException e) {
-            throw new ManagerLoadException(e.getMessage());
-        }
+            break;
+
+            case MOVE:
+                super.moveSubtask(record.getLongValue(1), record.getLongValue(2));
+            break;
+
+            case DELETE:
+                Long id = record.getLongValue(2);
+                switch (record.getType(1)) {
+                    case TaskType.TASK -> super.deleteTask(id);
+                    case TaskType.SUBTASK -> super.deleteSubtask(id);
+                    case TaskType.EPIC -> super.deleteEpic(id);
+                }
+            break;
 
-        for (Subtask subtask : subtasks) {
-            internalCreateSubtask(subtask);
+            case CLEAR:
+                switch (record.getType(1)) {
+                    case TaskType.TASK -> super.deleteTasks();
+                    case TaskType.SUBTASK -> super.deleteSubtasks();
+                    case TaskType.EPIC -> super.deleteEpics();
+                }
+            break;
         }
-
-        setTaskIdCounter(taskIdCounter);
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,173 @@
+package service.impl;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import model.Task;
+
+/**
+ * Истории просмотров отдельных пользователей.
+ * <p>
+ * История пользователя создаётся при первом просмотре. Количество историй ограничено: при переполнении вытесняется
+ * история, к которой дольше всех не обращались, а истории без обращений дольше заданного времени удаляются целиком.
+ * Для каждой задачи хранится множество историй, в которых она сейчас есть, поэтому удаление задачи затрагивает только
+ * их. Записи, которые история вытеснила сама по своей {@link HistoryPolicy}, сразу убираются и из этого индекса.
+ */
+public final class HistoryPartitions {
+
+    public static final int DEFAULT_MAX_PARTITIONS = 1024;
+
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(30);
+
+    private final int maxPartitions;
+
+    private final Duration idleTimeout;
+
+    private final HistoryPolicy partitionPolicy;
+
+    private final Clock clock;
+
+    // Порядок доступа: в голове давно не использованные истории
+    private final LinkedHashMap<String, Partition> partitions = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Map<Long, Set<Partition>> viewers = new HashMap<>();
+
+    private long evictions;
+
+    public HistoryPartitions(int maxPartitions, Duration idleTimeout, HistoryPolicy partitionPolicy) {
+        this(maxPartitions, idleTimeout, partitionPolicy, Clock.systemUTC());
+    }
+
+    HistoryPartitions(int maxPartitions, Duration idleTimeout, HistoryPolicy partitionPolicy, Clock clock) {
+        if (maxPartitions <= 0) {
+            throw new IllegalArgumentException("maxPartitions must be positive");
+        }
+
+        if (null == idleTimeout || idleTimeout.isNegative() || idleTimeout.isZero()) {
+            throw new IllegalArgumentException("idleTimeout must be positive");
+        }
+
+        this.maxPartitions = maxPartitions;
+        this.idleTimeout = idleTimeout;
+        this.partitionPolicy = partitionPolicy;
+        this.clock = clock;
+    }
+
+    public static HistoryPartitions withDefaults() {
+        return new HistoryPartitions(DEFAULT_MAX_PARTITIONS, DEFAULT_IDLE_TIMEOUT, HistoryPolicy.unbounded());
+    }
+
+    public void add(String userId, Task task) {
+        long now = clock.millis();
+        evictIdle(now);
+
+        Partition partition = partitions.get(userId);
+        if (null == partition) {
+            if (partitions.size() == maxPartitions) {
+                evict(eldest());
+            }
+
+            partition = new Partition(userId);
+            partitions.put(userId, partition);
+        }
+
+        partition.lastAccess = now;
+        // Запись в индексе появляется раньше, чтобы история могла сразу же её убрать, вытеснив эту задачу
+        viewers.computeIfAbsent(task.getId(), id -> new HashSet<>()).add(partition);
+        partition.history.add(task);
+    }
+
+    // История пользователя; пустая, если её ещё нет или она была вытеснена
+    public List<Task> getHistory(String userId) {
+        long now = clock.millis();
+        evictIdle(now);
+
+        Partition partition = partitions.get(userId);
+        if (null == partition) {
+            return List.of();
+        }
+
+        partition.lastAccess = now;
+
+        return partition.history.getHistory();
+    }
+
+    public void remove(Long taskId) {
+        Set<Partition> taskViewers = viewers.remove(taskId);
+        if (null == taskViewers) {
+            return;
+        }
+
+        taskViewers.forEach(partition -> partition.history.remove(taskId));
+    }
+
+    public int size() {
+        return partitions.size();
+    }
+
+    // Количество историй, вытесненных по ограничению количества или времени простоя
+    public long getEvictions() {
+        return evictions;
+    }
+
+    private void evictIdle(long now) {
+        long idleBefore = now - idleTimeout.toMillis();
+
+        while (!partitions.isEmpty() && eldest().lastAccess <= idleBefore) {
+            evict(eldest());
+        }
+    }
+
+    private Partition eldest() {
+        return partitions.values().iterator().next();
+    }
+
+    // Удаляет историю вместе с её записями в обратном индексе
+    private void evict(Partition partition) {
+        partitions.remove(partition.userId);
+        evictions++;
+
+        for (Task task : partition.history.getHistory()) {
+            unlinkViewer(task.getId(), partition);
+        }
+    }
+
+    private void unlinkViewer(long taskId, Partition partition) {
+        Set<Partition> taskViewers = viewers.get(taskId);
+        if (null != taskViewers && taskViewers.remove(partition) && taskViewers.isEmpty()) {
+            viewers.remove(taskId);
+        }
+    }
+
+    // Число пар «задача - история» в обратном индексе
+    int viewerCount() {
+        int count = 0;
+        for (Set<Partition> taskViewers : viewers.values()) {
+            count += taskViewers.size();
+        }
+
+        return count;
+    }
+
+    private final class Partition {
+
+        private final String userId;
+
+        private final ArrayHistoryManager history;
+
+        private long lastAccess;
+
+        private Partition(String userId) {
+            this.userId = userId;
+            this.history = new ArrayHistoryManager(partitionPolicy, clock, taskId -> unlinkViewer(taskId, this));
+        }
+
+    }
+
+}
@@ -0,0 +1,56 @@
+package service.impl;
+
+import java.time.Duration;
+
+/**
+ * Ограничения истории просмотров: максимальное количество записей и время жизни записи с последнего просмотра.
+ * Нулевая ёмкость (или {@code null} для времени жизни) отключает соответствующее ограничение.
+ */
+public final class HistoryPolicy {
+
+    private final int capacity;
+
+    private final Duration maxAge;
+
+    public HistoryPolicy(int capacity, Duration maxAge) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must not be negative");
+        }
+
+        if (null != maxAge && (maxAge.isNegative() || maxAge.isZero())) {
+            throw new IllegalArgumentException("maxAge must be positive");
+        }
+
+        this.capacity = capacity;
+        this.maxAge = maxAge;
+    }
+
+    public static HistoryPolicy unbounded() {
+        return new HistoryPolicy(0, null);
+    }
+
+    public static HistoryPolicy ofCapacity(int capacity) {
+        return new HistoryPolicy(capacity, null);
+    }
+
+    public static HistoryPolicy ofMaxAge(Duration maxAge) {
+        return new HistoryPolicy(0, maxAge);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public Duration getMaxAge() {
+        return maxAge;
+    }
+
+    public boolean isBounded() {
+        return capacity > 0;
+    }
+
+    public boolean isExpiring() {
+        return null != maxAge;
+    }
+
+}
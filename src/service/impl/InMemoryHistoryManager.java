@@ -1,5 +1,6 @@
 package service.impl;
 
+import java.time.Clock;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -9,17 +10,43 @@ import model.Node;
 import model.Task;
 import service.HistoryManager;
 
+/**
+ * История просмотров: двусвязный список в порядке просмотра и индекс узлов по id.
+ * <p>
+ * При заданной {@link HistoryPolicy} история ограничена: при переполнении вытесняется давно просмотренная запись
+ * из головы списка, а записи старше времени жизни удаляются с головы при следующем обращении к истории. Обе операции
+ * выполняются за O(1) на запись.
+ */
 public class InMemoryHistoryManager implements HistoryManager {
 
     private Node<Task> head;
     private Node<Task> tail;
     private final Map<Long, Node<Task>> historyMap = new HashMap<>();
+    private final HistoryPolicy policy;
+    private final Clock clock;
+    private long capacityEvictions;
+    private long expirations;
+
+    public InMemoryHistoryManager() {
+        this(HistoryPolicy.unbounded());
+    }
+
+    public InMemoryHistoryManager(HistoryPolicy policy) {
+        this(policy, Clock.systemUTC());
+    }
+
+    InMemoryHistoryManager(HistoryPolicy policy, Clock clock) {
+        this.policy = policy;
+        this.clock = clock;
+    }
 
     @Override
     public void add(Task task) {
         remove(task.getId());
+        expire();
 
         Node<Task> node = new Node<>(task);
+        node.setTimestamp(clock.millis());
         if (null == head) {
             head = node;
         }
@@ -32,6 +59,11 @@ public class InMemoryHistoryManager implements HistoryManager {
         tail = node;
 
         historyMap.put(task.getId(), node);
+
+        if (policy.isBounded() && historyMap.size() > policy.getCapacity()) {
+            remove(head.getData().getId());
+            capacityEvictions++;
+        }
     }
 
     public void remove(Long id) {
@@ -70,7 +102,9 @@ public class InMemoryHistoryManager implements HistoryManager {
 
     @Override
     public List<Task> getHistory() {
-        List<Task> history = new ArrayList<>();
+        expire();
+
+        List<Task> history = new ArrayList<>(historyMap.size());
 
         Node<Task> node = head;
         while (null != node) {
@@ -82,4 +116,31 @@ public class InMemoryHistoryManager implements HistoryManager {
         return history;
     }
 
+    public int size() {
+        return historyMap.size();
+    }
+
+    // Количество записей, вытесненных из-за превышения ёмкости
+    public long getCapacityEvictions() {
+        return capacityEvictions;
+    }
+
+    // Количество записей, удалённых по истечении времени жизни
+    public long getExpirations() {
+        return expirations;
+    }
+
+    // Список упорядочен по времени просмотра, поэтому устаревшие записи всегда в голове
+    private void expire() {
+        if (!policy.isExpiring()) {
+            return;
+        }
+
+        long expiredBefore = clock.millis() - policy.getMaxAge().toMillis();
+        while (null != head && head.getTimestamp() <= expiredBefore) {
+            remove(head.getData().getId());
+            expirations++;
+        }
+    }
+
 }
@@ -3,32 +3,67 @@ package service.impl;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 import model.Epic;
 import model.Subtask;
 import model.Task;
 import model.TaskStatus;
 import model.TaskType;
+import service.BatchResult;
 import service.HistoryManager;
 import service.Managers;
+import service.Page;
+import service.QueryIndex;
+import service.QueryPlan;
 import service.TaskManager;
+import service.TaskQuery;
+import service.TaskSort;
+import util.LongLinkedMap;
+import util.LongLinkedSet;
 
 public class InMemoryTaskManager implements TaskManager {
 
     private Long taskIdCounter = 0L;
-    private final Map<Long, Task> tasks = new HashMap<>();
-    private final Map<Long, Epic> epics = new HashMap<>();
-    private final Map<Long, Subtask> subtasks = new HashMap<>();
-    private final HistoryManager historyManager = Managers.getDefaultHistory();
-    private final Set<Task> prioritizedTasks = new TreeSet<>(Comparator.comparing(Task::getStartTime));
+    private final LongLinkedMap<Task> tasks = new LongLinkedMap<>();
+    private final LongLinkedMap<Epic> epics = new LongLinkedMap<>();
+    private final LongLinkedMap<Subtask> subtasks = new LongLinkedMap<>();
+    private final HistoryManager historyManager;
+    private final HistoryPartitions userHistories;
+    private final TaskIntervalIndex prioritizedTasks = new TaskIntervalIndex();
+    private final TaskOrderIndex taskOrder = new TaskOrderIndex();
+    private final StatusIndex statusIndex = new StatusIndex();
+    private final TextIndex textIndex = new TextIndex();
+    private final LongLinkedMap<EpicAggregate> epicAggregates = new LongLinkedMap<>();
+
+    public InMemoryTaskManager() {
+        this(Managers.getDefaultHistory());
+    }
+
+    public InMemoryTaskManager(HistoryManager historyManager) {
+        this(historyManager, HistoryPartitions.withDefaults());
+    }
+
+    public InMemoryTaskManager(HistoryManager historyManager, HistoryPartitions userHistories) {
+        this.historyManager = historyManager;
+        this.userHistories = userHistories;
+    }
+
+    protected Long getTaskIdCounter() {
+        return taskIdCounter;
+    }
 
     protected void setTaskIdCounter(Long taskIdCounter) {
         this.taskIdCounter = taskIdCounter;
@@ -53,8 +88,141 @@ public class InMemoryTaskManager implements TaskManager {
         return new ArrayList<>(subtasks.values());
     }
 
+    @Override
+    public Page<Task> getTasks(String cursor, int limit, TaskSort sort) {
+        return TaskPager.page(taskOrder, prioritizedTasks, TaskType.TASK, tasks::get, cursor, limit, sort);
+    }
+
+    @Override
+    public Page<Subtask> getSubtasks(String cursor, int limit, TaskSort sort) {
+        return TaskPager.page(taskOrder, prioritizedTasks, TaskType.SUBTASK, subtasks::get, cursor, limit, sort);
+    }
+
+    // Обход быстро отказывает: изменение менеджера до конца потока - ConcurrentModificationException
+    @Override
+    public Stream<Task> streamTasks() {
+        return tasks.values().stream();
+    }
+
+    @Override
+    public Stream<Subtask> streamSubtasks() {
+        return subtasks.values().stream();
+    }
+
+    @Override
+    public List<Task> getByStatus(TaskType type, TaskStatus status) {
+        List<Task> result = new ArrayList<>(statusIndex.count(type, status));
+        statusIndex.forEach(type, status, id -> result.add(store(type).get(id)));
+
+        return result;
+    }
+
+    @Override
+    public Map<TaskStatus, Integer> countByStatus(TaskType type) {
+        return statusIndex.counts(type);
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        List<Task> result = new ArrayList<>();
+        for (long id : textIndex.search(query, limit)) {
+            result.add(findById(id));
+        }
+
+        return result;
+    }
+
+    @Override
+    public Stream<Task> query(TaskQuery query) {
+        return QueryPlanner.execute(query, accessPath(query));
+    }
+
+    @Override
+    public QueryPlan explain(TaskQuery query) {
+        return QueryPlanner.plan(query, accessPath(query));
+    }
+
+    // Пути доступа для условий запроса; оценки берутся из индексов за O(1), для расписания - обходом не дальше лучшей
+    private QueryPlanner.AccessPath accessPath(TaskQuery query) {
+        List<QueryPlanner.AccessPath> paths = new ArrayList<>();
+        Set<TaskType> types = query.getTypes();
+
+        long storedCount = 0;
+        List<Iterable<Task>> stores = new ArrayList<>();
+        for (TaskType type : types) {
+            storedCount += store(type).size();
+            stores.add(Collections.unmodifiableCollection(store(type).values()));
+        }
+        paths.add(new QueryPlanner.AccessPath(QueryIndex.SCAN, storedCount, () -> QueryPlanner.concat(stores)));
+
+        if (null != query.getEpicId()) {
+            Epic epic = types.contains(TaskType.SUBTASK) ? epics.get(query.getEpicId()) : null;
+            paths.add(new QueryPlanner.AccessPath(QueryIndex.EPIC, null != epic ? epic.getSubtaskCount() : 0,
+                    () -> null != epic ? QueryPlanner.lookup(epic.getSubtaskIds(), subtasks::get) : List.of()));
+        }
+
+        if (null != query.getStatus()) {
+            long statusCount = 0;
+            List<Iterable<Task>> statusSets = new ArrayList<>();
+            for (TaskType type : types) {
+                statusCount += statusIndex.count(type, query.getStatus());
+                statusSets.add(QueryPlanner.lookup(statusIndex.ids(type, query.getStatus()), store(type)::get));
+            }
+            paths.add(new QueryPlanner.AccessPath(QueryIndex.STATUS, statusCount,
+                    () -> QueryPlanner.concat(statusSets)));
+        }
+
+        if (null != query.getFrom()) {
+            long timeCount = QueryPlanner.schedulable(query)
+                    ? prioritizedTasks.countBetween(query.getFrom(), query.getTo(),
+                    QueryPlanner.choose(paths).estimatedRows())
+                    : 0;
+            paths.add(new QueryPlanner.AccessPath(QueryIndex.TIME, timeCount,
+                    () -> prioritizedTasks.valuesBetween(query.getFrom(), query.getTo())));
+        }
+
+        if (null != query.getText()) {
+            paths.add(new QueryPlanner.AccessPath(QueryIndex.TEXT, textIndex.estimate(query.getText()),
+                    () -> QueryPlanner.lookup(textIndex.search(query.getText(), Integer.MAX_VALUE), this::findById)));
+        }
+
+        return QueryPlanner.choose(paths);
+    }
+
+    private LongLinkedMap<? extends Task> store(TaskType type) {
+        return switch (type) {
+            case TaskType.TASK -> tasks;
+            case TaskType.SUBTASK -> subtasks;
+            case TaskType.EPIC -> epics;
+        };
+    }
+
+    protected boolean contains(TaskType type, Long id) {
+        return null != id && store(type).containsKey(id);
+    }
+
+    private Task findById(long id) {
+        Task task = tasks.get(id);
+        if (null == task) {
+            task = subtasks.containsKey(id) ? subtasks.get(id) : epics.get(id);
+        }
+
+        return task;
+    }
+
     @Override
     public Task getTask(Long id) {
+        if (null == id) {
+            System.out.println("Task with id=null not found");
+
+            return null;
+        }
+
+        return getTask(id.longValue());
+    }
+
+    @Override
+    public Task getTask(long id) {
         Optional<Task> optionalTask = Optional.ofNullable(tasks.get(id));
 
         optionalTask.ifPresentOrElse(
@@ -67,6 +235,17 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public Epic getEpic(Long id) {
+        if (null == id) {
+            System.out.println("Epic with id=null not found");
+
+            return null;
+        }
+
+        return getEpic(id.longValue());
+    }
+
+    @Override
+    public Epic getEpic(long id) {
         Optional<Epic> optionalEpic = Optional.ofNullable(epics.get(id));
 
         optionalEpic.ifPresentOrElse(
@@ -79,6 +258,17 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public Subtask getSubtask(Long id) {
+        if (null == id) {
+            System.out.println("Subtask with id=null not found");
+
+            return null;
+        }
+
+        return getSubtask(id.longValue());
+    }
+
+    @Override
+    public Subtask getSubtask(long id) {
         Optional<Subtask> optionalSubtask = Optional.ofNullable(subtasks.get(id));
 
         optionalSubtask.ifPresentOrElse(
@@ -89,6 +279,34 @@ public class InMemoryTaskManager implements TaskManager {
         return optionalSubtask.orElse(null);
     }
 
+    @Override
+    public Task getTask(Long id, String userId) {
+        return addToUserHistory(userId, id, tasks, "Task");
+    }
+
+    @Override
+    public Epic getEpic(Long id, String userId) {
+        return addToUserHistory(userId, id, epics, "Epic");
+    }
+
+    @Override
+    public Subtask getSubtask(Long id, String userId) {
+        return addToUserHistory(userId, id, subtasks, "Subtask");
+    }
+
+    private <T extends Task> T addToUserHistory(String userId, Long id, LongLinkedMap<T> store, String name) {
+        T task = null != id ? store.get(id.longValue()) : null;
+        if (null == task) {
+            System.out.println(name + " with id=" + id + " not found");
+
+            return null;
+        }
+
+        userHistories.add(userId, task);
+
+        return task;
+    }
+
     @Override
     public Task createTask(Task task) {
         if (intersectsTasks(task)) {
@@ -106,9 +324,8 @@ public class InMemoryTaskManager implements TaskManager {
 
     protected Task internalCreateTask(Task task) {
         tasks.put(task.getId(), task);
-        if (null != task.getStartTime() && null != task.getDuration()) {
-            prioritizedTasks.add(task);
-        }
+        prioritizedTasks.add(task);
+        index(task);
 
         return task;
     }
@@ -126,6 +343,8 @@ public class InMemoryTaskManager implements TaskManager {
 
     protected Epic internalCreateEpic(Epic epic) {
         epics.put(epic.getId(), epic);
+        epicAggregates.put(epic.getId(), new EpicAggregate());
+        index(epic);
 
         return epic;
     }
@@ -160,34 +379,341 @@ public class InMemoryTaskManager implements TaskManager {
         }
 
         subtasks.put(subtask.getId(), subtask);
+        linkSubtask(null, subtask);
+
+        prioritizedTasks.add(subtask);
+        index(subtask);
+
+        return subtask;
+    }
+
+    /*
+     * Массовая загрузка в пустой менеджер: задачи кладутся в хранилища без проверок пересечений, затем одним
+     * проходом строятся связи подзадач, агрегаты и индекс по времени. Каждый эпик пересчитывается один раз.
+     */
+    protected void internalLoad(List<? extends Task> loadedTasks) {
+        List<Subtask> loadedSubtasks = new ArrayList<>();
+
+        for (Task task : loadedTasks) {
+            switch (task.getType()) {
+                case TaskType.TASK -> {
+                    tasks.put(task.getId(), task);
+                    index(task);
+                }
+                case TaskType.SUBTASK -> loadedSubtasks.add((Subtask) task);
+                case TaskType.EPIC -> internalCreateEpic((Epic) task);
+            }
+        }
 
-        epic.addSubtask(subtask.getId());
-        epic.setStatus(calculateEpicStatus(epic));
-        updateEpicEndTime(epic);
+        for (Subtask subtask : loadedSubtasks) {
+            Epic epic = null != subtask.getEpicId() ? epics.get(subtask.getEpicId()) : null;
+            if (null == epic) {
+                System.out.println("Epic with id=" + subtask.getEpicId() + " not found");
 
-        if (null != subtask.getStartTime() && null != subtask.getDuration()) {
-            prioritizedTasks.add(subtask);
+                continue;
+            }
+
+            subtasks.put(subtask.getId(), subtask);
+            index(subtask);
+            epic.addSubtask(subtask.getId());
+            epicAggregates.get(epic.getId()).put(subtask);
         }
 
-        return subtask;
+        epics.values().forEach(this::refreshEpic);
+
+        prioritizedTasks.addAll(tasks.values());
+        prioritizedTasks.addAll(subtasks.values());
+    }
+
+    /*
+     * Пакетные операции. Пересечения по времени проверяются один раз на всю пачку: кандидаты сортируются по началу
+     * и сравниваются с последним принятым кандидатом и с индексом расписания. Задачи попадают в индекс одной
+     * упорядоченной вставкой, а каждый затронутый эпик пересчитывается один раз в конце.
+     */
+
+    @Override
+    public BatchResult<Task> createTasks(Collection<? extends Task> newTasks) {
+        return createAll(newTasks, task -> null, task -> {
+            tasks.put(task.getId(), task);
+            index(task);
+        });
+    }
+
+    @Override
+    public BatchResult<Subtask> createSubtasks(Collection<? extends Subtask> newSubtasks) {
+        LongLinkedSet affectedEpics = new LongLinkedSet();
+
+        BatchResult<Subtask> result = createAll(newSubtasks, this::checkEpic, subtask -> {
+            subtasks.put(subtask.getId(), subtask);
+            index(subtask);
+            attachSubtask(null, subtask);
+            affectedEpics.add(subtask.getEpicId());
+        });
+        affectedEpics.forEach(this::refreshEpic);
+
+        return result;
+    }
+
+    @Override
+    public BatchResult<Task> updateAll(Collection<? extends Task> updatedTasks) {
+        List<Task> items = new ArrayList<>(updatedTasks);
+        String[] rejections = new String[items.size()];
+        LongLinkedSet seenIds = new LongLinkedSet();
+
+        for (int i = 0; i < items.size(); i++) {
+            Task task = items.get(i);
+            rejections[i] = checkExists(task);
+            if (null == rejections[i] && TaskType.SUBTASK == task.getType()) {
+                rejections[i] = checkEpic((Subtask) task);
+            }
+
+            if (null == rejections[i] && !seenIds.add(task.getId())) {
+                rejections[i] = "Task with id=" + task.getId() + " is updated twice in the batch";
+            }
+        }
+
+        // Прежние интервалы обновляемых задач не должны мешать проверке их новых интервалов
+        boolean[] unscheduled = new boolean[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            if (null == rejections[i] && TaskType.EPIC != items.get(i).getType()) {
+                prioritizedTasks.remove(storedTask(items.get(i)));
+                unscheduled[i] = true;
+            }
+        }
+
+        rejectIntersections(items, rejections);
+        restoreRejectedIntervals(items, rejections, unscheduled);
+
+        List<Task> scheduled = new ArrayList<>();
+        LongLinkedSet affectedEpics = new LongLinkedSet();
+
+        for (int i = 0; i < items.size(); i++) {
+            Task task = items.get(i);
+            if (null != rejections[i]) {
+                continue;
+            }
+
+            switch (task.getType()) {
+                case TaskType.TASK -> {
+                    tasks.put(task.getId(), task);
+                    index(task);
+                    scheduled.add(task);
+                }
+                case TaskType.SUBTASK -> {
+                    Subtask subtask = (Subtask) task;
+                    Subtask oldSubtask = subtasks.put(subtask.getId(), subtask);
+                    index(subtask);
+                    scheduled.add(subtask);
+
+                    Long oldEpicId = attachSubtask(oldSubtask, subtask);
+                    if (null != oldEpicId) {
+                        affectedEpics.add(oldEpicId);
+                    }
+                    affectedEpics.add(subtask.getEpicId());
+                }
+                case TaskType.EPIC -> {
+                    Epic epic = (Epic) task;
+                    epic.setSubtaskIds(epics.get(epic.getId()).getSubtaskIds());
+                    epics.put(epic.getId(), epic);
+                    textIndex.put(epic);
+                    affectedEpics.add(epic.getId());
+                }
+            }
+        }
+
+        prioritizedTasks.addAll(scheduled);
+        affectedEpics.forEach(this::refreshEpic);
+
+        return toBatchResult(items, rejections);
+    }
+
+    @Override
+    public BatchResult<Task> deleteAll(Collection<Long> ids) {
+        List<Task> items = new ArrayList<>(ids.size());
+        List<String> rejections = new ArrayList<>(ids.size());
+        LongLinkedSet affectedEpics = new LongLinkedSet();
+
+        for (Long id : ids) {
+            Task task = null != id ? internalDelete(id, affectedEpics) : null;
+            items.add(task);
+            rejections.add(null != task ? null : "Task with id=" + id + " not found");
+        }
+
+        affectedEpics.forEach(this::refreshEpic);
+
+        return new BatchResult<>(items, rejections);
+    }
+
+    private <T extends Task> BatchResult<T> createAll(Collection<? extends T> candidates,
+                                                      Function<T, String> validator, Consumer<T> store) {
+        List<T> items = new ArrayList<>(candidates);
+        String[] rejections = new String[items.size()];
+
+        for (int i = 0; i < items.size(); i++) {
+            rejections[i] = validator.apply(items.get(i));
+        }
+
+        rejectIntersections(items, rejections);
+
+        List<T> accepted = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            if (null == rejections[i]) {
+                T task = items.get(i);
+                task.setId(generateId());
+                task.setStatus(TaskStatus.NEW);
+                store.accept(task);
+                accepted.add(task);
+            }
+        }
+
+        prioritizedTasks.addAll(accepted);
+
+        return toBatchResult(items, rejections);
+    }
+
+    // Один проход по кандидатам из расписания в порядке начала; принятые кандидаты не пересекаются между собой
+    private void rejectIntersections(List<? extends Task> items, String[] rejections) {
+        List<Integer> scheduled = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            Task task = items.get(i);
+            if (null == rejections[i] && TaskType.EPIC != task.getType() && TaskIntervalIndex.isScheduled(task)) {
+                scheduled.add(i);
+            }
+        }
+
+        scheduled.sort(Comparator.comparing(i -> items.get(i).getStartTime()));
+
+        Task lastAccepted = null;
+        for (int i : scheduled) {
+            Task task = items.get(i);
+            if (null != lastAccepted && task.intersectsWithTask(lastAccepted) || intersectsTasks(task)) {
+                rejections[i] = "Task intersects with other tasks";
+            } else {
+                lastAccepted = task;
+            }
+        }
+    }
+
+    /*
+     * Отклонённая задача остаётся на прежнем интервале. Принятые задачи, которые его заняли, тоже отклоняются, и их
+     * прежние интервалы возвращаются в индекс - до тех пор, пока возвращать больше нечего.
+     */
+    private void restoreRejectedIntervals(List<? extends Task> items, String[] rejections, boolean[] unscheduled) {
+        boolean restored = true;
+        while (restored) {
+            restored = false;
+            for (int i = 0; i < items.size(); i++) {
+                if (null != rejections[i] && unscheduled[i]) {
+                    prioritizedTasks.add(storedTask(items.get(i)));
+                    unscheduled[i] = false;
+                    restored = true;
+                }
+            }
+
+            if (!restored) {
+                return;
+            }
+
+            for (int i = 0; i < items.size(); i++) {
+                if (null == rejections[i] && unscheduled[i] && intersectsTasks(items.get(i))) {
+                    rejections[i] = "Task intersects with other tasks";
+                }
+            }
+        }
+    }
+
+    private String checkExists(Task task) {
+        if (null != task.getId() && null != storedTask(task)) {
+            return null;
+        }
+
+        return switch (task.getType()) {
+            case TaskType.TASK -> "Task with id=" + task.getId() + " not found";
+            case TaskType.SUBTASK -> "Subtask with id=" + task.getId() + " not found";
+            case TaskType.EPIC -> "Epic with id=" + task.getId() + " not found";
+        };
+    }
+
+    private String checkEpic(Subtask subtask) {
+        if (null == subtask.getEpicId()) {
+            return "No epic specified";
+        }
+
+        return epics.containsKey(subtask.getEpicId()) ? null : "Epic with id=" + subtask.getEpicId() + " not found";
+    }
+
+    private Task storedTask(Task task) {
+        return switch (task.getType()) {
+            case TaskType.TASK -> tasks.get(task.getId());
+            case TaskType.SUBTASK -> subtasks.get(task.getId());
+            case TaskType.EPIC -> epics.get(task.getId());
+        };
+    }
+
+    // Удаление без пересчёта эпиков: затронутые эпики собираются в affectedEpics
+    private Task internalDelete(long id, LongLinkedSet affectedEpics) {
+        Task task = tasks.remove(id);
+        if (null != task) {
+            prioritizedTasks.remove(task);
+            unindex(task);
+            removeFromHistory(id);
+
+            return task;
+        }
+
+        Subtask subtask = subtasks.remove(id);
+        if (null != subtask) {
+            prioritizedTasks.remove(subtask);
+            unindex(subtask);
+
+            detachSubtask(id, subtask.getEpicId());
+            affectedEpics.add(subtask.getEpicId());
+
+            removeFromHistory(id);
+
+            return subtask;
+        }
+
+        Epic epic = epics.get(id);
+        if (null != epic) {
+            internalDeleteEpic(epic);
+        }
+
+        return epic;
+    }
+
+    private static <T> BatchResult<T> toBatchResult(List<T> items, String[] rejections) {
+        List<T> results = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            results.add(null == rejections[i] ? items.get(i) : null);
+        }
+
+        return new BatchResult<>(results, Arrays.asList(rejections));
     }
 
     @Override
     public Task updateTask(Task task) {
-        if (!tasks.containsKey(task.getId())) {
+        if (null == task.getId() || !tasks.containsKey(task.getId())) {
             System.out.println("Task with id=" + task.getId() + " not found");
 
             return null;
         }
 
-        tasks.put(task.getId(), task);
+        if (prioritizedTasks.intersects(task, task.getId())) {
+            System.out.println("Task with id=" + task.getId() + " intersects with other tasks");
+
+            return null;
+        }
+
+        prioritizedTasks.replace(tasks.put(task.getId(), task), task);
+        index(task);
 
         return task;
     }
 
     @Override
     public Epic updateEpic(Epic epic) {
-        if (!epics.containsKey(epic.getId())) {
+        if (null == epic.getId() || !epics.containsKey(epic.getId())) {
             System.out.println("Epic with id=" + epic.getId() + " not found");
 
             return null;
@@ -197,20 +723,18 @@ public class InMemoryTaskManager implements TaskManager {
         Epic oldEpic = epics.get(epic.getId());
         epic.setSubtaskIds(oldEpic.getSubtaskIds());
 
-        // Нельзя менять статус эпика вручную
-        if (epic.getStatus() != oldEpic.getStatus()) {
-            epic.setStatus(calculateEpicStatus(epic));
-            updateEpicEndTime(epic);
-        }
+        // Нельзя менять статус и время эпика вручную
+        refreshEpic(epic);
 
         epics.put(epic.getId(), epic);
+        textIndex.put(epic);
 
         return epic;
     }
 
     @Override
     public Subtask updateSubtask(Subtask subtask) {
-        if (!subtasks.containsKey(subtask.getId())) {
+        if (null == subtask.getId() || !subtasks.containsKey(subtask.getId())) {
             System.out.println("Subtask with id=" + subtask.getId() + " not found");
 
             return null;
@@ -228,43 +752,112 @@ public class InMemoryTaskManager implements TaskManager {
             return null;
         }
 
-        subtasks.put(subtask.getId(), subtask);
+        if (prioritizedTasks.intersects(subtask, subtask.getId())) {
+            System.out.println("Subtask with id=" + subtask.getId() + " intersects with other tasks");
 
-        for (Epic epic : getEpics()) {
-            if (epic.getSubtaskIds().contains(subtask.getId())) {
-                if (!Objects.equals(epic.getId(), subtask.getEpicId())) {
-                    epic.deleteSubtask(subtask.getId());
-                }
+            return null;
+        }
+
+        Subtask oldSubtask = subtasks.put(subtask.getId(), subtask);
+        prioritizedTasks.replace(oldSubtask, subtask);
+        index(subtask);
+        linkSubtask(oldSubtask, subtask);
+
+        return subtask;
+    }
+
+    @Override
+    public Subtask moveSubtask(Long subtaskId, Long epicId) {
+        Subtask subtask = null != subtaskId ? subtasks.get(subtaskId) : null;
+        if (null == subtask) {
+            System.out.println("Subtask with id=" + subtaskId + " not found");
 
-                epic.setStatus(calculateEpicStatus(epic));
-                updateEpicEndTime(epic);
-            } else if (Objects.equals(epic.getId(), subtask.getEpicId())) {
-                epic.addSubtask(subtask.getId());
+            return null;
+        }
+
+        if (null == epicId || null == epics.get(epicId)) {
+            System.out.println("Epic with id=" + epicId + " not found. Moving subtask failed.");
 
-                epic.setStatus(calculateEpicStatus(epic));
-                updateEpicEndTime(epic);
+            return null;
+        }
+
+        Subtask movedSubtask = new Subtask(
+                subtask.getId(),
+                subtask.getTitle(),
+                subtask.getDescription(),
+                subtask.getStatus(),
+                epicId,
+                subtask.getStartTime(),
+                subtask.getDuration()
+        );
+
+        prioritizedTasks.replace(subtasks.put(subtaskId, movedSubtask), movedSubtask);
+        linkSubtask(subtask, movedSubtask);
+
+        return movedSubtask;
+    }
+
+    private void linkSubtask(Subtask oldSubtask, Subtask subtask) {
+        Long oldEpicId = attachSubtask(oldSubtask, subtask);
+        if (null != oldEpicId && !oldEpicId.equals(subtask.getEpicId())) {
+            refreshEpic(oldEpicId);
+        }
+
+        refreshEpic(subtask.getEpicId());
+    }
+
+    private void unlinkSubtask(Long subtaskId, Long epicId) {
+        detachSubtask(subtaskId, epicId);
+        refreshEpic(epicId);
+    }
+
+    /*
+     * Привязывает подзадачу к эпику без пересчёта эпиков; возвращает id прежнего эпика. Эпик подзадачи неизменяем,
+     * поэтому прежний эпик берётся из заменённой версии подзадачи, null - у новой.
+     */
+    private Long attachSubtask(Subtask oldSubtask, Subtask subtask) {
+        Long oldEpicId = null != oldSubtask ? oldSubtask.getEpicId() : null;
+
+        if (!Objects.equals(oldEpicId, subtask.getEpicId())) {
+            if (null != oldEpicId) {
+                detachSubtask(subtask.getId(), oldEpicId);
             }
+
+            epics.get(subtask.getEpicId()).addSubtask(subtask.getId());
         }
 
-        return subtask;
+        epicAggregates.get(subtask.getEpicId()).put(subtask);
+
+        return oldEpicId;
+    }
+
+    private void detachSubtask(long subtaskId, long epicId) {
+        Epic epic = epics.get(epicId);
+        if (null == epic) {
+            return;
+        }
+
+        epic.deleteSubtask(subtaskId);
+        epicAggregates.get(epicId).remove(subtaskId);
     }
 
     @Override
     public void deleteTask(Long id) {
-        if (!tasks.containsKey(id)) {
+        if (null == id || !tasks.containsKey(id)) {
             System.out.println("Task with id=" + id + " not found");
 
             return;
         }
 
         prioritizedTasks.remove(tasks.get(id));
-        historyManager.remove(id);
+        unindex(tasks.get(id));
+        removeFromHistory(id);
         tasks.remove(id);
     }
 
     @Override
     public void deleteEpic(Long id) {
-        Epic epic = epics.get(id);
+        Epic epic = null != id ? epics.get(id) : null;
 
         if (null == epic) {
             System.out.println("Epic with id=" + id + " not found");
@@ -272,18 +865,28 @@ public class InMemoryTaskManager implements TaskManager {
             return;
         }
 
-        epic.getSubtaskIds().forEach(subtaskId -> {
-            historyManager.remove(subtaskId);
-            subtasks.remove(subtaskId);
+        internalDeleteEpic(epic);
+    }
+
+    private void internalDeleteEpic(Epic epic) {
+        List<Subtask> epicSubtasks = new ArrayList<>(epic.getSubtaskCount());
+        epic.forEachSubtaskId(subtaskId -> {
+            removeFromHistory(subtaskId);
+            Subtask subtask = subtasks.remove(subtaskId);
+            unindex(subtask);
+            epicSubtasks.add(subtask);
         });
+        prioritizedTasks.removeAll(epicSubtasks);
 
-        historyManager.remove(id);
-        epics.remove(id);
+        removeFromHistory(epic.getId());
+        epics.remove(epic.getId());
+        epicAggregates.remove(epic.getId());
+        unindex(epic);
     }
 
     @Override
     public void deleteSubtask(Long id) {
-        Subtask subtask = subtasks.get(id);
+        Subtask subtask = null != id ? subtasks.get(id) : null;
         if (null == subtask) {
             System.out.println("Subtask with id=" + id + " not found");
 
@@ -291,22 +894,19 @@ public class InMemoryTaskManager implements TaskManager {
         }
 
         prioritizedTasks.remove(subtask);
+        unindex(subtask);
 
-        Epic epic = epics.get(subtask.getEpicId());
-        if (null != epic) {
-            epic.deleteSubtask(id);
-            epic.setStatus(calculateEpicStatus(epic));
-            updateEpicEndTime(epic);
-        }
+        unlinkSubtask(id, subtask.getEpicId());
 
-        historyManager.remove(id);
+        removeFromHistory(id);
         subtasks.remove(id);
     }
 
     @Override
     public void deleteTasks() {
         deletePrioritizedTasksByType(TaskType.TASK);
-        deleteFromHistory(tasks.keySet());
+        unindexAll(TaskType.TASK, tasks);
+        tasks.forEachKey(this::removeFromHistory);
         tasks.clear();
     }
 
@@ -314,8 +914,10 @@ public class InMemoryTaskManager implements TaskManager {
     public void deleteEpics() {
         internalDeleteSubtasks();
 
-        deleteFromHistory(epics.keySet());
+        unindexAll(TaskType.EPIC, epics);
+        epics.forEachKey(this::removeFromHistory);
         epics.clear();
+        epicAggregates.clear();
     }
 
     @Override
@@ -326,20 +928,34 @@ public class InMemoryTaskManager implements TaskManager {
     protected void internalDeleteSubtasks() {
         getEpics().forEach(epic -> {
             epic.deleteSubtasks();
-            epic.setStatus(TaskStatus.NEW);
+            epicAggregates.get(epic.getId()).clear();
+            refreshEpic(epic);
         });
 
         deletePrioritizedTasksByType(TaskType.SUBTASK);
-        deleteFromHistory(subtasks.keySet());
+        unindexAll(TaskType.SUBTASK, subtasks);
+        subtasks.forEachKey(this::removeFromHistory);
         subtasks.clear();
     }
 
     @Override
     public List<Subtask> getEpicSubtasks(Epic epic) {
-        return epic.getSubtaskIds().stream()
-                .map(subtasks::get)
-                .filter(Objects::nonNull)
-                .toList();
+        List<Subtask> epicSubtasks = new ArrayList<>(epic.getSubtaskCount());
+        epic.forEachSubtaskId(subtaskId -> {
+            Subtask subtask = subtasks.get(subtaskId);
+            if (null != subtask) {
+                epicSubtasks.add(subtask);
+            }
+        });
+
+        return epicSubtasks;
+    }
+
+    @Override
+    public Page<Subtask> getEpicSubtasks(Epic epic, String cursor, int limit, TaskSort sort) {
+        Iterable<Subtask> epicSubtasks = () -> epic.getSubtaskIds().stream().map(subtasks::get).iterator();
+
+        return TaskPager.page(epicSubtasks, cursor, limit, sort);
     }
 
     @Override
@@ -347,75 +963,80 @@ public class InMemoryTaskManager implements TaskManager {
         return historyManager.getHistory();
     }
 
-    private void deleteFromHistory(Set<Long> ids) {
-        ids.forEach(historyManager::remove);
+    @Override
+    public List<Task> getHistory(String userId) {
+        return userHistories.getHistory(userId);
     }
 
-    private TaskStatus calculateEpicStatus(Epic epic) {
-        TaskStatus epicStatus = TaskStatus.NEW;
-        final int subtasksCount = epic.getSubtaskIds().size();
-        if (0 == subtasksCount) {
-            return epicStatus;
-        }
+    private void removeFromHistory(long id) {
+        historyManager.remove(id);
+        userHistories.remove(id);
+    }
 
-        long newSubtasksCount = epic.getSubtaskIds().stream()
-                .map(subtasks::get)
-                .filter(subtask -> TaskStatus.NEW == subtask.getStatus())
-                .count();
-        long doneSubtasksCount = epic.getSubtaskIds().stream()
-                .map(subtasks::get)
-                .filter(subtask -> TaskStatus.DONE == subtask.getStatus())
-                .count();
+    private void index(Task task) {
+        statusIndex.put(task);
+        taskOrder.put(task);
+        textIndex.put(task);
+    }
 
-        if (subtasksCount == doneSubtasksCount) {
-            epicStatus = TaskStatus.DONE;
-        } else if (subtasksCount != newSubtasksCount) {
-            epicStatus = TaskStatus.IN_PROGRESS;
+    private void unindex(Task task) {
+        if (null != task) {
+            statusIndex.remove(task);
+            taskOrder.remove(task);
+            textIndex.remove(task.getId());
         }
+    }
 
-        return epicStatus;
+    private void unindexAll(TaskType type, LongLinkedMap<? extends Task> store) {
+        statusIndex.clear(type);
+        taskOrder.clear(type);
+        store.forEachKey(textIndex::remove);
+    }
+
+    // Статус эпика вычисляется, поэтому индекс по статусу обновляется при каждом пересчёте
+    private void refreshEpic(Epic epic) {
+        epicAggregates.get(epic.getId()).applyTo(epic);
+        statusIndex.put(epic);
+    }
+
+    private void refreshEpic(long epicId) {
+        Epic epic = epics.get(epicId);
+        if (null != epic) {
+            refreshEpic(epic);
+        }
     }
 
     @Override
     public Set<Task> getPrioritizedTasks() {
-        return Set.copyOf(prioritizedTasks);
+        return Collections.unmodifiableSequencedSet(new LinkedHashSet<>(prioritizedTasks.values()));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+        return prioritizedTasks.between(from, to);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasksAfter(LocalDateTime instant, int limit) {
+        return prioritizedTasks.nextAfter(instant, limit);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasksBefore(LocalDateTime instant, int limit) {
+        return prioritizedTasks.lastBefore(instant, limit);
+    }
+
+    @Override
+    public List<LocalDateTime> findFreeSlots(Duration duration, LocalDateTime notBefore, LocalDateTime notAfter,
+                                             int limit) {
+        return prioritizedTasks.freeSlots(duration, notBefore, notAfter, limit);
     }
 
     private void deletePrioritizedTasksByType(TaskType taskType) {
-        prioritizedTasks.stream()
-                .filter(task -> task.getType().equals(taskType))
-                .toList()
-                .forEach(prioritizedTasks::remove);
+        prioritizedTasks.removeByType(taskType);
     }
 
     private boolean intersectsTasks(Task task) {
-        return prioritizedTasks.stream().anyMatch(task::intersectsWithTask);
-    }
-
-    private void updateEpicEndTime(Epic epic) {
-        List<Subtask> epicSubtasks = epic.getSubtaskIds()
-                .stream()
-                .map(subtasks::get)
-                .toList();
-
-        Duration epicDuration = epicSubtasks.stream()
-                .map(Task::getDuration)
-                .filter(Objects::nonNull)
-                .reduce(Duration.ZERO, Duration::plus);
-        if (!Duration.ZERO.equals(epicDuration)) {
-            epic.setDuration(epicDuration);
-        }
-
-        epic.setStartTime(epicSubtasks.stream()
-                .map(Task::getStartTime)
-                .filter(Objects::nonNull)
-                .min(LocalDateTime::compareTo)
-                .orElse(null));
-
-        epic.setEndTime(epicSubtasks.stream()
-                .map(Task::getStartTime)
-                .filter(Objects::nonNull)
-                .max(LocalDateTime::compareTo)
-                .orElse(null));
+        return prioritizedTasks.intersects(task);
     }
 }
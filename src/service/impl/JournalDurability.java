@@ -0,0 +1,56 @@
+package service.impl;
+
+/**
+ * Режим записи журнала {@link TaskJournal} на диск.
+ * <ul>
+ *     <li>{@link Mode#SYNC} - запись и fsync в потоке вызывающего на каждую операцию;</li>
+ *     <li>{@link Mode#GROUP_COMMIT} - запись в потоке вызывающего, один общий fsync в фоне на все накопившиеся
+ *     записи;</li>
+ *     <li>{@link Mode#WRITE_BEHIND} - запись и fsync в фоне, вызывающий ждёт, только если недописанных записей
+ *     больше {@code maxLag}.</li>
+ * </ul>
+ */
+public final class JournalDurability {
+
+    public enum Mode {
+        SYNC,
+
+        GROUP_COMMIT,
+
+        WRITE_BEHIND
+    }
+
+    private final Mode mode;
+
+    private final int maxLag;
+
+    private JournalDurability(Mode mode, int maxLag) {
+        this.mode = mode;
+        this.maxLag = maxLag;
+    }
+
+    public static JournalDurability sync() {
+        return new JournalDurability(Mode.SYNC, 0);
+    }
+
+    public static JournalDurability groupCommit() {
+        return new JournalDurability(Mode.GROUP_COMMIT, 0);
+    }
+
+    public static JournalDurability writeBehind(int maxLag) {
+        if (maxLag <= 0) {
+            throw new IllegalArgumentException("maxLag must be positive");
+        }
+
+        return new JournalDurability(Mode.WRITE_BEHIND, maxLag);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getMaxLag() {
+        return maxLag;
+    }
+
+}
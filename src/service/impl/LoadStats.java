@@ -0,0 +1,65 @@
+package service.impl;
+
+import java.time.Duration;
+
+/**
+ * Статистика загрузки снимка {@link FileBackedTaskManager}: формат, объём отображённых в память байт, количество
+ * прочитанных записей, время декодирования и время построения хранилищ и индексов.
+ */
+public final class LoadStats {
+
+    private final SnapshotFormat format;
+
+    private final long bytesMapped;
+
+    private final int tasksLoaded;
+
+    private final Duration decodeTime;
+
+    private final Duration buildTime;
+
+    public LoadStats(SnapshotFormat format, long bytesMapped, int tasksLoaded, Duration decodeTime,
+                     Duration buildTime) {
+        this.format = format;
+        this.bytesMapped = bytesMapped;
+        this.tasksLoaded = tasksLoaded;
+        this.decodeTime = decodeTime;
+        this.buildTime = buildTime;
+    }
+
+    public static LoadStats empty(SnapshotFormat format) {
+        return new LoadStats(format, 0L, 0, Duration.ZERO, Duration.ZERO);
+    }
+
+    public SnapshotFormat getFormat() {
+        return format;
+    }
+
+    public long getBytesMapped() {
+        return bytesMapped;
+    }
+
+    public int getTasksLoaded() {
+        return tasksLoaded;
+    }
+
+    public Duration getDecodeTime() {
+        return decodeTime;
+    }
+
+    public Duration getBuildTime() {
+        return buildTime;
+    }
+
+    @Override
+    public String toString() {
+        return "LoadStats{" +
+                "format=" + format +
+                ", bytesMapped=" + bytesMapped +
+                ", tasksLoaded=" + tasksLoaded +
+                ", decodeTime=" + decodeTime +
+                ", buildTime=" + buildTime +
+                '}';
+    }
+
+}
@@ -0,0 +1,65 @@
+package service.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+import exceptions.ManagerLoadException;
+
+/**
+ * Файл, читаемый через отображения {@link FileChannel#map} только для чтения. Одно отображение ограничено 2 ГБ,
+ * поэтому большие файлы отображаются окнами. Считает суммарный объём отображённых байт.
+ */
+public final class MappedFile implements AutoCloseable {
+
+    private final FileChannel channel;
+
+    private final long size;
+
+    private final AtomicLong bytesMapped = new AtomicLong();
+
+    private MappedFile(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+    }
+
+    public static MappedFile open(File file) {
+        try {
+            return new MappedFile(FileChannel.open(file.toPath(), StandardOpenOption.READ));
+        } catch (IOException e) {
+            throw new ManagerLoadException(e.getMessage());
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public MappedByteBuffer map(long from, long to) {
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+            bytesMapped.addAndGet(to - from);
+
+            return buffer;
+        } catch (IOException e) {
+            throw new ManagerLoadException(e.getMessage());
+        }
+    }
+
+    public long getBytesMapped() {
+        return bytesMapped.get();
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new ManagerLoadException(e.getMessage());
+        }
+    }
+
+}
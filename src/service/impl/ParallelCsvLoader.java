@@ -0,0 +1,143 @@
+package service.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import exceptions.ManagerLoadException;
+import model.Task;
+import model.TaskCsvReader;
+
+/**
+ * Параллельное чтение CSV-снимка задач.
+ * <p>
+ * Файл делится на куски примерно одинакового размера, границы которых сдвигаются к ближайшему концу строки.
+ * Перевод строки может встретиться внутри значения в кавычках, поэтому сначала параллельно считается количество
+ * кавычек в каждом куске: по чётности кавычек перед границей понятно, находится ли она внутри значения. Затем
+ * куски разбираются на общем fork-join пуле прямо из отображённого в память файла, результаты склеиваются в порядке
+ * следования в файле.
+ */
+public final class ParallelCsvLoader {
+
+    private static final long MIN_CHUNK_SIZE = 1024 * 1024;
+
+    private static final long MAX_CHUNK_SIZE = 64 * 1024 * 1024;
+
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private static final long SCAN_WINDOW_SIZE = 64 * 1024;
+
+    private ParallelCsvLoader() {
+    }
+
+    public static List<Task> read(File file) {
+        try (MappedFile mappedFile = MappedFile.open(file)) {
+            return read(mappedFile);
+        }
+    }
+
+    public static List<Task> read(MappedFile file) {
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        long chunkSize = Math.clamp(file.size() / ((long) parallelism * CHUNKS_PER_THREAD), MIN_CHUNK_SIZE,
+                MAX_CHUNK_SIZE);
+
+        return read(file, chunkSize);
+    }
+
+    static List<Task> read(File file, long chunkSize) {
+        try (MappedFile mappedFile = MappedFile.open(file)) {
+            return read(mappedFile, chunkSize);
+        }
+    }
+
+    private static List<Task> read(MappedFile file, long chunkSize) {
+        long fileSize = file.size();
+        int chunkCount = (int) Math.max(1, (fileSize + chunkSize - 1) / chunkSize);
+
+        long[] quotes = IntStream.range(0, chunkCount)
+                .parallel()
+                .mapToLong(chunk -> countQuotes(file, chunk * chunkSize,
+                        Math.min(fileSize, (chunk + 1) * chunkSize)))
+                .toArray();
+
+        // Начало каждого куска: первая строка, начинающаяся после его номинальной границы
+        long[] starts = new long[chunkCount + 1];
+        long quotesBefore = 0;
+        for (int chunk = 1; chunk < chunkCount; chunk++) {
+            quotesBefore += quotes[chunk - 1];
+            starts[chunk] = Math.max(starts[chunk - 1], nextRowStart(file, chunk * chunkSize,
+                    0 != quotesBefore % 2));
+        }
+        starts[chunkCount] = fileSize;
+
+        List<List<Task>> chunks = IntStream.range(0, chunkCount)
+                .parallel()
+                .mapToObj(chunk -> parse(file, starts[chunk], starts[chunk + 1], 0 == chunk))
+                .toList();
+
+        List<Task> tasks = new ArrayList<>(chunks.stream().mapToInt(List::size).sum());
+        chunks.forEach(tasks::addAll);
+
+        return tasks;
+    }
+
+    private static long countQuotes(MappedFile file, long from, long to) {
+        if (from >= to) {
+            return 0;
+        }
+
+        ByteBuffer bytes = file.map(from, to);
+        long count = 0;
+        for (int i = 0; i < bytes.limit(); i++) {
+            if ('"' == bytes.get(i)) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    // Позиция после первого перевода строки за пределами кавычек, начиная с from
+    private static long nextRowStart(MappedFile file, long from, boolean quoted) {
+        for (long position = from; position < file.size(); position += SCAN_WINDOW_SIZE) {
+            ByteBuffer bytes = file.map(position, Math.min(file.size(), position + SCAN_WINDOW_SIZE));
+
+            for (int i = 0; i < bytes.limit(); i++) {
+                byte b = bytes.get(i);
+                if ('"' == b) {
+                    quoted = !quoted;
+                } else if ('\n' == b && !quoted) {
+                    return position + i + 1;
+                }
+            }
+        }
+
+        return file.size();
+    }
+
+    private static List<Task> parse(MappedFile file, long from, long to, boolean hasHeader) {
+        List<Task> tasks = new ArrayList<>();
+        if (from >= to) {
+            return tasks;
+        }
+
+        try (TaskCsvReader csvReader = TaskCsvReader.of(file.map(from, to))) {
+            // Пропускаем заголовок
+            if (hasHeader && !csvReader.next()) {
+                return tasks;
+            }
+
+            while (csvReader.next()) {
+                tasks.add(csvReader.readTask(0));
+            }
+        } catch (IOException e) {
+            throw new ManagerLoadException(e.getMessage());
+        }
+
+        return tasks;
+    }
+
+}
@@ -0,0 +1,95 @@
+package service.impl;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Неизменяемый список различных id в порядке добавления.
+ * <p>
+ * Порядок хранится в {@link PersistentSortedMap} по номеру добавления, позиция id - в {@link PersistentLongMap}.
+ * Добавление, удаление и проверка наличия стоят O(log n) и разделяют узлы с прежней версией, поэтому каждую версию
+ * можно отдавать читателям без копирования.
+ */
+public final class PersistentIdList extends AbstractList<Long> {
+
+    private static final PersistentIdList EMPTY = new PersistentIdList(PersistentSortedMap.empty(),
+            PersistentLongMap.empty(), 0L);
+
+    // id по номеру добавления
+    private final PersistentSortedMap<Long, Long> ids;
+
+    // Номер добавления по id
+    private final PersistentLongMap<Long> positions;
+
+    private final long nextPosition;
+
+    private volatile List<Long> indexed;
+
+    private PersistentIdList(PersistentSortedMap<Long, Long> ids, PersistentLongMap<Long> positions,
+                             long nextPosition) {
+        this.ids = ids;
+        this.positions = positions;
+        this.nextPosition = nextPosition;
+    }
+
+    public static PersistentIdList empty() {
+        return EMPTY;
+    }
+
+    public static PersistentIdList copyOf(Iterable<Long> ids) {
+        PersistentIdList list = EMPTY;
+        for (long id : ids) {
+            list = list.with(id);
+        }
+
+        return list;
+    }
+
+    // Уже добавленный id остаётся на своём месте
+    public PersistentIdList with(long id) {
+        if (positions.containsKey(id)) {
+            return this;
+        }
+
+        return new PersistentIdList(ids.put(nextPosition, id), positions.put(id, nextPosition), nextPosition + 1);
+    }
+
+    public PersistentIdList without(long id) {
+        Long position = positions.get(id);
+        if (null == position) {
+            return this;
+        }
+
+        return new PersistentIdList(ids.remove(position), positions.remove(id), nextPosition);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Long id && positions.containsKey(id);
+    }
+
+    @Override
+    public int size() {
+        return positions.size();
+    }
+
+    @Override
+    public Iterator<Long> iterator() {
+        return ids.iterator();
+    }
+
+    // Массив для доступа по индексу строится при первом обращении, как в представлениях TaskSnapshot
+    @Override
+    public Long get(int index) {
+        if (null == indexed) {
+            List<Long> values = new ArrayList<>(size());
+            ids.forEach(values::add);
+            indexed = values;
+        }
+
+        return indexed.get(index);
+    }
+
+}
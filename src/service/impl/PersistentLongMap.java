@@ -0,0 +1,259 @@
+package service.impl;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Неизменяемое отображение с ключами {@code long} на основе префиксного дерева хешей (HAMT).
+ * <p>
+ * Каждый уровень берёт очередные 5 бит ключа и хранит только занятые ветви: битовую маску и плотный массив. Изменение
+ * копирует лишь путь от корня до листа (не больше 13 узлов), остальные узлы разделяются со старой версией.
+ */
+public final class PersistentLongMap<V> implements Iterable<V> {
+
+    private static final int BITS = 5;
+
+    private static final int MASK = (1 << BITS) - 1;
+
+    private static final int MAX_DEPTH = (Long.SIZE + BITS - 1) / BITS;
+
+    private static final PersistentLongMap<?> EMPTY = new PersistentLongMap<>(new Node(0, new Object[0]), 0);
+
+    private final Node root;
+
+    private final int size;
+
+    private PersistentLongMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <V> PersistentLongMap<V> empty() {
+        return (PersistentLongMap<V>) EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return 0 == size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        Node node = root;
+        for (int shift = 0; ; shift += BITS) {
+            int bit = bit(key, shift);
+            if (0 == (node.bitmap & bit)) {
+                return null;
+            }
+
+            Object entry = node.entries[node.index(bit)];
+            if (entry instanceof Leaf leaf) {
+                return key == leaf.key ? (V) leaf.value : null;
+            }
+
+            node = (Node) entry;
+        }
+    }
+
+    public boolean containsKey(long key) {
+        return null != get(key);
+    }
+
+    public PersistentLongMap<V> put(long key, V value) {
+        if (null == value) {
+            throw new IllegalArgumentException("Null values are not supported");
+        }
+
+        V oldValue = get(key);
+        if (value == oldValue) {
+            return this;
+        }
+
+        return new PersistentLongMap<>(put(root, new Leaf(key, value), 0), null == oldValue ? size + 1 : size);
+    }
+
+    public PersistentLongMap<V> remove(long key) {
+        if (!containsKey(key)) {
+            return this;
+        }
+
+        Node newRoot = remove(root, key, 0);
+
+        return new PersistentLongMap<>(null != newRoot ? newRoot : empty().root, size - 1);
+    }
+
+    @Override
+    public Iterator<V> iterator() {
+        return new ValueIterator<>(root);
+    }
+
+    private static Node put(Node node, Leaf leaf, int shift) {
+        int bit = bit(leaf.key, shift);
+        int index = node.index(bit);
+
+        if (0 == (node.bitmap & bit)) {
+            return node.insert(bit, index, leaf);
+        }
+
+        Object entry = node.entries[index];
+        if (entry instanceof Leaf existing) {
+            if (existing.key == leaf.key) {
+                return node.replace(index, leaf);
+            }
+
+            return node.replace(index, merge(existing, leaf, shift + BITS));
+        }
+
+        return node.replace(index, put((Node) entry, leaf, shift + BITS));
+    }
+
+    // Узел с двумя листьями, ключи которых совпадают в младших битах до shift
+    private static Node merge(Leaf first, Leaf second, int shift) {
+        int firstBit = bit(first.key, shift);
+        int secondBit = bit(second.key, shift);
+
+        if (firstBit == secondBit) {
+            return new Node(firstBit, new Object[]{merge(first, second, shift + BITS)});
+        }
+
+        return new Node(firstBit | secondBit, Integer.compareUnsigned(firstBit, secondBit) < 0
+                ? new Object[]{first, second}
+                : new Object[]{second, first});
+    }
+
+    // Возвращает null, если узел опустел
+    private static Node remove(Node node, long key, int shift) {
+        int bit = bit(key, shift);
+        int index = node.index(bit);
+        Object entry = node.entries[index];
+
+        if (entry instanceof Node child) {
+            Node newChild = remove(child, key, shift + BITS);
+            if (null != newChild) {
+                // Единственный лист поднимается выше, чтобы не оставлять цепочки узлов
+                boolean singleLeaf = 1 == newChild.entries.length && newChild.entries[0] instanceof Leaf;
+
+                return node.replace(index, singleLeaf ? newChild.entries[0] : newChild);
+            }
+        }
+
+        if (1 == node.entries.length) {
+            return null;
+        }
+
+        return node.delete(bit, index);
+    }
+
+    private static int bit(long key, int shift) {
+        return 1 << ((int) (key >>> shift) & MASK);
+    }
+
+    private record Leaf(long key, Object value) {
+    }
+
+    private static final class Node {
+
+        private final int bitmap;
+
+        private final Object[] entries;
+
+        private Node(int bitmap, Object[] entries) {
+            this.bitmap = bitmap;
+            this.entries = entries;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        private Node insert(int bit, int index, Object entry) {
+            Object[] newEntries = new Object[entries.length + 1];
+            System.arraycopy(entries, 0, newEntries, 0, index);
+            newEntries[index] = entry;
+            System.arraycopy(entries, index, newEntries, index + 1, entries.length - index);
+
+            return new Node(bitmap | bit, newEntries);
+        }
+
+        private Node replace(int index, Object entry) {
+            Object[] newEntries = Arrays.copyOf(entries, entries.length);
+            newEntries[index] = entry;
+
+            return new Node(bitmap, newEntries);
+        }
+
+        private Node delete(int bit, int index) {
+            Object[] newEntries = new Object[entries.length - 1];
+            System.arraycopy(entries, 0, newEntries, 0, index);
+            System.arraycopy(entries, index + 1, newEntries, index, entries.length - index - 1);
+
+            return new Node(bitmap & ~bit, newEntries);
+        }
+
+    }
+
+    private static final class ValueIterator<V> implements Iterator<V> {
+
+        private final Node[] nodes = new Node[MAX_DEPTH + 1];
+
+        private final int[] positions = new int[MAX_DEPTH + 1];
+
+        private int depth;
+
+        private Leaf next;
+
+        private ValueIterator(Node root) {
+            nodes[0] = root;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return null != next;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (null == next) {
+                throw new NoSuchElementException();
+            }
+
+            V value = (V) next.value;
+            advance();
+
+            return value;
+        }
+
+        private void advance() {
+            next = null;
+
+            while (depth >= 0) {
+                Node node = nodes[depth];
+                if (positions[depth] == node.entries.length) {
+                    depth--;
+
+                    continue;
+                }
+
+                Object entry = node.entries[positions[depth]++];
+                if (entry instanceof Leaf leaf) {
+                    next = leaf;
+
+                    return;
+                }
+
+                depth++;
+                nodes[depth] = (Node) entry;
+                positions[depth] = 0;
+            }
+        }
+
+    }
+
+}
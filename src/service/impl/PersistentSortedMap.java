@@ -0,0 +1,283 @@
+package service.impl;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+/**
+ * Неизменяемое упорядоченное отображение на основе AVL-дерева с копированием пути: изменение создаёт O(log n) новых
+ * узлов, остальное дерево разделяется со старой версией.
+ */
+public final class PersistentSortedMap<K extends Comparable<? super K>, V> implements Iterable<V> {
+
+    private static final PersistentSortedMap<?, ?> EMPTY = new PersistentSortedMap<>(null, 0);
+
+    private final Node<K, V> root;
+
+    private final int size;
+
+    private PersistentSortedMap(Node<K, V> root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K extends Comparable<? super K>, V> PersistentSortedMap<K, V> empty() {
+        return (PersistentSortedMap<K, V>) EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return 0 == size;
+    }
+
+    public V get(K key) {
+        Node<K, V> node = root;
+        while (null != node) {
+            int compare = key.compareTo(node.key);
+            if (0 == compare) {
+                return node.value;
+            }
+
+            node = compare < 0 ? node.left : node.right;
+        }
+
+        return null;
+    }
+
+    public PersistentSortedMap<K, V> put(K key, V value) {
+        V oldValue = get(key);
+        if (null != oldValue && value == oldValue) {
+            return this;
+        }
+
+        return new PersistentSortedMap<>(put(root, key, value), null == oldValue ? size + 1 : size);
+    }
+
+    public PersistentSortedMap<K, V> remove(K key) {
+        if (null == get(key)) {
+            return this;
+        }
+
+        return new PersistentSortedMap<>(remove(root, key), size - 1);
+    }
+
+    // Новое отображение только из значений, подходящих под условие; строится за O(n) из упорядоченного обхода
+    public PersistentSortedMap<K, V> filter(Predicate<V> predicate) {
+        Object[] keys = new Object[size];
+        Object[] values = new Object[size];
+        int count = 0;
+
+        for (Iterator<Node<K, V>> iterator = new NodeIterator<>(root); iterator.hasNext(); ) {
+            Node<K, V> node = iterator.next();
+            if (predicate.test(node.value)) {
+                keys[count] = node.key;
+                values[count] = node.value;
+                count++;
+            }
+        }
+
+        return count == size ? this : new PersistentSortedMap<K, V>(build(keys, values, 0, count), count);
+    }
+
+    @Override
+    public Iterator<V> iterator() {
+        return values(new NodeIterator<>(root));
+    }
+
+    private static <K extends Comparable<? super K>, V> Iterator<V> values(NodeIterator<K, V> nodes) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return nodes.hasNext();
+            }
+
+            @Override
+            public V next() {
+                return nodes.next().value;
+            }
+        };
+    }
+
+    // Значения с ключами не меньше from (больше, если граница не включается) по возрастанию ключа
+    public Iterator<V> iteratorFrom(K from, boolean inclusive) {
+        return values(new NodeIterator<>(root, from, inclusive, false));
+    }
+
+    // Значения с ключами не больше to (меньше, если граница не включается) по убыванию ключа
+    public Iterator<V> descendingIteratorTo(K to, boolean inclusive) {
+        return values(new NodeIterator<>(root, to, inclusive, true));
+    }
+
+    private static <K extends Comparable<? super K>, V> Node<K, V> put(Node<K, V> node, K key, V value) {
+        if (null == node) {
+            return new Node<>(key, value, null, null);
+        }
+
+        int compare = key.compareTo(node.key);
+        if (0 == compare) {
+            return new Node<>(key, value, node.left, node.right);
+        }
+
+        return compare < 0
+                ? balance(node.key, node.value, put(node.left, key, value), node.right)
+                : balance(node.key, node.value, node.left, put(node.right, key, value));
+    }
+
+    private static <K extends Comparable<? super K>, V> Node<K, V> remove(Node<K, V> node, K key) {
+        int compare = key.compareTo(node.key);
+        if (compare < 0) {
+            return balance(node.key, node.value, remove(node.left, key), node.right);
+        }
+
+        if (compare > 0) {
+            return balance(node.key, node.value, node.left, remove(node.right, key));
+        }
+
+        if (null == node.left) {
+            return node.right;
+        }
+
+        if (null == node.right) {
+            return node.left;
+        }
+
+        Node<K, V> successor = node.right;
+        while (null != successor.left) {
+            successor = successor.left;
+        }
+
+        return balance(successor.key, successor.value, node.left, remove(node.right, successor.key));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> Node<K, V> build(Object[] keys, Object[] values, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+
+        int middle = (from + to) >>> 1;
+
+        return new Node<>((K) keys[middle], (V) values[middle], build(keys, values, from, middle),
+                build(keys, values, middle + 1, to));
+    }
+
+    private static <K, V> Node<K, V> balance(K key, V value, Node<K, V> left, Node<K, V> right) {
+        int difference = height(left) - height(right);
+
+        if (difference > 1) {
+            if (height(left.left) < height(left.right)) {
+                left = rotateLeft(left.key, left.value, left.left, left.right);
+            }
+
+            return rotateRight(key, value, left, right);
+        }
+
+        if (difference < -1) {
+            if (height(right.right) < height(right.left)) {
+                right = rotateRight(right.key, right.value, right.left, right.right);
+            }
+
+            return rotateLeft(key, value, left, right);
+        }
+
+        return new Node<>(key, value, left, right);
+    }
+
+    private static <K, V> Node<K, V> rotateRight(K key, V value, Node<K, V> left, Node<K, V> right) {
+        return new Node<>(left.key, left.value, left.left, new Node<>(key, value, left.right, right));
+    }
+
+    private static <K, V> Node<K, V> rotateLeft(K key, V value, Node<K, V> left, Node<K, V> right) {
+        return new Node<>(right.key, right.value, new Node<>(key, value, left, right.left), right.right);
+    }
+
+    private static int height(Node<?, ?> node) {
+        return null != node ? node.height : 0;
+    }
+
+    private static final class Node<K, V> {
+
+        private final K key;
+
+        private final V value;
+
+        private final Node<K, V> left;
+
+        private final Node<K, V> right;
+
+        private final int height;
+
+        private Node(K key, V value, Node<K, V> left, Node<K, V> right) {
+            this.key = key;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+        }
+
+    }
+
+    // Обход по возрастанию или убыванию ключа со стеком пути к следующему узлу
+    private static final class NodeIterator<K extends Comparable<? super K>, V> implements Iterator<Node<K, V>> {
+
+        private final Node<?, ?>[] stack = new Node<?, ?>[64];
+
+        private final boolean descending;
+
+        private int depth;
+
+        private NodeIterator(Node<K, V> root) {
+            this.descending = false;
+            pushPath(root);
+        }
+
+        // Стек заполняется узлами от корня до первого подходящего под границу, за O(log n)
+        private NodeIterator(Node<K, V> root, K bound, boolean inclusive, boolean descending) {
+            this.descending = descending;
+
+            Node<K, V> node = root;
+            while (null != node) {
+                int compare = node.key.compareTo(bound);
+                boolean fits = 0 == compare ? inclusive : descending == compare < 0;
+                if (fits) {
+                    stack[depth++] = node;
+                    node = descending ? node.right : node.left;
+                } else {
+                    node = descending ? node.left : node.right;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return depth > 0;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Node<K, V> next() {
+            if (0 == depth) {
+                throw new NoSuchElementException();
+            }
+
+            Node<K, V> node = (Node<K, V>) stack[--depth];
+            pushPath(descending ? node.left : node.right);
+
+            return node;
+        }
+
+        // Крайний путь поддерева в сторону обхода: левый по возрастанию, правый по убыванию
+        private void pushPath(Node<K, V> node) {
+            while (null != node) {
+                stack[depth++] = node;
+                node = descending ? node.right : node.left;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,153 @@
+package service.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.LongFunction;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import model.Subtask;
+import model.Task;
+import model.TaskType;
+import service.QueryIndex;
+import service.QueryPlan;
+import service.TaskQuery;
+
+/**
+ * Выбор индекса для {@link TaskQuery}.
+ * <p>
+ * Менеджер предлагает пути доступа, которые у него есть для условий запроса, с оценкой числа задач на каждом пути.
+ * Выбирается путь с наименьшей оценкой, а остальные условия проверяются для каждой задачи из него. Источник пути
+ * читается лениво, поэтому ограничение выдачи останавливает обход.
+ */
+final class QueryPlanner {
+
+    private QueryPlanner() {
+    }
+
+    // Путь доступа: индекс, оценка числа задач и ленивый источник задач
+    record AccessPath(QueryIndex index, long estimatedRows, Supplier<Iterable<Task>> source) {
+    }
+
+    static AccessPath choose(List<AccessPath> paths) {
+        AccessPath best = null;
+        for (AccessPath path : paths) {
+            if (null == best || path.estimatedRows() < best.estimatedRows()) {
+                best = path;
+            }
+        }
+
+        return best;
+    }
+
+    static QueryPlan plan(TaskQuery query, AccessPath path) {
+        List<String> filters = new ArrayList<>();
+        if (!query.getTypes().containsAll(List.of(TaskType.values()))) {
+            filters.add("type");
+        }
+
+        addFilter(filters, null != query.getStatus() && QueryIndex.STATUS != path.index(), "status");
+        addFilter(filters, null != query.getEpicId() && QueryIndex.EPIC != path.index(), "epic");
+        addFilter(filters, null != query.getFrom() && QueryIndex.TIME != path.index(), "time");
+        addFilter(filters, null != query.getText() && QueryIndex.TEXT != path.index(), "text");
+
+        return new QueryPlan(path.index(), path.estimatedRows(), filters);
+    }
+
+    static Stream<Task> execute(TaskQuery query, AccessPath path) {
+        // Источник запрашивается только при обходе потока
+        Stream<Task> tasks = StreamSupport.stream(() -> path.source().get().spliterator(), Spliterator.ORDERED, false)
+                .filter(filter(query));
+
+        return null != query.getLimit() ? tasks.limit(query.getLimit()) : tasks;
+    }
+
+    // Все условия запроса; условие выбранного индекса проверяется повторно, это дешевле, чем различать пути
+    static Predicate<Task> filter(TaskQuery query) {
+        Predicate<Task> filter = task -> null != task && query.getTypes().contains(task.getType());
+
+        if (null != query.getStatus()) {
+            filter = filter.and(task -> query.getStatus() == task.getStatus());
+        }
+
+        if (null != query.getEpicId()) {
+            filter = filter.and(task -> task instanceof Subtask subtask
+                                        && query.getEpicId().equals(subtask.getEpicId()));
+        }
+
+        if (null != query.getFrom()) {
+            filter = filter.and(task -> TaskIntervalIndex.isScheduled(task)
+                                        && !task.getStartTime().isBefore(query.getFrom())
+                                        && task.getStartTime().isBefore(query.getTo()));
+        }
+
+        if (null != query.getText()) {
+            List<String> tokens = TextIndex.tokenize(query.getText());
+            filter = filter.and(task -> TextIndex.score(task, tokens) > 0);
+        }
+
+        return filter;
+    }
+
+    // Запланированы только задачи и подзадачи
+    static boolean schedulable(TaskQuery query) {
+        return query.getTypes().contains(TaskType.TASK) || query.getTypes().contains(TaskType.SUBTASK);
+    }
+
+    // Последовательный обход нескольких источников без копирования
+    static Iterable<Task> concat(List<Iterable<Task>> parts) {
+        return () -> new Iterator<>() {
+            private int part;
+
+            private Iterator<Task> current = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && part < parts.size()) {
+                    current = parts.get(part++).iterator();
+                }
+
+                return current.hasNext();
+            }
+
+            @Override
+            public Task next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                return current.next();
+            }
+        };
+    }
+
+    // Задачи по id; id без задачи пропускаются фильтром запроса
+    static Iterable<Task> lookup(Iterable<Long> ids, LongFunction<? extends Task> resolver) {
+        return () -> new Iterator<>() {
+            private final Iterator<Long> iterator = ids.iterator();
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Task next() {
+                return resolver.apply(iterator.next());
+            }
+        };
+    }
+
+    private static void addFilter(List<String> filters, boolean present, String name) {
+        if (present) {
+            filters.add(name);
+        }
+    }
+
+}
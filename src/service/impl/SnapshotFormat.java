@@ -0,0 +1,7 @@
+package service.impl;
+
+public enum SnapshotFormat {
+    CSV,
+
+    BINARY
+}
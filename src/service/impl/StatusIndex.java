@@ -0,0 +1,92 @@
+package service.impl;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+import model.Task;
+import model.TaskStatus;
+import model.TaskType;
+import util.LongLinkedSet;
+
+/**
+ * Вторичный индекс задач по статусу: для каждого типа и статуса - множество id. Добавление, перенос в другой статус,
+ * удаление и подсчёт - O(1), выборка по статусу обходит только задачи этого статуса.
+ * <p>
+ * Индекс не полагается на статус сохранённой задачи: задачу могут изменить на месте, поэтому прежний статус
+ * определяется по тому, в каком множестве лежит id.
+ */
+public class StatusIndex {
+
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private final Map<TaskType, LongLinkedSet[]> idsByType = new EnumMap<>(TaskType.class);
+
+    public StatusIndex() {
+        for (TaskType type : TaskType.values()) {
+            LongLinkedSet[] idsByStatus = new LongLinkedSet[STATUSES.length];
+            for (int i = 0; i < idsByStatus.length; i++) {
+                idsByStatus[i] = new LongLinkedSet();
+            }
+
+            idsByType.put(type, idsByStatus);
+        }
+    }
+
+    // Добавляет задачу или переносит её в текущий статус
+    public void put(Task task) {
+        LongLinkedSet[] idsByStatus = idsByType.get(task.getType());
+        long id = task.getId();
+        if (idsByStatus[task.getStatus().ordinal()].contains(id)) {
+            return;
+        }
+
+        remove(idsByStatus, id);
+        idsByStatus[task.getStatus().ordinal()].add(id);
+    }
+
+    public void remove(Task task) {
+        if (null != task) {
+            remove(idsByType.get(task.getType()), task.getId());
+        }
+    }
+
+    public void clear(TaskType type) {
+        for (LongLinkedSet ids : idsByType.get(type)) {
+            ids.clear();
+        }
+    }
+
+    public int count(TaskType type, TaskStatus status) {
+        return idsByType.get(type)[status.ordinal()].size();
+    }
+
+    public Map<TaskStatus, Integer> counts(TaskType type) {
+        Map<TaskStatus, Integer> counts = new EnumMap<>(TaskStatus.class);
+        for (TaskStatus status : STATUSES) {
+            counts.put(status, count(type, status));
+        }
+
+        return counts;
+    }
+
+    // Обход id задач в статусе в порядке попадания в этот статус
+    public void forEach(TaskType type, TaskStatus status, LongConsumer action) {
+        idsByType.get(type)[status.ordinal()].forEach(action);
+    }
+
+    // Представление id задач в статусе без копирования
+    public List<Long> ids(TaskType type, TaskStatus status) {
+        return idsByType.get(type)[status.ordinal()].asList();
+    }
+
+    private static void remove(LongLinkedSet[] idsByStatus, long id) {
+        for (LongLinkedSet ids : idsByStatus) {
+            if (ids.remove(id)) {
+                return;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,400 @@
+package service.impl;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import model.Task;
+import model.TaskType;
+
+/**
+ * Индекс запланированных задач по времени начала.
+ * <p>
+ * Менеджер не допускает пересечений, поэтому интервалы в индексе не пересекаются и упорядочены одновременно по
+ * началу и по окончанию. Это позволяет проверять пересечение за O(log n): достаточно взять последнюю задачу,
+ * начинающуюся не позже окончания проверяемой, и сравнить её окончание с началом проверяемой.
+ * <p>
+ * Задачи каждого типа лежат в отдельном дереве, поэтому удаление всех задач одного типа не трогает остальные, а общий
+ * порядок собирается слиянием упорядоченных обходов деревьев.
+ */
+public class TaskIntervalIndex {
+
+    private final Map<TaskType, NavigableMap<LocalDateTime, Task>> tasksByType = new EnumMap<>(TaskType.class);
+
+    public TaskIntervalIndex() {
+        this(TreeMap::new);
+    }
+
+    private TaskIntervalIndex(Supplier<NavigableMap<LocalDateTime, Task>> mapFactory) {
+        for (TaskType type : TaskType.values()) {
+            tasksByType.put(type, mapFactory.get());
+        }
+    }
+
+    // Индекс для чтения без блокировок; изменения и проверки пересечений должны выполняться под общей блокировкой
+    public static TaskIntervalIndex concurrent() {
+        return new TaskIntervalIndex(ConcurrentSkipListMap::new);
+    }
+
+    public static boolean isScheduled(Task task) {
+        return null != task && null != task.getStartTime() && null != task.getDuration();
+    }
+
+    public void add(Task task) {
+        if (isScheduled(task)) {
+            tasksByType.get(task.getType()).put(task.getStartTime(), task);
+        }
+    }
+
+    public void addAll(Collection<? extends Task> tasks) {
+        Task[] scheduled = tasks.stream()
+                .filter(TaskIntervalIndex::isScheduled)
+                .toArray(Task[]::new);
+
+        // Вставка по возрастанию ключа дешевле вставки в случайном порядке
+        Arrays.parallelSort(scheduled, Comparator.comparing(Task::getStartTime));
+        for (Task task : scheduled) {
+            tasksByType.get(task.getType()).put(task.getStartTime(), task);
+        }
+    }
+
+    public void remove(Task task) {
+        if (isScheduled(task)) {
+            tasksByType.get(task.getType()).remove(task.getStartTime(), task);
+        }
+    }
+
+    public void removeAll(Collection<? extends Task> tasks) {
+        for (Task task : tasks) {
+            remove(task);
+        }
+    }
+
+    public void replace(Task oldTask, Task newTask) {
+        remove(oldTask);
+        add(newTask);
+    }
+
+    public boolean intersects(Task task) {
+        return intersects(task, null);
+    }
+
+    public boolean intersects(Task task, Long ignoredId) {
+        if (!isScheduled(task)) {
+            return false;
+        }
+
+        for (NavigableMap<LocalDateTime, Task> tasksByStartTime : tasksByType.values()) {
+            if (intersects(tasksByStartTime, task, ignoredId)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean intersects(NavigableMap<LocalDateTime, Task> tasksByStartTime, Task task, Long ignoredId) {
+        Map.Entry<LocalDateTime, Task> entry = tasksByStartTime.floorEntry(task.getEndTime());
+        while (null != entry) {
+            Task other = entry.getValue();
+            if (null == ignoredId || !Objects.equals(ignoredId, other.getId())) {
+                return task.intersectsWithTask(other);
+            }
+
+            entry = tasksByStartTime.lowerEntry(entry.getKey());
+        }
+
+        return false;
+    }
+
+    // Затрагивает только дерево этого типа
+    public void removeByType(TaskType taskType) {
+        tasksByType.get(taskType).clear();
+    }
+
+    public void clear() {
+        tasksByType.values().forEach(Map::clear);
+    }
+
+    public int size() {
+        int size = 0;
+        for (NavigableMap<LocalDateTime, Task> tasksByStartTime : tasksByType.values()) {
+            size += tasksByStartTime.size();
+        }
+
+        return size;
+    }
+
+    // Задачи всех типов по возрастанию времени начала; представление без копирования
+    public Collection<Task> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Task> iterator() {
+                return merged(tasksByStartTime -> tasksByStartTime.values().iterator(), false);
+            }
+
+            @Override
+            public int size() {
+                return TaskIntervalIndex.this.size();
+            }
+        };
+    }
+
+    public Collection<Task> values(TaskType type) {
+        return Collections.unmodifiableCollection(tasksByType.get(type).values());
+    }
+
+    // Задачи типа, начинающиеся не раньше указанного времени, по возрастанию времени начала
+    public Collection<Task> valuesFrom(TaskType type, LocalDateTime startTime) {
+        return Collections.unmodifiableCollection(tasksByType.get(type).tailMap(startTime, true).values());
+    }
+
+    // Задачи, начинающиеся в [from, to), по возрастанию времени начала; O(log n + k)
+    public List<Task> between(LocalDateTime from, LocalDateTime to) {
+        checkRange(from, to);
+
+        return collect(merged(tasksByStartTime -> tasksByStartTime.tailMap(from, true).values().iterator(), false),
+                to, Integer.MAX_VALUE);
+    }
+
+    // Ленивое представление задач, начинающихся в [from, to), по возрастанию времени начала
+    public Iterable<Task> valuesBetween(LocalDateTime from, LocalDateTime to) {
+        checkRange(from, to);
+
+        return () -> merged(tasksByStartTime -> tasksByStartTime.subMap(from, true, to, false).values().iterator(),
+                false);
+    }
+
+    // Число задач, начинающихся в [from, to), но не больше cap: обход останавливается на cap задачах
+    public long countBetween(LocalDateTime from, LocalDateTime to, long cap) {
+        checkRange(from, to);
+
+        long count = 0;
+        for (Iterator<Task> iterator = valuesBetween(from, to).iterator(); count < cap && iterator.hasNext(); ) {
+            iterator.next();
+            count++;
+        }
+
+        return count;
+    }
+
+    // Не больше limit задач, начинающихся строго после указанного времени, по возрастанию времени начала
+    public List<Task> nextAfter(LocalDateTime instant, int limit) {
+        checkLimit(instant, limit);
+
+        return collect(merged(tasksByStartTime -> tasksByStartTime.tailMap(instant, false).values().iterator(), false),
+                null, limit);
+    }
+
+    // Не больше limit задач, начинающихся строго раньше указанного времени, от поздних к ранним
+    public List<Task> lastBefore(LocalDateTime instant, int limit) {
+        checkLimit(instant, limit);
+
+        return collect(merged(tasksByStartTime -> tasksByStartTime.headMap(instant, false).descendingMap().values()
+                .iterator(), true), null, limit);
+    }
+
+    // Самые ранние начала в первых limit промежутках, куда помещается задача длительностью duration; O(log n + k)
+    public List<LocalDateTime> freeSlots(Duration duration, LocalDateTime notBefore, LocalDateTime notAfter,
+                                         int limit) {
+        checkSlotQuery(duration, notBefore, notAfter, limit);
+
+        LocalDateTime start = slotStartFrom(notBefore);
+        Task previous = null;
+        for (NavigableMap<LocalDateTime, Task> tasksByStartTime : tasksByType.values()) {
+            Map.Entry<LocalDateTime, Task> entry = tasksByStartTime.floorEntry(start);
+            if (null != entry && (null == previous || entry.getKey().isAfter(previous.getStartTime()))) {
+                previous = entry.getValue();
+            }
+        }
+
+        return freeSlots(previous, merged(tasksByStartTime -> tasksByStartTime.tailMap(start, false).values()
+                .iterator(), false), start, duration, notAfter, limit);
+    }
+
+    private Iterator<Task> merged(Function<NavigableMap<LocalDateTime, Task>, Iterator<Task>> source,
+                                  boolean descending) {
+        List<Iterator<Task>> iterators = new ArrayList<>(tasksByType.size());
+        for (NavigableMap<LocalDateTime, Task> tasksByStartTime : tasksByType.values()) {
+            if (!tasksByStartTime.isEmpty()) {
+                iterators.add(source.apply(tasksByStartTime));
+            }
+        }
+
+        return iterators.isEmpty() ? Collections.emptyIterator() : merge(iterators, descending);
+    }
+
+    // Слияние обходов, каждый из которых упорядочен по времени начала; один обход возвращается как есть
+    static Iterator<Task> merge(List<Iterator<Task>> iterators, boolean descending) {
+        return 1 == iterators.size() ? iterators.getFirst() : new MergingIterator(iterators, descending);
+    }
+
+    static void checkRange(LocalDateTime from, LocalDateTime to) {
+        if (null == from || null == to || to.isBefore(from)) {
+            throw new IllegalArgumentException("Invalid time range: [" + from + ", " + to + ")");
+        }
+    }
+
+    static void checkLimit(LocalDateTime instant, int limit) {
+        if (null == instant) {
+            throw new IllegalArgumentException("instant must not be null");
+        }
+
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+    }
+
+    static void checkSlotQuery(Duration duration, LocalDateTime notBefore, LocalDateTime notAfter, int limit) {
+        if (null == duration || duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("duration must be positive");
+        }
+
+        checkRange(notBefore, notAfter);
+        checkLimit(notBefore, limit);
+    }
+
+    // Первая минута не раньше указанного времени: слоты выравниваются по минутам, как и длительности задач
+    static LocalDateTime slotStartFrom(LocalDateTime time) {
+        LocalDateTime minute = time.truncatedTo(ChronoUnit.MINUTES);
+
+        return minute.equals(time) ? time : minute.plusMinutes(1);
+    }
+
+    /*
+     * Обход промежутков между задачами: previous - последняя задача, начавшаяся не позже start, following - задачи
+     * после start по возрастанию времени начала. Интервалы задач замкнуты, поэтому слот начинается не раньше
+     * следующей минуты после окончания предыдущей задачи и должен закончиться строго до начала следующей.
+     */
+    static List<LocalDateTime> freeSlots(Task previous, Iterator<Task> following, LocalDateTime start,
+                                         Duration duration, LocalDateTime notAfter, int limit) {
+        List<LocalDateTime> slots = new ArrayList<>();
+        LocalDateTime candidate = start;
+        if (null != previous && !previous.getEndTime().isBefore(candidate)) {
+            candidate = slotStartAfter(previous.getEndTime());
+        }
+
+        while (slots.size() < limit) {
+            LocalDateTime end = candidate.plus(duration);
+            if (end.isAfter(notAfter)) {
+                break;
+            }
+
+            if (!following.hasNext()) {
+                // После последней задачи один неограниченный промежуток
+                slots.add(candidate);
+                break;
+            }
+
+            Task next = following.next();
+            if (end.isBefore(next.getStartTime())) {
+                slots.add(candidate);
+            }
+
+            LocalDateTime afterNext = slotStartAfter(next.getEndTime());
+            if (afterNext.isAfter(candidate)) {
+                candidate = afterNext;
+            }
+        }
+
+        return Collections.unmodifiableList(slots);
+    }
+
+    private static LocalDateTime slotStartAfter(LocalDateTime time) {
+        return time.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+    }
+
+    // Первые limit задач обхода, начинающиеся раньше to (null - без ограничения)
+    static List<Task> collect(Iterator<Task> tasks, LocalDateTime to, int limit) {
+        List<Task> result = new ArrayList<>();
+        while (result.size() < limit && tasks.hasNext()) {
+            Task task = tasks.next();
+            if (null != to && !task.getStartTime().isBefore(to)) {
+                break;
+            }
+
+            result.add(task);
+        }
+
+        return Collections.unmodifiableList(result);
+    }
+
+    private static final class MergingIterator implements Iterator<Task> {
+
+        private final List<Iterator<Task>> iterators;
+
+        // Очередной элемент каждого обхода или null, если обход закончился
+        private final Task[] heads;
+
+        private final boolean descending;
+
+        private MergingIterator(List<Iterator<Task>> iterators, boolean descending) {
+            this.iterators = iterators;
+            this.heads = new Task[iterators.size()];
+            this.descending = descending;
+
+            for (int i = 0; i < heads.length; i++) {
+                advance(i);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            for (Task head : heads) {
+                if (null != head) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        @Override
+        public Task next() {
+            int best = -1;
+            for (int i = 0; i < heads.length; i++) {
+                if (null != heads[i] && (best < 0 || precedes(heads[i], heads[best]))) {
+                    best = i;
+                }
+            }
+
+            if (best < 0) {
+                throw new NoSuchElementException();
+            }
+
+            Task task = heads[best];
+            advance(best);
+
+            return task;
+        }
+
+        private boolean precedes(Task task, Task other) {
+            int compare = task.getStartTime().compareTo(other.getStartTime());
+
+            return descending ? compare > 0 : compare < 0;
+        }
+
+        private void advance(int i) {
+            heads[i] = iterators.get(i).hasNext() ? iterators.get(i).next() : null;
+        }
+
+    }
+
+}
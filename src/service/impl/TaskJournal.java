@@ -0,0 +1,437 @@
+package service.impl;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+
+import exceptions.ManagerLoadException;
+import exceptions.ManagerSaveException;
+import model.Task;
+import model.TaskCsvReader;
+import model.TaskType;
+
+/**
+ * Журнал изменений: каждая операция дописывается в конец файла одной CSV-строкой вида {@code OPERATION,данные}.
+ * Стоимость записи зависит только от размера изменения, а не от количества задач.
+ * <p>
+ * Перед сжатием журнал переименовывается в {@code <файл>.compacting}: новые записи идут в свежий файл, а
+ * переименованная часть удаляется после записи снимка. Пока она не удалена, новая ротация невозможна - сначала
+ * сжатие этой части нужно довести до конца. Если процесс упал раньше, при загрузке сначала воспроизводится
+ * {@code .compacting}, затем основной файл. Повторное воспроизведение записей поверх снимка, который
+ * их уже содержит, приводит к тому же состоянию.
+ * <p>
+ * Каждой записи присваивается порядковый номер; {@link #awaitDurable(long)} ждёт, пока запись с этим номером не
+ * окажется на диске в соответствии с {@link JournalDurability}.
+ */
+public class TaskJournal {
+
+    public enum Operation {
+        CREATE,
+
+        UPDATE,
+
+        MOVE,
+
+        DELETE,
+
+        CLEAR
+    }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File file;
+
+    private final File compactingFile;
+
+    private final JournalDurability durability;
+
+    private final Deque<byte[]> pendingRecords = new ArrayDeque<>();
+
+    private FileChannel channel;
+
+    private Thread flusher;
+
+    private IOException flushFailure;
+
+    private boolean closed;
+
+    private long size;
+
+    private long recordCount;
+
+    private long appendedSequence;
+
+    private long durableSequence;
+
+    public TaskJournal(File file) {
+        this(file, JournalDurability.sync());
+    }
+
+    public TaskJournal(File file, JournalDurability durability) {
+        this.file = file;
+        this.compactingFile = new File(file.getPath() + ".compacting");
+        this.durability = durability;
+        this.size = file.length();
+    }
+
+    public static String create(Task task) {
+        return record(Operation.CREATE, task.toCSVString());
+    }
+
+    public static String update(Task task) {
+        return record(Operation.UPDATE, task.toCSVString());
+    }
+
+    public static String move(Long subtaskId, Long epicId) {
+        return record(Operation.MOVE, subtaskId + "," + epicId);
+    }
+
+    public static String delete(TaskType type, long id) {
+        return record(Operation.DELETE, type.name() + "," + id);
+    }
+
+    public static String clear(TaskType type) {
+        return record(Operation.CLEAR, type.name());
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public JournalDurability getDurability() {
+        return durability;
+    }
+
+    public synchronized long getSize() {
+        return size;
+    }
+
+    public synchronized long getRecordCount() {
+        return recordCount;
+    }
+
+    public synchronized long getAppendedSequence() {
+        return appendedSequence;
+    }
+
+    public synchronized long getDurableSequence() {
+        return durableSequence;
+    }
+
+    public synchronized long append(String record) {
+        return append(List.of(record));
+    }
+
+    // Записи пачки пишутся одним блоком и получают один номер: на всю пачку приходится одна запись в файл и один fsync
+    public synchronized long append(List<String> records) {
+        StringBuilder block = new StringBuilder();
+        for (String record : records) {
+            block.append(record).append(System.lineSeparator());
+        }
+
+        byte[] bytes = block.toString().getBytes(StandardCharsets.UTF_8);
+        checkFlushFailure();
+
+        try {
+            switch (durability.getMode()) {
+                case SYNC -> {
+                    openChannel().write(ByteBuffer.wrap(bytes));
+                    channel.force(false);
+                    durableSequence = appendedSequence + 1;
+                }
+                case GROUP_COMMIT -> {
+                    openChannel().write(ByteBuffer.wrap(bytes));
+                    startFlusher();
+                }
+                case WRITE_BEHIND -> {
+                    while (appendedSequence - durableSequence >= durability.getMaxLag()) {
+                        waitForFlusher();
+                    }
+
+                    pendingRecords.add(bytes);
+                    startFlusher();
+                }
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        }
+
+        size += bytes.length;
+        recordCount += records.size();
+        appendedSequence++;
+        notifyAll();
+
+        return appendedSequence;
+    }
+
+    public synchronized void awaitDurable(long sequence) {
+        while (durableSequence < Math.min(sequence, appendedSequence)) {
+            waitForFlusher();
+        }
+    }
+
+    public synchronized void awaitDurable() {
+        awaitDurable(appendedSequence);
+    }
+
+    public void close() {
+        Thread flusherToJoin;
+
+        synchronized (this) {
+            awaitDurable();
+            closed = true;
+            notifyAll();
+            flusherToJoin = flusher;
+            flusher = null;
+            closeChannel();
+        }
+
+        if (null != flusherToJoin) {
+            try {
+                flusherToJoin.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Оборванная последняя запись отрезается; размер и число записей берутся из того, что воспроизведено
+    public void replay(Consumer<TaskCsvReader> consumer) {
+        replay(compactingFile, consumer);
+        long count = replay(file, consumer);
+
+        synchronized (this) {
+            recordCount = count;
+            size = file.length();
+        }
+    }
+
+    /*
+     * Отделяет текущие записи для сжатия: дожидается записи на диск уже принятых записей (не дольше, чем позволяет
+     * JournalDurability) и переименовывает файл. Стоимость не зависит от размера журнала.
+     */
+    public synchronized void rotate() {
+        if (compactingFile.exists()) {
+            throw new IllegalStateException("Previous compaction of " + compactingFile + " is not finished");
+        }
+
+        awaitDurable();
+        closeChannel();
+
+        try {
+            if (!file.exists()) {
+                return;
+            }
+
+            Files.move(file.toPath(), compactingFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        }
+
+        size = 0L;
+        recordCount = 0L;
+    }
+
+    public boolean hasRotated() {
+        return compactingFile.exists();
+    }
+
+    // Воспроизводит только отделённую для сжатия часть
+    public void replayRotated(Consumer<TaskCsvReader> consumer) {
+        replay(compactingFile, consumer);
+    }
+
+    public void deleteRotated() {
+        try {
+            Files.deleteIfExists(compactingFile.toPath());
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        }
+    }
+
+    private FileChannel openChannel() throws IOException {
+        if (null == channel) {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+
+        return channel;
+    }
+
+    private void closeChannel() {
+        if (null == channel) {
+            return;
+        }
+
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        } finally {
+            channel = null;
+        }
+    }
+
+    private void startFlusher() {
+        if (null != flusher) {
+            return;
+        }
+
+        closed = false;
+        flusher = new Thread(this::flush, "task-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    // Один fsync на все записи, накопившиеся за время предыдущего
+    private void flush() {
+        while (true) {
+            FileChannel batchChannel;
+            List<byte[]> batch;
+            long batchSequence;
+
+            synchronized (this) {
+                while (!closed && durableSequence == appendedSequence) {
+                    waitForFlusher();
+                }
+
+                if (durableSequence == appendedSequence) {
+                    return;
+                }
+
+                batch = new ArrayList<>(pendingRecords);
+                pendingRecords.clear();
+                batchSequence = appendedSequence;
+
+                try {
+                    batchChannel = openChannel();
+                } catch (IOException e) {
+                    flushFailed(e);
+
+                    return;
+                }
+            }
+
+            try {
+                for (byte[] bytes : batch) {
+                    batchChannel.write(ByteBuffer.wrap(bytes));
+                }
+
+                batchChannel.force(false);
+            } catch (IOException e) {
+                synchronized (this) {
+                    flushFailed(e);
+                }
+
+                return;
+            }
+
+            synchronized (this) {
+                durableSequence = batchSequence;
+                notifyAll();
+            }
+        }
+    }
+
+    private void flushFailed(IOException e) {
+        flushFailure = e;
+        flusher = null;
+        notifyAll();
+    }
+
+    private void waitForFlusher() {
+        checkFlushFailure();
+
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new ManagerSaveException(e.getMessage());
+        }
+
+        checkFlushFailure();
+    }
+
+    private void checkFlushFailure() {
+        if (null != flushFailure) {
+            throw new ManagerSaveException(flushFailure.getMessage());
+        }
+    }
+
+    private static long replay(File file, Consumer<TaskCsvReader> consumer) {
+        if (!file.exists()) {
+            return 0L;
+        }
+
+        truncateIncompleteRecord(file);
+
+        long count = 0L;
+
+        try (TaskCsvReader csvReader = new TaskCsvReader(new FileReader(file, StandardCharsets.UTF_8))) {
+            while (csvReader.next()) {
+                consumer.accept(csvReader);
+                count++;
+            }
+        } catch (IOException e) {
+            throw new ManagerLoadException(e.getMessage());
+        }
+
+        return count;
+    }
+
+    /*
+     * Каждая запись заканчивается переводом строки вне кавычек. Если процесс упал посреди дописывания (в режимах
+     * GROUP_COMMIT и WRITE_BEHIND это ожидаемо), хвост после последней такой границы - недописанная запись: она не
+     * была подтверждена, поэтому отрезается, чтобы не сорвать загрузку и не склеиться со следующей записью.
+     */
+    private static void truncateIncompleteRecord(File file) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            long position = 0L;
+            long recordEnd = 0L;
+            boolean quoted = false;
+
+            while (channel.read(buffer) > 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    byte value = buffer.get();
+                    position++;
+
+                    if ('"' == value) {
+                        quoted = !quoted;
+                    } else if ('\n' == value && !quoted) {
+                        recordEnd = position;
+                    }
+                }
+                buffer.clear();
+            }
+
+            if (recordEnd < position) {
+                System.out.println("Incomplete last record of " + file + " truncated: " + (position - recordEnd)
+                                   + " bytes");
+                channel.truncate(recordEnd);
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new ManagerLoadException(e.getMessage());
+        }
+    }
+
+    private static String record(Operation operation, String data) {
+        return operation.name() + "," + data;
+    }
+
+}
@@ -0,0 +1,169 @@
+package service.impl;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Supplier;
+
+import model.Task;
+import model.TaskStatus;
+import model.TaskType;
+
+/**
+ * Упорядоченные id задач и подзадач для постраничной выдачи: для каждого типа - id по статусам и id
+ * незапланированных задач, все по возрастанию. Страница читается с позиции курсора за O(log n + limit), без обхода
+ * всего хранилища; порядок по id собирается слиянием множеств статусов.
+ * <p>
+ * Как и {@link StatusIndex}, индекс не полагается на прежнее состояние задачи: при изменении id убирается из всех
+ * множеств, кроме текущих. Эпики постранично не выдаются и в индекс не попадают.
+ */
+public class TaskOrderIndex {
+
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private final Map<TaskType, List<NavigableSet<Long>>> idsByStatus = new EnumMap<>(TaskType.class);
+
+    private final Map<TaskType, NavigableSet<Long>> unscheduledIds = new EnumMap<>(TaskType.class);
+
+    public TaskOrderIndex() {
+        this(TreeSet::new);
+    }
+
+    private TaskOrderIndex(Supplier<NavigableSet<Long>> setFactory) {
+        for (TaskType type : List.of(TaskType.TASK, TaskType.SUBTASK)) {
+            List<NavigableSet<Long>> sets = new ArrayList<>(STATUSES.length);
+            for (int i = 0; i < STATUSES.length; i++) {
+                sets.add(setFactory.get());
+            }
+
+            idsByStatus.put(type, sets);
+            unscheduledIds.put(type, setFactory.get());
+        }
+    }
+
+    // Индекс для чтения без блокировок; изменения одной задачи должны выполняться под одной блокировкой
+    public static TaskOrderIndex concurrent() {
+        return new TaskOrderIndex(ConcurrentSkipListSet::new);
+    }
+
+    // Добавляет задачу или переносит её в текущий статус и расписание
+    public void put(Task task) {
+        List<NavigableSet<Long>> sets = idsByStatus.get(task.getType());
+        if (null == sets) {
+            return;
+        }
+
+        long id = task.getId();
+        for (TaskStatus status : STATUSES) {
+            if (task.getStatus() == status) {
+                sets.get(status.ordinal()).add(id);
+            } else {
+                sets.get(status.ordinal()).remove(id);
+            }
+        }
+
+        if (TaskIntervalIndex.isScheduled(task)) {
+            unscheduledIds.get(task.getType()).remove(id);
+        } else {
+            unscheduledIds.get(task.getType()).add(id);
+        }
+    }
+
+    public void remove(Task task) {
+        List<NavigableSet<Long>> sets = null != task ? idsByStatus.get(task.getType()) : null;
+        if (null == sets) {
+            return;
+        }
+
+        for (NavigableSet<Long> ids : sets) {
+            ids.remove(task.getId());
+        }
+        unscheduledIds.get(task.getType()).remove(task.getId());
+    }
+
+    public void clear(TaskType type) {
+        List<NavigableSet<Long>> sets = idsByStatus.get(type);
+        if (null == sets) {
+            return;
+        }
+
+        sets.forEach(NavigableSet::clear);
+        unscheduledIds.get(type).clear();
+    }
+
+    // id задач типа строго после afterId по возрастанию
+    public Iterator<Long> idsAfter(TaskType type, long afterId) {
+        List<Iterator<Long>> sources = new ArrayList<>(STATUSES.length);
+        for (NavigableSet<Long> ids : idsByStatus.get(type)) {
+            sources.add(ids.tailSet(afterId, false).iterator());
+        }
+
+        return new MergedIds(sources);
+    }
+
+    public Iterator<Long> idsAfter(TaskType type, TaskStatus status, long afterId) {
+        return idsByStatus.get(type).get(status.ordinal()).tailSet(afterId, false).iterator();
+    }
+
+    public Iterator<Long> unscheduledIdsAfter(TaskType type, long afterId) {
+        return unscheduledIds.get(type).tailSet(afterId, false).iterator();
+    }
+
+    // Слияние возрастающих последовательностей id; источников столько же, сколько статусов
+    private static final class MergedIds implements Iterator<Long> {
+
+        private final List<Iterator<Long>> sources;
+
+        private final Long[] heads;
+
+        private MergedIds(List<Iterator<Long>> sources) {
+            this.sources = sources;
+            this.heads = new Long[sources.size()];
+            for (int i = 0; i < heads.length; i++) {
+                advance(i);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return -1 != smallest();
+        }
+
+        @Override
+        public Long next() {
+            int source = smallest();
+            if (-1 == source) {
+                throw new NoSuchElementException();
+            }
+
+            Long id = heads[source];
+            advance(source);
+
+            return id;
+        }
+
+        private int smallest() {
+            int source = -1;
+            for (int i = 0; i < heads.length; i++) {
+                if (null != heads[i] && (-1 == source || heads[i] < heads[source])) {
+                    source = i;
+                }
+            }
+
+            return source;
+        }
+
+        private void advance(int source) {
+            Iterator<Long> iterator = sources.get(source);
+            heads[source] = iterator.hasNext() ? iterator.next() : null;
+        }
+
+    }
+
+}
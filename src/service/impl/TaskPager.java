@@ -0,0 +1,239 @@
+package service.impl;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.LongFunction;
+import java.util.function.Predicate;
+
+import model.Task;
+import model.TaskStatus;
+import model.TaskType;
+import service.Page;
+import service.TaskSort;
+
+/**
+ * Постраничная выдача задач по курсору.
+ * <p>
+ * Задачи и подзадачи менеджера читаются с позиции курсора из упорядоченных индексов: по id и по статусу - из
+ * {@link TaskOrderIndex}, по времени начала - из {@link TaskIntervalIndex}, а хвост из незапланированных задач - снова
+ * из {@link TaskOrderIndex}. Страница стоит O(log n + limit) и не зависит от размера хранилища. Индексы и хранилище
+ * могут читаться без общей блокировки, поэтому задача, успевшая сменить статус или расписание, пропускается: она
+ * встретится в своей новой позиции.
+ * <p>
+ * Произвольный источник, например подзадачи эпика, выдаётся одним проходом: в куче держится не больше
+ * {@code limit + 1} лучших задач после курсора, поэтому память - O(limit), а не O(n).
+ * <p>
+ * Курсор имеет вид {@code SORT:ключ:id}, где ключ - статус, время начала ({@code -} у незапланированных) или пусто.
+ */
+final class TaskPager {
+
+    private static final String UNSCHEDULED = "-";
+
+    private TaskPager() {
+    }
+
+    static <T extends Task> Page<T> page(Iterable<? extends T> source, String cursor, int limit, TaskSort sort) {
+        checkLimit(limit);
+
+        Position after = Position.parse(cursor, sort);
+
+        return toPage(top(source, after, limit, sort), limit, sort);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T extends Task> Page<T> page(TaskOrderIndex order, TaskIntervalIndex schedule, TaskType type,
+                                         LongFunction<? extends T> lookup, String cursor, int limit, TaskSort sort) {
+        checkLimit(limit);
+
+        Position after = Position.parse(cursor, sort);
+        List<T> items = new ArrayList<>(limit + 1);
+
+        switch (sort) {
+            case ID -> collect(order.idsAfter(type, null == after ? Long.MIN_VALUE : after.id), lookup,
+                    task -> true, items, limit);
+            case STATUS -> {
+                TaskStatus[] statuses = TaskStatus.values();
+                for (int i = null == after ? 0 : after.status.ordinal(); i < statuses.length; i++) {
+                    TaskStatus status = statuses[i];
+                    long afterId = null != after && status == after.status ? after.id : Long.MIN_VALUE;
+                    if (collect(order.idsAfter(type, status, afterId), lookup, task -> status == task.getStatus(),
+                            items, limit)) {
+                        break;
+                    }
+                }
+            }
+            case START_TIME -> {
+                if (null == after || null != after.startTime) {
+                    Iterable<Task> scheduled = null == after
+                            ? schedule.values(type)
+                            : schedule.valuesFrom(type, after.startTime);
+                    for (Task task : scheduled) {
+                        if (null == after || compare(TaskSort.START_TIME, task, after) > 0) {
+                            items.add((T) task);
+                            if (items.size() > limit) {
+                                return toPage(items, limit, sort);
+                            }
+                        }
+                    }
+                }
+
+                long afterId = null != after && null == after.startTime ? after.id : Long.MIN_VALUE;
+                collect(order.unscheduledIdsAfter(type, afterId), lookup,
+                        task -> !TaskIntervalIndex.isScheduled(task), items, limit);
+            }
+        }
+
+        return toPage(items, limit, sort);
+    }
+
+    // Добавляет задачи по id, пока не наберётся limit + 1; true, если страница заполнена
+    private static <T extends Task> boolean collect(Iterator<Long> ids, LongFunction<? extends T> lookup,
+                                                    Predicate<T> stillThere, List<T> items, int limit) {
+        while (items.size() <= limit && ids.hasNext()) {
+            T task = lookup.apply(ids.next());
+            if (null != task && stillThere.test(task)) {
+                items.add(task);
+            }
+        }
+
+        return items.size() > limit;
+    }
+
+    // До limit + 1 задач после курсора в порядке сортировки
+    private static <T extends Task> List<T> top(Iterable<? extends T> source, Position after, int limit,
+                                                TaskSort sort) {
+        Comparator<Task> order = comparator(sort);
+        PriorityQueue<T> best = new PriorityQueue<>(limit + 2, order.reversed());
+
+        for (T task : source) {
+            if (null == task) {
+                continue;
+            }
+
+            if (null != after && compare(sort, task, after) <= 0) {
+                continue;
+            }
+
+            if (best.size() <= limit) {
+                best.add(task);
+            } else if (order.compare(task, best.peek()) < 0) {
+                best.poll();
+                best.add(task);
+            }
+        }
+
+        List<T> items = new ArrayList<>(best);
+        items.sort(order);
+
+        return items;
+    }
+
+    private static <T extends Task> Page<T> toPage(List<T> items, int limit, TaskSort sort) {
+        if (items.size() <= limit) {
+            return new Page<>(items, null);
+        }
+
+        List<T> pageItems = items.subList(0, limit);
+
+        return new Page<>(pageItems, Position.format(sort, pageItems.getLast()));
+    }
+
+    private static void checkLimit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+    }
+
+    private static Comparator<Task> comparator(TaskSort sort) {
+        return (first, second) -> {
+            int result = compareKeys(sort, startTime(first), first.getStatus(), startTime(second), second.getStatus());
+
+            return 0 != result ? result : Long.compare(first.getId(), second.getId());
+        };
+    }
+
+    private static int compare(TaskSort sort, Task task, Position position) {
+        int result = compareKeys(sort, startTime(task), task.getStatus(), position.startTime, position.status);
+
+        return 0 != result ? result : Long.compare(task.getId(), position.id);
+    }
+
+    private static int compareKeys(TaskSort sort, LocalDateTime firstStart, TaskStatus firstStatus,
+                                   LocalDateTime secondStart, TaskStatus secondStatus) {
+        return switch (sort) {
+            case ID -> 0;
+            case STATUS -> firstStatus.compareTo(secondStatus);
+            case START_TIME -> {
+                if (null == firstStart || null == secondStart) {
+                    // Незапланированные задачи идут после запланированных
+                    yield Boolean.compare(null == firstStart, null == secondStart);
+                }
+
+                yield firstStart.compareTo(secondStart);
+            }
+        };
+    }
+
+    // Время начала учитывается только у задач из расписания
+    private static LocalDateTime startTime(Task task) {
+        return TaskIntervalIndex.isScheduled(task) ? task.getStartTime() : null;
+    }
+
+    private static final class Position {
+
+        private final LocalDateTime startTime;
+
+        private final TaskStatus status;
+
+        private final long id;
+
+        private Position(LocalDateTime startTime, TaskStatus status, long id) {
+            this.startTime = startTime;
+            this.status = status;
+            this.id = id;
+        }
+
+        private static String format(TaskSort sort, Task task) {
+            String key = switch (sort) {
+                case ID -> "";
+                case STATUS -> task.getStatus().name();
+                case START_TIME -> TaskIntervalIndex.isScheduled(task) ? task.getStartTime().toString() : UNSCHEDULED;
+            };
+
+            return sort.name() + ":" + key + ":" + task.getId();
+        }
+
+        private static Position parse(String cursor, TaskSort sort) {
+            if (null == cursor) {
+                return null;
+            }
+
+            int keyStart = cursor.indexOf(':');
+            int idStart = cursor.lastIndexOf(':');
+            if (keyStart < 0 || keyStart == idStart || !sort.name().equals(cursor.substring(0, keyStart))) {
+                throw new IllegalArgumentException("Invalid cursor for sort " + sort + ": " + cursor);
+            }
+
+            String key = cursor.substring(keyStart + 1, idStart);
+            try {
+                long id = Long.parseLong(cursor.substring(idStart + 1));
+
+                return switch (sort) {
+                    case ID -> new Position(null, null, id);
+                    case STATUS -> new Position(null, TaskStatus.valueOf(key), id);
+                    case START_TIME -> new Position(UNSCHEDULED.equals(key) ? null : LocalDateTime.parse(key), null,
+                            id);
+                };
+            } catch (NumberFormatException | DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid cursor for sort " + sort + ": " + cursor, e);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,276 @@
+package service.impl;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.AbstractList;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskType;
+
+/**
+ * Неизменяемый согласованный снимок всех задач менеджера.
+ * <p>
+ * Хранилища - постоянные структуры с разделением узлов ({@link PersistentLongMap}, {@link PersistentSortedMap}),
+ * поэтому каждое изменение создаёт новый снимок за O(log n), а старые снимки остаются целыми. Списки, которые
+ * возвращает снимок, - представления без копирования: создаются за O(1), обходятся прямо по дереву.
+ */
+public final class TaskSnapshot {
+
+    static final TaskSnapshot EMPTY = new TaskSnapshot(PersistentLongMap.empty(), PersistentLongMap.empty(),
+            PersistentLongMap.empty(), PersistentSortedMap.empty(), PersistentSortedMap.empty());
+
+    private final PersistentLongMap<Task> tasks;
+
+    private final PersistentLongMap<Epic> epics;
+
+    private final PersistentLongMap<Subtask> subtasks;
+
+    // Расписание задач и расписание подзадач хранятся отдельно, общий порядок - слиянием
+    private final PersistentSortedMap<LocalDateTime, Task> taskSchedule;
+
+    private final PersistentSortedMap<LocalDateTime, Task> subtaskSchedule;
+
+    private TaskSnapshot(PersistentLongMap<Task> tasks, PersistentLongMap<Epic> epics,
+                         PersistentLongMap<Subtask> subtasks, PersistentSortedMap<LocalDateTime, Task> taskSchedule,
+                         PersistentSortedMap<LocalDateTime, Task> subtaskSchedule) {
+        this.tasks = tasks;
+        this.epics = epics;
+        this.subtasks = subtasks;
+        this.taskSchedule = taskSchedule;
+        this.subtaskSchedule = subtaskSchedule;
+    }
+
+    public List<Task> getTasks() {
+        return new ListView<>(tasks);
+    }
+
+    public List<Epic> getEpics() {
+        return new ListView<>(epics);
+    }
+
+    public List<Subtask> getSubtasks() {
+        return new ListView<>(subtasks);
+    }
+
+    public Task getTask(Long id) {
+        return tasks.get(id);
+    }
+
+    public Epic getEpic(Long id) {
+        return epics.get(id);
+    }
+
+    public Subtask getSubtask(Long id) {
+        return subtasks.get(id);
+    }
+
+    public List<Subtask> getEpicSubtasks(Long epicId) {
+        Epic epic = epics.get(epicId);
+        if (null == epic) {
+            return List.of();
+        }
+
+        return epic.getSubtaskIds().stream()
+                .map(subtasks::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    // Запланированные задачи по возрастанию времени начала
+    public Set<Task> getPrioritizedTasks() {
+        return new PrioritizedView(taskSchedule, subtaskSchedule);
+    }
+
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+        TaskIntervalIndex.checkRange(from, to);
+
+        return TaskIntervalIndex.collect(merge(schedule -> schedule.iteratorFrom(from, true), false), to,
+                Integer.MAX_VALUE);
+    }
+
+    public List<Task> getPrioritizedTasksAfter(LocalDateTime instant, int limit) {
+        TaskIntervalIndex.checkLimit(instant, limit);
+
+        return TaskIntervalIndex.collect(merge(schedule -> schedule.iteratorFrom(instant, false), false), null,
+                limit);
+    }
+
+    public List<Task> getPrioritizedTasksBefore(LocalDateTime instant, int limit) {
+        TaskIntervalIndex.checkLimit(instant, limit);
+
+        return TaskIntervalIndex.collect(merge(schedule -> schedule.descendingIteratorTo(instant, false), true),
+                null, limit);
+    }
+
+    public List<LocalDateTime> findFreeSlots(Duration duration, LocalDateTime notBefore, LocalDateTime notAfter,
+                                             int limit) {
+        TaskIntervalIndex.checkSlotQuery(duration, notBefore, notAfter, limit);
+
+        LocalDateTime start = TaskIntervalIndex.slotStartFrom(notBefore);
+        Iterator<Task> previous = merge(schedule -> schedule.descendingIteratorTo(start, true), true);
+
+        return TaskIntervalIndex.freeSlots(previous.hasNext() ? previous.next() : null,
+                merge(schedule -> schedule.iteratorFrom(start, false), false), start, duration, notAfter, limit);
+    }
+
+    private Iterator<Task> merge(Function<PersistentSortedMap<LocalDateTime, Task>, Iterator<Task>> source,
+                                 boolean descending) {
+        return TaskIntervalIndex.merge(List.of(source.apply(taskSchedule), source.apply(subtaskSchedule)),
+                descending);
+    }
+
+    TaskSnapshot withTask(Task task) {
+        return new TaskSnapshot(tasks.put(task.getId(), task), epics, subtasks, taskSchedule, subtaskSchedule);
+    }
+
+    TaskSnapshot withoutTask(Long id) {
+        return new TaskSnapshot(tasks.remove(id), epics, subtasks, taskSchedule, subtaskSchedule);
+    }
+
+    TaskSnapshot withEpic(Epic epic) {
+        if (null == epic) {
+            return this;
+        }
+
+        return new TaskSnapshot(tasks, epics.put(epic.getId(), epic), subtasks, taskSchedule, subtaskSchedule);
+    }
+
+    TaskSnapshot withoutEpic(Long id) {
+        return new TaskSnapshot(tasks, epics.remove(id), subtasks, taskSchedule, subtaskSchedule);
+    }
+
+    TaskSnapshot withSubtask(Subtask subtask) {
+        return new TaskSnapshot(tasks, epics, subtasks.put(subtask.getId(), subtask), taskSchedule,
+                subtaskSchedule);
+    }
+
+    TaskSnapshot withoutSubtask(Long id) {
+        return new TaskSnapshot(tasks, epics, subtasks.remove(id), taskSchedule, subtaskSchedule);
+    }
+
+    /*
+     * Заменяет задачу в расписании. Старая задача удаляется, только если её время ещё не занято другой: публикации
+     * разных писателей могут прийти в снимок в другом порядке, чем изменения в индексе менеджера.
+     */
+    TaskSnapshot withScheduled(Task oldTask, Task newTask) {
+        PersistentSortedMap<LocalDateTime, Task> newTaskSchedule = taskSchedule;
+        PersistentSortedMap<LocalDateTime, Task> newSubtaskSchedule = subtaskSchedule;
+
+        if (TaskIntervalIndex.isScheduled(oldTask)) {
+            if (TaskType.SUBTASK == oldTask.getType()) {
+                newSubtaskSchedule = unscheduled(newSubtaskSchedule, oldTask);
+            } else {
+                newTaskSchedule = unscheduled(newTaskSchedule, oldTask);
+            }
+        }
+
+        if (TaskIntervalIndex.isScheduled(newTask)) {
+            if (TaskType.SUBTASK == newTask.getType()) {
+                newSubtaskSchedule = newSubtaskSchedule.put(newTask.getStartTime(), newTask);
+            } else {
+                newTaskSchedule = newTaskSchedule.put(newTask.getStartTime(), newTask);
+            }
+        }
+
+        return newTaskSchedule == taskSchedule && newSubtaskSchedule == subtaskSchedule
+                ? this
+                : new TaskSnapshot(tasks, epics, subtasks, newTaskSchedule, newSubtaskSchedule);
+    }
+
+    private static PersistentSortedMap<LocalDateTime, Task> unscheduled(
+            PersistentSortedMap<LocalDateTime, Task> schedule, Task task) {
+        return schedule.get(task.getStartTime()) == task ? schedule.remove(task.getStartTime()) : schedule;
+    }
+
+    // Расписание удаляемого типа сбрасывается целиком за O(1)
+    TaskSnapshot withoutType(TaskType type) {
+        return switch (type) {
+            case TASK -> new TaskSnapshot(PersistentLongMap.empty(), epics, subtasks, PersistentSortedMap.empty(),
+                    subtaskSchedule);
+            case SUBTASK -> new TaskSnapshot(tasks, epics, PersistentLongMap.empty(), taskSchedule,
+                    PersistentSortedMap.empty());
+            case EPIC -> new TaskSnapshot(tasks, PersistentLongMap.empty(), subtasks, taskSchedule, subtaskSchedule);
+        };
+    }
+
+    // Список поверх неизменяемого отображения; массив для доступа по индексу строится при первом обращении
+    private static final class ListView<T> extends AbstractList<T> {
+
+        private final PersistentLongMap<T> map;
+
+        private volatile List<T> indexed;
+
+        private ListView(PersistentLongMap<T> map) {
+            this.map = map;
+        }
+
+        @Override
+        public T get(int index) {
+            if (null == indexed) {
+                List<T> values = new ArrayList<>(map.size());
+                map.forEach(values::add);
+                indexed = values;
+            }
+
+            return indexed.get(index);
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return map.iterator();
+        }
+
+    }
+
+    private static final class PrioritizedView extends AbstractSet<Task> {
+
+        private final PersistentSortedMap<LocalDateTime, Task> taskSchedule;
+
+        private final PersistentSortedMap<LocalDateTime, Task> subtaskSchedule;
+
+        private PrioritizedView(PersistentSortedMap<LocalDateTime, Task> taskSchedule,
+                                PersistentSortedMap<LocalDateTime, Task> subtaskSchedule) {
+            this.taskSchedule = taskSchedule;
+            this.subtaskSchedule = subtaskSchedule;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Task task) || !TaskIntervalIndex.isScheduled(task)) {
+                return false;
+            }
+
+            PersistentSortedMap<LocalDateTime, Task> schedule = TaskType.SUBTASK == task.getType()
+                    ? subtaskSchedule
+                    : taskSchedule;
+
+            return task.equals(schedule.get(task.getStartTime()));
+        }
+
+        @Override
+        public int size() {
+            return taskSchedule.size() + subtaskSchedule.size();
+        }
+
+        @Override
+        public Iterator<Task> iterator() {
+            return TaskIntervalIndex.merge(List.of(taskSchedule.iterator(), subtaskSchedule.iterator()), false);
+        }
+
+    }
+
+}
@@ -0,0 +1,371 @@
+package service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+import model.Task;
+import util.LongLinkedMap;
+
+/**
+ * Инвертированный индекс по названиям и описаниям задач.
+ * <p>
+ * Словарь терминов упорядочен, поэтому термины с заданным префиксом находятся за O(log T + m). Список вхождений
+ * термина - отсортированные id в {@code long[]} и вес каждого вхождения в {@code byte[]}, около девяти байт на
+ * вхождение. Удаление помечает вхождение нулевым весом, а список уплотняется, когда таких больше половины.
+ * <p>
+ * Для каждой задачи запоминаются её термины, поэтому переиндексация затрагивает только списки терминов, которые
+ * у задачи появились, исчезли или сменили вес, - даже если задачу изменили на месте.
+ */
+public class TextIndex {
+
+    // Вхождение в название весит больше вхождения в описание
+    private static final int TITLE_WEIGHT = 2;
+
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    // Термин, совпавший с запросом только префиксом, весит вдвое меньше точного совпадения
+    private static final double PREFIX_FACTOR = 0.5;
+
+    // Во сколько раз список вхождений должен быть длиннее списка кандидатов, чтобы искать кандидатов двоичным поиском
+    private static final int PROBE_RATIO = 16;
+
+    private final NavigableMap<String, Postings> postingsByTerm = new TreeMap<>();
+
+    private final LongLinkedMap<Postings[]> termsById = new LongLinkedMap<>();
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (null == text) {
+            return tokens;
+        }
+
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean letter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+
+        return tokens;
+    }
+
+    public int size() {
+        return termsById.size();
+    }
+
+    public int termCount() {
+        return postingsByTerm.size();
+    }
+
+    // Индексирует задачу или переиндексирует её после изменения
+    public void put(Task task) {
+        Map<String, Integer> weights = weights(task);
+        long id = task.getId();
+
+        Postings[] oldTerms = termsById.get(id);
+        if (null != oldTerms) {
+            for (Postings postings : oldTerms) {
+                if (!weights.containsKey(postings.term)) {
+                    unlink(postings, id);
+                }
+            }
+        }
+
+        Postings[] terms = new Postings[weights.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+            Postings postings = postingsByTerm.computeIfAbsent(entry.getKey(), Postings::new);
+            postings.put(id, (byte) Math.min(Byte.MAX_VALUE, entry.getValue()));
+            terms[i++] = postings;
+        }
+
+        termsById.put(id, terms);
+    }
+
+    public void remove(long id) {
+        Postings[] terms = termsById.remove(id);
+        if (null == terms) {
+            return;
+        }
+
+        for (Postings postings : terms) {
+            unlink(postings, id);
+        }
+    }
+
+    public void clear() {
+        postingsByTerm.clear();
+        termsById.clear();
+    }
+
+    /*
+     * Не больше limit id задач, содержащих каждое слово запроса (целиком или как префикс термина), по убыванию
+     * релевантности: сумма весов вхождений, умноженных на редкость термина. При равной релевантности - по id.
+     */
+    public List<Long> search(String query, int limit) {
+        List<String> tokens = queryTokens(query, limit);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        // Сначала самое редкое слово: следующие слова проверяются только на уже найденных задачах
+        tokens.sort(Comparator.comparingLong(this::postingsCount));
+
+        Map<Long, Double> scores = null;
+        for (String token : tokens) {
+            Map<Long, Double> previous = scores;
+            scores = score(token, previous);
+            if (null != previous) {
+                scores.replaceAll((id, score) -> score + previous.get(id));
+            }
+
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        return top(scores, limit);
+    }
+
+    // Верхняя оценка числа найденных задач: вхождения самого редкого слова запроса с учётом префиксов
+    public long estimate(String query) {
+        long estimate = 0;
+        boolean first = true;
+        for (String token : new LinkedHashSet<>(tokenize(query))) {
+            long count = postingsCount(token);
+            estimate = first ? count : Math.min(estimate, count);
+            first = false;
+        }
+
+        return estimate;
+    }
+
+    // Различные слова запроса в порядке появления
+    static List<String> queryTokens(String query, int limit) {
+        if (null == query) {
+            throw new IllegalArgumentException("query must not be null");
+        }
+
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+
+        return new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+    }
+
+    /*
+     * Релевантность задачи без индекса, для поиска перебором: те же веса и префиксы, но без редкости терминов,
+     * которую без словаря не посчитать. 0 - задача содержит не все слова запроса.
+     */
+    static double score(Task task, List<String> tokens) {
+        Map<String, Integer> weights = weights(task);
+        double score = 0;
+
+        for (String token : tokens) {
+            double best = 0;
+            for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+                if (entry.getKey().startsWith(token)) {
+                    double factor = token.equals(entry.getKey()) ? 1.0 : PREFIX_FACTOR;
+                    best = Math.max(best, Math.min(Byte.MAX_VALUE, entry.getValue()) * factor);
+                }
+            }
+
+            if (0 == best) {
+                return 0;
+            }
+
+            score += best;
+        }
+
+        return score;
+    }
+
+    // Лучший вклад каждой задачи по терминам с префиксом token; при заданных candidates - только по ним
+    private Map<Long, Double> score(String token, Map<Long, Double> candidates) {
+        Map<Long, Double> scores = new HashMap<>();
+        int documents = termsById.size();
+
+        for (Postings postings : prefixRange(token)) {
+            double idf = Math.log(1.0 + (double) documents / postings.liveCount());
+            double factor = token.equals(postings.term) ? 1.0 : PREFIX_FACTOR;
+
+            if (null != candidates && candidates.size() < postings.size / PROBE_RATIO) {
+                // Кандидатов мало: двоичный поиск каждого в списке вместо полного обхода
+                for (long id : candidates.keySet()) {
+                    int i = Arrays.binarySearch(postings.ids, 0, postings.size, id);
+                    if (i >= 0 && 0 != postings.weights[i]) {
+                        scores.merge(id, postings.weights[i] * idf * factor, Math::max);
+                    }
+                }
+
+                continue;
+            }
+
+            for (int i = 0; i < postings.size; i++) {
+                long id = postings.ids[i];
+                if (0 == postings.weights[i] || null != candidates && !candidates.containsKey(id)) {
+                    continue;
+                }
+
+                scores.merge(id, postings.weights[i] * idf * factor, Math::max);
+            }
+        }
+
+        return scores;
+    }
+
+    private long postingsCount(String token) {
+        long count = 0;
+        for (Postings postings : prefixRange(token)) {
+            count += postings.liveCount();
+        }
+
+        return count;
+    }
+
+    private Iterable<Postings> prefixRange(String token) {
+        return postingsByTerm.subMap(token, true, token + Character.MAX_VALUE, false).values();
+    }
+
+    // Id с наибольшей релевантностью, не больше limit
+    static List<Long> top(Map<Long, Double> scores, int limit) {
+        Comparator<Map.Entry<Long, Double>> order = Map.Entry.<Long, Double>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey());
+        PriorityQueue<Map.Entry<Long, Double>> best = new PriorityQueue<>(Math.min(limit, scores.size()) + 1,
+                order.reversed());
+
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            best.add(entry);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+
+        List<Map.Entry<Long, Double>> entries = new ArrayList<>(best);
+        entries.sort(order);
+
+        List<Long> ids = new ArrayList<>(entries.size());
+        for (Map.Entry<Long, Double> entry : entries) {
+            ids.add(entry.getKey());
+        }
+
+        return Collections.unmodifiableList(ids);
+    }
+
+    private static Map<String, Integer> weights(Task task) {
+        Map<String, Integer> weights = new HashMap<>();
+        for (String token : tokenize(task.getTitle())) {
+            weights.merge(token, TITLE_WEIGHT, Integer::sum);
+        }
+
+        for (String token : tokenize(task.getDescription())) {
+            weights.merge(token, DESCRIPTION_WEIGHT, Integer::sum);
+        }
+
+        return weights;
+    }
+
+    private void unlink(Postings postings, long id) {
+        postings.remove(id);
+        if (0 == postings.liveCount()) {
+            postingsByTerm.remove(postings.term);
+        }
+    }
+
+    private static final class Postings {
+
+        private final String term;
+
+        private long[] ids = new long[2];
+
+        // Нулевой вес - удалённое вхождение
+        private byte[] weights = new byte[2];
+
+        private int size;
+
+        private int removed;
+
+        private Postings(String term) {
+            this.term = term;
+        }
+
+        private int liveCount() {
+            return size - removed;
+        }
+
+        private void put(long id, byte weight) {
+            // Новые задачи получают возрастающие id, поэтому обычно вхождение дописывается в конец
+            int index = 0 == size || ids[size - 1] < id ? -size - 1 : Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                if (0 == weights[index]) {
+                    removed--;
+                }
+
+                weights[index] = weight;
+
+                return;
+            }
+
+            index = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            System.arraycopy(weights, index, weights, index + 1, size - index);
+            ids[index] = id;
+            weights[index] = weight;
+            size++;
+        }
+
+        private void remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0 || 0 == weights[index]) {
+                return;
+            }
+
+            weights[index] = 0;
+            removed++;
+            if (removed * 2 > size) {
+                compact();
+            }
+        }
+
+        private void compact() {
+            int live = 0;
+            for (int i = 0; i < size; i++) {
+                if (0 != weights[i]) {
+                    ids[live] = ids[i];
+                    weights[live] = weights[i];
+                    live++;
+                }
+            }
+
+            size = live;
+            removed = 0;
+
+            int capacity = Math.max(2, Integer.highestOneBit(Math.max(1, live)) * 2);
+            if (capacity < ids.length) {
+                ids = Arrays.copyOf(ids, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,265 @@
+package util;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+
+/**
+ * Основа примитивных коллекций с ключами {@code long}: ключи лежат в ячейках плотного массива, ячейки связаны в список
+ * в порядке вставки индексами {@code int[]}, а ячейка по ключу находится через хеш-таблицу с открытой адресацией.
+ * Вставка, поиск и удаление - O(1) без упаковки ключей; освободившиеся ячейки переиспользуются.
+ * <p>
+ * Обход, как у коллекций JDK, быстро отказывает: после вставки или удаления не через сам итератор он бросает
+ * {@link ConcurrentModificationException}, а не идёт по освобождённым ячейкам.
+ * <p>
+ * Подклассы вне пакета хранят свои данные в параллельных массивах по номеру ячейки и работают с ячейками через
+ * защищённые методы.
+ */
+public abstract class LongLinkedIndex {
+
+    protected static final int NIL = -1;
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    long[] keys;
+    int[] next;
+    private int[] prev;
+
+    int head = NIL;
+    private int tail = NIL;
+    // Освободившиеся ячейки связаны через next
+    private int free = NIL;
+    private int used;
+    int size;
+    // Число вставок и удалений: по нему обход замечает изменение коллекции
+    int modCount;
+
+    // Номер ячейки + 1; 0 - пустое место
+    private int[] table;
+
+    protected LongLinkedIndex() {
+        this(INITIAL_CAPACITY);
+    }
+
+    // Ёмкость округляется вверх до степени двойки
+    protected LongLinkedIndex(int initialCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(initialCapacity, 2) - 1) << 1;
+        keys = new long[capacity];
+        next = new int[capacity];
+        prev = new int[capacity];
+        table = new int[capacity * 2];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return 0 == size;
+    }
+
+    public void clear() {
+        if (0 == used) {
+            return;
+        }
+
+        Arrays.fill(table, 0);
+        head = NIL;
+        tail = NIL;
+        free = NIL;
+        used = 0;
+        size = 0;
+        modCount++;
+        onClear();
+    }
+
+    // Ячейки подкласса: расширение вместе с ключами и очистка
+    protected abstract void onGrow(int capacity);
+
+    protected abstract void onClear();
+
+    protected abstract void onRelease(int cell);
+
+    // Число ячеек, под которое выделены массивы подкласса
+    protected final int capacity() {
+        return keys.length;
+    }
+
+    protected final long keyAt(int cell) {
+        return keys[cell];
+    }
+
+    protected final int firstCell() {
+        return head;
+    }
+
+    protected final int nextCell(int cell) {
+        return next[cell];
+    }
+
+    protected final int find(long key) {
+        int mask = table.length - 1;
+        for (int i = hash(key) & mask; 0 != table[i]; i = (i + 1) & mask) {
+            int cell = table[i] - 1;
+            if (key == keys[cell]) {
+                return cell;
+            }
+        }
+
+        return NIL;
+    }
+
+    // Ячейка с ключом; новая ячейка добавляется в конец порядка обхода
+    protected final int findOrInsert(long key) {
+        int cell = find(key);
+        if (NIL != cell) {
+            return cell;
+        }
+
+        cell = allocate();
+        keys[cell] = key;
+        place(cell);
+        linkLast(cell);
+        size++;
+        modCount++;
+
+        return cell;
+    }
+
+    // Переносит ячейку в конец порядка обхода
+    protected final void moveToEnd(int cell) {
+        if (cell == tail) {
+            return;
+        }
+
+        unlink(cell);
+        linkLast(cell);
+        modCount++;
+    }
+
+    protected final void release(int cell) {
+        displace(cell);
+        unlink(cell);
+
+        onRelease(cell);
+        next[cell] = free;
+        free = cell;
+        size--;
+        modCount++;
+    }
+
+    protected final void checkModCount(int expectedModCount) {
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    // Ячейка по позиции в порядке обхода; идёт с ближайшего конца списка
+    protected final int cellAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+
+        int cell;
+        if (index < size / 2) {
+            cell = head;
+            for (int i = 0; i < index; i++) {
+                cell = next[cell];
+            }
+        } else {
+            cell = tail;
+            for (int i = size - 1; i > index; i--) {
+                cell = prev[cell];
+            }
+        }
+
+        return cell;
+    }
+
+    private int allocate() {
+        if (NIL != free) {
+            int cell = free;
+            free = next[cell];
+
+            return cell;
+        }
+
+        if (used == keys.length) {
+            int capacity = keys.length * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            next = Arrays.copyOf(next, capacity);
+            prev = Arrays.copyOf(prev, capacity);
+            onGrow(capacity);
+
+            // Таблица заполнена не больше чем наполовину
+            table = new int[capacity * 2];
+            for (int cell = head; NIL != cell; cell = next[cell]) {
+                place(cell);
+            }
+        }
+
+        return used++;
+    }
+
+    private void linkLast(int cell) {
+        prev[cell] = tail;
+        next[cell] = NIL;
+        if (NIL == tail) {
+            head = cell;
+        } else {
+            next[tail] = cell;
+        }
+        tail = cell;
+    }
+
+    private void unlink(int cell) {
+        int before = prev[cell];
+        int after = next[cell];
+        if (NIL == before) {
+            head = after;
+        } else {
+            next[before] = after;
+        }
+
+        if (NIL == after) {
+            tail = before;
+        } else {
+            prev[after] = before;
+        }
+    }
+
+    private void place(int cell) {
+        int mask = table.length - 1;
+        int i = hash(keys[cell]) & mask;
+        while (0 != table[i]) {
+            i = (i + 1) & mask;
+        }
+
+        table[i] = cell + 1;
+    }
+
+    // Удаление из таблицы со сдвигом последующих ячеек цепочки назад, без надгробий
+    private void displace(int cell) {
+        int mask = table.length - 1;
+        int i = hash(keys[cell]) & mask;
+        while (table[i] != cell + 1) {
+            i = (i + 1) & mask;
+        }
+
+        for (int j = (i + 1) & mask; 0 != table[j]; j = (j + 1) & mask) {
+            int home = hash(keys[table[j] - 1]) & mask;
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                table[i] = table[j];
+                i = j;
+            }
+        }
+
+        table[i] = 0;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+
+        return (int) (h ^ (h >>> 32));
+    }
+
+}
@@ -0,0 +1,133 @@
+package util;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.LongConsumer;
+
+/**
+ * Отображение с ключами {@code long} без упаковки, обход в порядке вставки. Замена {@code LinkedHashMap<Long, V>}
+ * примерно втрое компактнее: на запись приходится ключ, ссылка на значение, две связи и две ячейки хеш-таблицы.
+ */
+public final class LongLinkedMap<V> extends LongLinkedIndex {
+
+    private Object[] values = new Object[keys.length];
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int cell = find(key);
+
+        return NIL != cell ? (V) values[cell] : null;
+    }
+
+    public boolean containsKey(long key) {
+        return NIL != find(key);
+    }
+
+    // Возвращает прежнее значение; порядок обхода у существующего ключа не меняется
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        int cell = findOrInsert(key);
+        V oldValue = (V) values[cell];
+        values[cell] = value;
+
+        return oldValue;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int cell = find(key);
+        if (NIL == cell) {
+            return null;
+        }
+
+        V oldValue = (V) values[cell];
+        release(cell);
+
+        return oldValue;
+    }
+
+    public void forEachKey(LongConsumer action) {
+        int expectedModCount = modCount;
+        for (int cell = head; NIL != cell; cell = next[cell]) {
+            action.accept(keys[cell]);
+            checkModCount(expectedModCount);
+        }
+    }
+
+    // Представление значений без копирования
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    protected void onGrow(int capacity) {
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    protected void onClear() {
+        Arrays.fill(values, null);
+    }
+
+    @Override
+    protected void onRelease(int cell) {
+        values[cell] = null;
+    }
+
+    private final class ValueIterator implements Iterator<V> {
+
+        private int cell = head;
+
+        private int lastCell = NIL;
+
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            checkModCount(expectedModCount);
+
+            return NIL != cell;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            checkModCount(expectedModCount);
+            if (NIL == cell) {
+                throw new NoSuchElementException();
+            }
+
+            lastCell = cell;
+            cell = LongLinkedMap.this.next[cell];
+
+            return (V) values[lastCell];
+        }
+
+        @Override
+        public void remove() {
+            if (NIL == lastCell) {
+                throw new IllegalStateException();
+            }
+
+            checkModCount(expectedModCount);
+            release(lastCell);
+            lastCell = NIL;
+            expectedModCount = modCount;
+        }
+
+    }
+
+}
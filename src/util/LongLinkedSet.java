@@ -0,0 +1,101 @@
+package util;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.LongConsumer;
+
+/**
+ * Множество значений {@code long} без упаковки с обходом в порядке вставки: добавление, проверка и удаление за O(1).
+ */
+public final class LongLinkedSet extends LongLinkedIndex {
+
+    // Возвращает false, если значение уже есть
+    public boolean add(long value) {
+        int oldSize = size;
+        findOrInsert(value);
+
+        return oldSize != size;
+    }
+
+    public boolean contains(long value) {
+        return NIL != find(value);
+    }
+
+    public boolean remove(long value) {
+        int cell = find(value);
+        if (NIL == cell) {
+            return false;
+        }
+
+        release(cell);
+
+        return true;
+    }
+
+    public void forEach(LongConsumer action) {
+        int expectedModCount = modCount;
+        for (int cell = head; NIL != cell; cell = next[cell]) {
+            action.accept(keys[cell]);
+            checkModCount(expectedModCount);
+        }
+    }
+
+    // Неизменяемое представление в виде списка; доступ по индексу идёт по связям с ближайшего конца
+    public List<Long> asList() {
+        return new AbstractList<>() {
+            @Override
+            public Long get(int index) {
+                return keys[cellAt(index)];
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public Iterator<Long> iterator() {
+                return new Iterator<>() {
+                    private int cell = head;
+
+                    private final int expectedModCount = LongLinkedSet.this.modCount;
+
+                    @Override
+                    public boolean hasNext() {
+                        checkModCount(expectedModCount);
+
+                        return NIL != cell;
+                    }
+
+                    @Override
+                    public Long next() {
+                        checkModCount(expectedModCount);
+                        if (NIL == cell) {
+                            throw new NoSuchElementException();
+                        }
+
+                        long value = keys[cell];
+                        cell = LongLinkedSet.this.next[cell];
+
+                        return value;
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    protected void onGrow(int capacity) {
+    }
+
+    @Override
+    protected void onClear() {
+    }
+
+    @Override
+    protected void onRelease(int cell) {
+    }
+
+}
@@ -81,4 +81,20 @@ class EpicTest {
         );
     }
 
-}
\ No newline at end of file
+    @Test
+    void testShareSubtaskIdsCopiesOnWrite() {
+        final Epic epic = new Epic(1L, "Title", "Description", TaskStatus.NEW);
+        final List<Long> sharedIds = List.of(2L, 3L);
+        epic.shareSubtaskIds(sharedIds);
+
+        assertSame(sharedIds, epic.getSubtaskIds());
+        assertTrue(epic.containsSubtask(3L));
+
+        epic.addSubtask(4L);
+        epic.deleteSubtask(2L);
+
+        assertEquals(List.of(2L, 3L), sharedIds);
+        assertEquals(List.of(3L, 4L), epic.getSubtaskIds());
+    }
+
+}
@@ -0,0 +1,152 @@
+package model;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Замер записи и чтения снимка в строках в секунду: прежний путь ({@code String.format} и {@code split}) против
+ * {@link TaskCsvWriter} и {@link TaskCsvReader}. Не тест - запускается вручную:
+ * <p>
+ * {@code java -cp <классы src и test> model.TaskCsvBenchmark [строк] [раундов]}
+ * <p>
+ * По умолчанию миллион строк и три раунда; первые раунды прогревают JIT, смотреть стоит на последний.
+ */
+public final class TaskCsvBenchmark {
+
+    private static final int DEFAULT_ROWS = 1_000_000;
+
+    private static final int DEFAULT_ROUNDS = 3;
+
+    private TaskCsvBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ROWS;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ROUNDS;
+
+        List<Task> tasks = new ArrayList<>(rows);
+        LocalDateTime startTime = LocalDateTime.of(2025, 1, 1, 0, 0);
+        for (int i = 1; i <= rows; i++) {
+            tasks.add(new Task((long) i, "Task " + i, "Description of task " + i, TaskStatus.NEW,
+                    startTime.plusMinutes(i * 2L), Duration.ofMinutes(1)));
+        }
+
+        Path file = Files.createTempFile("tasks", ".csv");
+        try {
+            for (int round = 1; round <= rounds; round++) {
+                long legacyWrite = time(() -> writeLegacy(file, tasks));
+                long legacyRead = time(() -> check(rows, readLegacy(file)));
+                long codecWrite = time(() -> writeCodec(file, tasks));
+                long codecRead = time(() -> check(rows, readCodec(file)));
+
+                System.out.printf("round %d: legacy write %s, read %s; codec write %s, read %s rows/s%n", round,
+                        rate(rows, legacyWrite), rate(rows, legacyRead), rate(rows, codecWrite), rate(rows, codecRead));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void writeLegacy(Path file, List<Task> tasks) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (Task task : tasks) {
+                writer.write(legacyRow(task));
+                writer.newLine();
+            }
+        }
+    }
+
+    private static int readLegacy(Path file) throws IOException {
+        int count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            for (String line = reader.readLine(); null != line; line = reader.readLine()) {
+                legacyParse(line);
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    private static void writeCodec(Path file, List<Task> tasks) throws IOException {
+        try (TaskCsvWriter writer = new TaskCsvWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            for (Task task : tasks) {
+                writer.writeRow(task);
+            }
+        }
+    }
+
+    private static int readCodec(Path file) throws IOException {
+        int count = 0;
+        try (TaskCsvReader reader = new TaskCsvReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+            while (reader.next()) {
+                reader.readTask(0);
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    // Строка в формате Task.toCSVString до перехода на кодек
+    private static String legacyRow(Task task) {
+        return String.format("%d,%s,%s,%s,%s,%s,%s,%s,%s", task.getId(), task.getType().name(), task.getTitle(),
+                task.getStatus().name(), task.getDescription(), null, task.getStartTime(), task.getDurationMinutes(),
+                null);
+    }
+
+    // Разбор строки, как в FileBackedTaskManager до перехода на кодек
+    private static Task legacyParse(String line) {
+        List<String> data = Arrays.stream(line.split(","))
+                .map(value -> "null".equalsIgnoreCase(value) ? null : value)
+                .toList();
+
+        Long id = Long.parseLong(data.get(0));
+        TaskType type = TaskType.valueOf(data.get(1));
+        TaskStatus status = TaskStatus.valueOf(data.get(3));
+        Long epicId = null != data.get(5) ? Long.parseLong(data.get(5)) : null;
+        LocalDateTime startTime = null != data.get(6) ? LocalDateTime.parse(data.get(6)) : null;
+        Duration duration = null != data.get(7) ? Duration.ofMinutes(Long.parseLong(data.get(7))) : null;
+        LocalDateTime endTime = null != data.get(8) ? LocalDateTime.parse(data.get(8)) : null;
+
+        return switch (type) {
+            case TaskType.TASK -> new Task(id, data.get(2), data.get(4), status, startTime, duration);
+            case TaskType.SUBTASK -> new Subtask(id, data.get(2), data.get(4), status, epicId, startTime, duration);
+            case TaskType.EPIC -> new Epic(id, data.get(2), data.get(4), status, endTime);
+        };
+    }
+
+    private static void check(int expected, int actual) {
+        if (expected != actual) {
+            throw new IllegalStateException("Read " + actual + " rows instead of " + expected);
+        }
+    }
+
+    private static long time(Step step) throws IOException {
+        long start = System.nanoTime();
+        step.run();
+
+        return System.nanoTime() - start;
+    }
+
+    private static String rate(int rows, long nanos) {
+        return String.format("%,.0f", rows / (nanos / 1e9));
+    }
+
+    @FunctionalInterface
+    private interface Step {
+
+        void run() throws IOException;
+
+    }
+
+}
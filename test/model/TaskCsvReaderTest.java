@@ -0,0 +1,123 @@
+package model;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskCsvReaderTest {
+
+    @Test
+    void shouldReadTasks() throws IOException {
+        TaskCsvReader reader = TaskCsvReader.of(String.format(
+                "%s%n%s%n%s%n",
+                "1,TASK,Task1,NEW,Description task1,null,2025-03-25T20:57:26.098771533,60,null",
+                "2,EPIC,Epic2,DONE,Description epic2,null,null,null,2025-03-25T20:00",
+                "3,SUBTASK,Sub Task2,IN_PROGRESS,Description sub task3,2,2025-03-25T20:00:05,15,null"
+        ));
+
+        assertTrue(reader.next());
+        Task task = reader.readTask(0);
+        assertEquals(1L, task.getId());
+        assertEquals("Task1", task.getTitle());
+        assertEquals(LocalDateTime.parse("2025-03-25T20:57:26.098771533"), task.getStartTime());
+        assertEquals(Duration.ofMinutes(60), task.getDuration());
+
+        assertTrue(reader.next());
+        Epic epic = assertInstanceOf(Epic.class, reader.readTask(0));
+        assertEquals(TaskStatus.DONE, epic.getStatus());
+        assertEquals(LocalDateTime.of(2025, 3, 25, 20, 0), epic.getEndTime());
+
+        assertTrue(reader.next());
+        Subtask subtask = assertInstanceOf(Subtask.class, reader.readTask(0));
+        assertEquals(2L, subtask.getEpicId());
+        assertEquals(TaskStatus.IN_PROGRESS, subtask.getStatus());
+        assertEquals(LocalDateTime.of(2025, 3, 25, 20, 0, 5), subtask.getStartTime());
+
+        assertFalse(reader.next());
+    }
+
+    @Test
+    void shouldReadQuotedValues() throws IOException {
+        Task task = new Task(1L, "Title, with comma", "Line 1\r\nLine \"2\"", TaskStatus.NEW);
+        Task nullTitle = new Task(2L, "null", null, TaskStatus.NEW);
+
+        TaskCsvReader reader = TaskCsvReader.of(task.toCSVString() + "\n" + nullTitle.toCSVString());
+
+        assertTrue(reader.next());
+        Task restored = reader.readTask(0);
+        assertEquals("Title, with comma", restored.getTitle());
+        assertEquals("Line 1\r\nLine \"2\"", restored.getDescription());
+
+        assertTrue(reader.next());
+        restored = reader.readTask(0);
+        assertEquals("null", restored.getTitle());
+        assertNull(restored.getDescription());
+
+        assertFalse(reader.next());
+    }
+
+    @Test
+    void shouldReadRowsAcrossBufferBoundaries() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        for (long id = 1; id <= 100; id++) {
+            csv.append(new Task(id, "Task " + id, "Description, \"quoted\"\n" + id, TaskStatus.NEW).toCSVString())
+                    .append("\r\n");
+        }
+
+        List<Task> tasks = new ArrayList<>();
+        try (TaskCsvReader reader = new TaskCsvReader(new StringReader(csv.toString()), 16)) {
+            while (reader.next()) {
+                tasks.add(reader.readTask(0));
+            }
+        }
+
+        assertEquals(100, tasks.size());
+        assertEquals("Task 100", tasks.getLast().getTitle());
+        assertEquals("Description, \"quoted\"\n100", tasks.getLast().getDescription());
+    }
+
+    @Test
+    void shouldSkipEmptyLinesAndExposeFields() throws IOException {
+        TaskCsvReader reader = TaskCsvReader.of("\n\nMOVE,3,5\n\nCLEAR,TASK");
+
+        assertTrue(reader.next());
+        assertEquals(3, reader.getFieldCount());
+        assertEquals("MOVE", reader.getString(0));
+        assertEquals(3L, reader.getLongValue(1));
+        assertEquals("MOVE,3,5", reader.getRowText());
+
+        assertTrue(reader.next());
+        assertEquals(TaskType.TASK, reader.getType(1));
+
+        assertFalse(reader.next());
+    }
+
+    @Test
+    void shouldReadFromByteBuffer() throws IOException {
+        Task task = new Task(1L, "Задача, с запятой", "Описание 😀\nв две строки", TaskStatus.NEW);
+        ByteBuffer bytes = ByteBuffer.wrap((task.toCSVString() + "\n").getBytes(StandardCharsets.UTF_8));
+
+        try (TaskCsvReader reader = TaskCsvReader.of(bytes)) {
+            assertTrue(reader.next());
+            Task restored = reader.readTask(0);
+            assertEquals("Задача, с запятой", restored.getTitle());
+            assertEquals("Описание 😀\nв две строки", restored.getDescription());
+
+            assertFalse(reader.next());
+        }
+    }
+
+}
@@ -0,0 +1,74 @@
+package model;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TaskCsvWriterTest {
+
+    @Test
+    void shouldWriteSameFormatAsBefore() {
+        assertEquals("1,TASK,Task1,NEW,Description task1,null,2025-03-25T20:57:26.098771533,60,null",
+                new Task(1L, "Task1", "Description task1", TaskStatus.NEW,
+                        LocalDateTime.parse("2025-03-25T20:57:26.098771533"), Duration.ofMinutes(60)).toCSVString());
+        assertEquals("2,EPIC,Epic2,DONE,Description epic2,null,null,null,2025-03-25T20:00",
+                new Epic(2L, "Epic2", "Description epic2", TaskStatus.DONE,
+                        LocalDateTime.of(2025, 3, 25, 20, 0)).toCSVString());
+        assertEquals("3,SUBTASK,Sub Task2,DONE,Description sub task3,2,2025-03-25T20:00:05,15,null",
+                new Subtask(3L, "Sub Task2", "Description sub task3", TaskStatus.DONE, 2L,
+                        LocalDateTime.of(2025, 3, 25, 20, 0, 5), Duration.ofMinutes(15)).toCSVString());
+    }
+
+    @Test
+    void shouldWriteDateTimeLikeLocalDateTime() {
+        LocalDateTime[] dateTimes = {
+                LocalDateTime.of(2025, 1, 2, 3, 4),
+                LocalDateTime.of(2025, 1, 2, 3, 4, 5),
+                LocalDateTime.of(2025, 1, 2, 3, 4, 0, 120_000_000),
+                LocalDateTime.of(2025, 1, 2, 3, 4, 5, 123_456_000),
+                LocalDateTime.of(2025, 1, 2, 3, 4, 5, 1),
+                LocalDateTime.of(12, 1, 2, 3, 4),
+                LocalDateTime.of(12345, 1, 2, 3, 4)
+        };
+
+        for (LocalDateTime dateTime : dateTimes) {
+            Task task = new Task(1L, "Task", "Task description", TaskStatus.NEW, dateTime, Duration.ofMinutes(1));
+
+            assertEquals("1,TASK,Task,NEW,Task description,null," + dateTime + ",1,null", task.toCSVString());
+        }
+    }
+
+    @Test
+    void shouldQuoteSpecialValues() {
+        Task task = new Task(1L, "Title, with comma", "Line 1\nLine \"2\"", TaskStatus.NEW);
+
+        assertEquals("1,TASK,\"Title, with comma\",NEW,\"Line 1\nLine \"\"2\"\"\",null,null,null,null",
+                task.toCSVString());
+        assertEquals("2,TASK,\"null\",NEW,null,null,null,null,null",
+                new Task(2L, "null", null, TaskStatus.NEW).toCSVString());
+    }
+
+    @Test
+    void shouldWriteHeaderAndRows() throws IOException {
+        StringWriter out = new StringWriter();
+
+        try (TaskCsvWriter writer = new TaskCsvWriter(out)) {
+            writer.writeHeader();
+            writer.writeRow(new Task(1L, "Task1", "Description task1", TaskStatus.NEW));
+            writer.writeRow(new Epic(2L, "Epic2", "Description epic2", TaskStatus.NEW));
+        }
+
+        assertEquals(String.format(
+                "%s%s%n%s%n",
+                Task.CSV_HEADER,
+                "1,TASK,Task1,NEW,Description task1,null,null,null,null",
+                "2,EPIC,Epic2,NEW,Description epic2,null,null,null,null"
+        ), out.toString());
+    }
+
+}
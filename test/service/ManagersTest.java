@@ -2,6 +2,10 @@ package service;
 
 import org.junit.jupiter.api.Test;
 
+import service.impl.ArrayHistoryManager;
+import service.impl.ConcurrentTaskManager;
+import service.impl.HistoryPolicy;
+
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
@@ -15,6 +19,15 @@ class ManagersTest {
         assertInstanceOf(TaskManager.class, taskManager);
     }
 
+    @Test
+    void getConcurrent() {
+        final TaskManager taskManager = Managers.getConcurrent();
+
+        assertNotNull(taskManager);
+        assertInstanceOf(ConcurrentTaskManager.class, taskManager);
+        assertNotNull(((ConcurrentTaskManager) Managers.getConcurrent(true)).snapshot());
+    }
+
     @Test
     void getDefaultHistory() {
         final HistoryManager historyManager = Managers.getDefaultHistory();
@@ -22,4 +35,12 @@ class ManagersTest {
         assertNotNull(historyManager);
         assertInstanceOf(HistoryManager.class, historyManager);
     }
-}
\ No newline at end of file
+
+    @Test
+    void getArrayHistory() {
+        final HistoryManager historyManager = Managers.getArrayHistory(HistoryPolicy.unbounded());
+
+        assertNotNull(historyManager);
+        assertInstanceOf(ArrayHistoryManager.class, historyManager);
+    }
+}
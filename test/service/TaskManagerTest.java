@@ -2,7 +2,11 @@ package service;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.junit.jupiter.api.Assertions;
@@ -12,10 +16,14 @@ import model.Epic;
 import model.Subtask;
 import model.Task;
 import model.TaskStatus;
+import model.TaskType;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public abstract class TaskManagerTest<T extends TaskManager> {
 
@@ -261,6 +269,48 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         assertEquals(TaskStatus.IN_PROGRESS, epic2.getStatus());
     }
 
+    @Test
+    void shouldMoveSubtaskToOtherEpic() {
+        final Epic epic1 = taskManager.createEpic(new Epic("Epic 1", "Epic 1 description"));
+        final Epic epic2 = taskManager.createEpic(new Epic("Epic 2", "Epic 2 description"));
+
+        LocalDateTime localDateTime = LocalDateTime.of(2025, 3, 25, 16, 15);
+        Subtask subtask1 = taskManager.createSubtask(new Subtask("Subtask 1", "Subtask 1 description", epic1.getId(),
+                localDateTime, Duration.ofMinutes(30)));
+        Subtask subtask2 = taskManager.createSubtask(new Subtask("Subtask 2", "Subtask 2 description", epic1.getId()));
+        subtask2 = updateSubtaskStatus(subtask2, TaskStatus.DONE);
+
+        assertEquals(TaskStatus.IN_PROGRESS, epic1.getStatus());
+
+        Subtask moved = taskManager.moveSubtask(subtask1.getId(), epic2.getId());
+
+        assertNotNull(moved);
+        assertEquals(epic2.getId(), moved.getEpicId());
+        assertEquals(epic2.getId(), taskManager.getSubtask(subtask1.getId()).getEpicId());
+        assertEquals(1, taskManager.getEpicSubtasks(epic1).size());
+        assertEquals(subtask2, taskManager.getEpicSubtasks(epic1).getFirst());
+        assertEquals(TaskStatus.DONE, epic1.getStatus());
+        assertNull(epic1.getStartTime());
+        assertEquals(1, taskManager.getEpicSubtasks(epic2).size());
+        assertEquals(localDateTime, epic2.getStartTime());
+        assertEquals(1, taskManager.getPrioritizedTasks().size());
+
+        taskManager.deleteSubtask(subtask1.getId());
+
+        assertEquals(0, taskManager.getEpicSubtasks(epic2).size());
+        assertNull(epic2.getStartTime());
+    }
+
+    @Test
+    void shouldNotMoveSubtaskToEpicThatNotExist() {
+        final Epic epic = taskManager.createEpic(new Epic("Epic", "Epic description"));
+        final Subtask subtask = taskManager.createSubtask(new Subtask("Subtask", "Subtask description", epic.getId()));
+
+        assertNull(taskManager.moveSubtask(subtask.getId(), 999L));
+        assertNull(taskManager.moveSubtask(999L, epic.getId()));
+        assertEquals(1, taskManager.getEpicSubtasks(epic).size());
+    }
+
     @Test
     void shouldNotDeleteTaskThatNotExist() {
         taskManager.createTask(new Task("Task", "Task description"));
@@ -451,7 +501,7 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         Assertions.assertEquals(TaskStatus.NEW, epic.getStatus());
         Assertions.assertEquals(LocalDateTime.of(2025, 3, 23, 16, 15), epic.getStartTime());
         Assertions.assertEquals(Duration.ofMinutes(180), epic.getDuration());
-        Assertions.assertEquals(LocalDateTime.of(2025, 3, 26, 16, 15), epic.getEndTime());
+        Assertions.assertEquals(LocalDateTime.of(2025, 3, 26, 18, 15), epic.getEndTime());
 
         subtask2 = updateSubtaskStatus(subtask2, TaskStatus.DONE);
         Assertions.assertNotNull(subtask2);
@@ -474,6 +524,39 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         Assertions.assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus());
     }
 
+    @Test
+    void shouldUpdateEpicTimeOnSubtaskChanges() {
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Epic description"));
+
+        LocalDateTime localDateTime = LocalDateTime.of(2025, 3, 25, 16, 15);
+
+        Subtask subtask1 = taskManager.createSubtask(new Subtask("Subtask 1", "Subtask 1 description", epic.getId(), localDateTime, Duration.ofMinutes(60)));
+        Subtask subtask2 = taskManager.createSubtask(new Subtask("Subtask 2", "Subtask 2 description", epic.getId(), localDateTime.plusDays(1), Duration.ofMinutes(30)));
+        Assertions.assertNotNull(subtask1);
+        Assertions.assertNotNull(subtask2);
+
+        taskManager.deleteSubtask(subtask2.getId());
+
+        Assertions.assertEquals(localDateTime, epic.getStartTime());
+        Assertions.assertEquals(Duration.ofMinutes(60), epic.getDuration());
+        Assertions.assertEquals(localDateTime.plusMinutes(60), epic.getEndTime());
+
+        taskManager.updateSubtask(new Subtask(subtask1.getId(), "Subtask 1", "Subtask 1 description", TaskStatus.DONE,
+                epic.getId(), localDateTime.minusDays(1), Duration.ofMinutes(90)));
+
+        Assertions.assertEquals(TaskStatus.DONE, epic.getStatus());
+        Assertions.assertEquals(localDateTime.minusDays(1), epic.getStartTime());
+        Assertions.assertEquals(Duration.ofMinutes(90), epic.getDuration());
+        Assertions.assertEquals(localDateTime.minusDays(1).plusMinutes(90), epic.getEndTime());
+
+        taskManager.deleteSubtasks();
+
+        Assertions.assertEquals(TaskStatus.NEW, epic.getStatus());
+        Assertions.assertNull(epic.getStartTime());
+        Assertions.assertNull(epic.getDuration());
+        Assertions.assertNull(epic.getEndTime());
+    }
+
     @Test
     void shouldNotAddIntersectedTasks() {
         Task task1 = taskManager.createTask(new Task("Task 1", "Task 1 description", LocalDateTime.now(), Duration.ofMinutes(10)));
@@ -561,6 +644,566 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         );
     }
 
+    @Test
+    void shouldNotUpdateTaskIntersectedWithOtherTask() {
+        LocalDateTime localDateTime = LocalDateTime.of(2025, 3, 25, 16, 15);
+
+        Task task1 = taskManager.createTask(new Task("Task 1", "Task 1 description", localDateTime, Duration.ofMinutes(30)));
+        Task task2 = taskManager.createTask(new Task("Task 2", "Task 2 description", localDateTime.plusHours(1), Duration.ofMinutes(30)));
+        assertNotNull(task1);
+        assertNotNull(task2);
+
+        assertNull(taskManager.updateTask(new Task(task2.getId(), "Task 2", "Task 2 description", TaskStatus.NEW,
+                localDateTime.plusMinutes(20), Duration.ofMinutes(30))));
+
+        Task updated = taskManager.updateTask(new Task(task2.getId(), "Task 2", "Task 2 description", TaskStatus.NEW,
+                localDateTime.plusMinutes(50), Duration.ofMinutes(30)));
+        assertNotNull(updated);
+        assertEquals(2, taskManager.getPrioritizedTasks().size());
+
+        assertNull(taskManager.createTask(new Task("Task 3", "Task 3 description", localDateTime.plusMinutes(70), Duration.ofMinutes(10))));
+        assertNotNull(taskManager.createTask(new Task("Task 4", "Task 4 description", localDateTime.plusMinutes(85), Duration.ofMinutes(10))));
+    }
+
+    @Test
+    void shouldNotUpdateSubtaskIntersectedWithOtherTask() {
+        LocalDateTime localDateTime = LocalDateTime.of(2025, 3, 25, 16, 15);
+
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Epic description"));
+        taskManager.createTask(new Task("Task", "Task description", localDateTime, Duration.ofMinutes(30)));
+        Subtask subtask = taskManager.createSubtask(new Subtask("Subtask", "Subtask description", epic.getId(),
+                localDateTime.plusHours(1), Duration.ofMinutes(30)));
+        assertNotNull(subtask);
+
+        assertNull(taskManager.updateSubtask(new Subtask(subtask.getId(), "Subtask", "Subtask description",
+                TaskStatus.DONE, epic.getId(), localDateTime.plusMinutes(10), Duration.ofMinutes(30))));
+        assertNotNull(taskManager.updateSubtask(new Subtask(subtask.getId(), "Subtask", "Subtask description",
+                TaskStatus.DONE, epic.getId(), localDateTime.plusMinutes(40), Duration.ofMinutes(30))));
+    }
+
+    @Test
+    void shouldRemoveEpicSubtasksFromPrioritizedTasks() {
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Epic description"));
+        taskManager.createSubtask(new Subtask("Subtask", "Subtask description", epic.getId(),
+                LocalDateTime.of(2025, 3, 25, 16, 15), Duration.ofMinutes(30)));
+        assertEquals(1, taskManager.getPrioritizedTasks().size());
+
+        taskManager.deleteEpic(epic.getId());
+
+        assertEquals(0, taskManager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void shouldAcceptPrimitiveAndBoxedIds() {
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Epic description"));
+        Subtask subtask = taskManager.createSubtask(new Subtask("Subtask", "Subtask description", epic.getId()));
+        long subtaskId = subtask.getId();
+
+        assertEquals(subtask, taskManager.getSubtask(subtaskId));
+        assertEquals(subtask, taskManager.getSubtask(Long.valueOf(subtaskId)));
+        assertNull(taskManager.getSubtask((Long) null));
+        assertNull(taskManager.getTask((Long) null));
+
+        taskManager.deleteSubtask(subtaskId);
+
+        assertNull(taskManager.getSubtask(subtaskId));
+        assertEquals(0, taskManager.getEpic(epic.getId().longValue()).getSubtaskIds().size());
+        assertEquals(List.of(epic), taskManager.getHistory());
+    }
+
+    @Test
+    void shouldNotUpdateOrDeleteByNullId() {
+        Task task = taskManager.createTask(new Task("Task", "Task description"));
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Epic description"));
+        Subtask subtask = taskManager.createSubtask(new Subtask("Subtask", "Subtask description", epic.getId()));
+
+        assertNull(taskManager.updateTask(new Task(null, "Task", "Task description", TaskStatus.DONE)));
+        assertNull(taskManager.updateEpic(new Epic(null, "Epic", "Epic description", TaskStatus.DONE)));
+        assertNull(taskManager.updateSubtask(new Subtask(null, "Subtask", "Subtask description", TaskStatus.DONE,
+                epic.getId())));
+        assertNull(taskManager.updateSubtask(new Subtask(null, "Subtask", "Subtask description", TaskStatus.DONE,
+                null)));
+        assertNull(taskManager.moveSubtask(null, epic.getId()));
+        assertNull(taskManager.moveSubtask(subtask.getId(), null));
+
+        taskManager.deleteTask(null);
+        taskManager.deleteEpic(null);
+        taskManager.deleteSubtask(null);
+
+        assertEquals(List.of(task), taskManager.getTasks());
+        assertEquals(List.of(epic), taskManager.getEpics());
+        assertEquals(List.of(subtask), taskManager.getSubtasks());
+        assertEquals(TaskStatus.NEW, taskManager.getEpic(epic.getId()).getStatus());
+    }
+
+    @Test
+    void shouldPageTasksByIdWithoutSkippingOnInserts() {
+        for (int i = 0; i < 5; i++) {
+            taskManager.createTask(new Task("Task " + i, "Task description"));
+        }
+
+        Page<Task> first = taskManager.getTasks(null, 2, TaskSort.ID);
+        assertEquals(List.of(1L, 2L), first.getItems().stream().map(Task::getId).toList());
+        assertTrue(first.hasNext());
+
+        taskManager.deleteTask(1L);
+        taskManager.createTask(new Task("Task 5", "Task description"));
+
+        Page<Task> second = taskManager.getTasks(first.getNextCursor(), 2, TaskSort.ID);
+        assertEquals(List.of(3L, 4L), second.getItems().stream().map(Task::getId).toList());
+
+        Page<Task> third = taskManager.getTasks(second.getNextCursor(), 2, TaskSort.ID);
+        assertEquals(List.of(5L, 6L), third.getItems().stream().map(Task::getId).toList());
+        assertFalse(third.hasNext());
+    }
+
+    @Test
+    void shouldPageSubtasksByStartTimeAndStatus() {
+        LocalDateTime localDateTime = LocalDateTime.of(2025, 3, 25, 16, 15);
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Epic description"));
+        Subtask late = taskManager.createSubtask(new Subtask("Late", "Subtask description", epic.getId(),
+                localDateTime.plusHours(2), Duration.ofMinutes(30)));
+        Subtask unscheduled = taskManager.createSubtask(new Subtask("Unscheduled", "Subtask description",
+                epic.getId()));
+        Subtask early = taskManager.createSubtask(new Subtask("Early", "Subtask description", epic.getId(),
+                localDateTime, Duration.ofMinutes(30)));
+        updateSubtaskStatus(late, TaskStatus.DONE);
+        updateSubtaskStatus(unscheduled, TaskStatus.IN_PROGRESS);
+        taskManager.createTask(new Task("Task", "Task description", localDateTime.plusHours(1),
+                Duration.ofMinutes(30)));
+
+        List<Long> byStartTime = new ArrayList<>();
+        String cursor = null;
+        do {
+            Page<Subtask> page = taskManager.getSubtasks(cursor, 1, TaskSort.START_TIME);
+            page.getItems().forEach(subtask -> byStartTime.add(subtask.getId()));
+            cursor = page.getNextCursor();
+        } while (null != cursor);
+
+        assertEquals(List.of(early.getId(), late.getId(), unscheduled.getId()), byStartTime);
+
+        Page<Subtask> byStatus = taskManager.getEpicSubtasks(epic, null, 10, TaskSort.STATUS);
+        assertEquals(List.of(early.getId(), unscheduled.getId(), late.getId()),
+                byStatus.getItems().stream().map(Subtask::getId).toList());
+        assertFalse(byStatus.hasNext());
+    }
+
+    @Test
+    void shouldKeepSeparateHistoryPerUser() {
+        Task task = taskManager.createTask(new Task("Task", "Task description"));
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Epic description"));
+        Subtask subtask = taskManager.createSubtask(new Subtask("Subtask", "Subtask description", epic.getId()));
+
+        taskManager.getTask(task.getId(), "alice");
+        taskManager.getSubtask(subtask.getId(), "alice");
+        taskManager.getEpic(epic.getId(), "bob");
+        taskManager.getTask(task.getId());
+
+        assertEquals(List.of(task, subtask), taskManager.getHistory("alice"));
+        assertEquals(List.of(epic), taskManager.getHistory("bob"));
+        assertEquals(List.of(task), taskManager.getHistory());
+        assertNull(taskManager.getTask(null, "alice"));
+        assertNull(taskManager.getSubtask(epic.getId(), "carol"));
+        assertEquals(List.of(), taskManager.getHistory("carol"));
+
+        taskManager.deleteEpic(epic.getId());
+
+        assertEquals(List.of(task), taskManager.getHistory("alice"));
+        assertEquals(List.of(), taskManager.getHistory("bob"));
+    }
+
+    @Test
+    void shouldSeekPagesFromDeletedOrMovedCursor() {
+        LocalDateTime localDateTime = LocalDateTime.of(2025, 3, 25, 16, 15);
+        for (int i = 0; i < 6; i++) {
+            taskManager.createTask(new Task("Task " + i, "Task description"));
+        }
+        taskManager.updateTask(new Task(2L, "Task 1", "Task description", TaskStatus.DONE));
+        taskManager.updateTask(new Task(5L, "Task 4", "Task description", TaskStatus.DONE));
+
+        Page<Task> first = taskManager.getTasks(null, 3, TaskSort.STATUS);
+        assertEquals(List.of(1L, 3L, 4L), first.getItems().stream().map(Task::getId).toList());
+
+        taskManager.deleteTask(4L);
+        taskManager.updateTask(new Task(6L, "Task 5", "Task description", TaskStatus.IN_PROGRESS));
+
+        Page<Task> second = taskManager.getTasks(first.getNextCursor(), 3, TaskSort.STATUS);
+        assertEquals(List.of(6L, 2L, 5L), second.getItems().stream().map(Task::getId).toList());
+        assertFalse(second.hasNext());
+
+        Page<Task> unscheduled = taskManager.getTasks(null, 2, TaskSort.START_TIME);
+        assertEquals(List.of(1L, 2L), unscheduled.getItems().stream().map(Task::getId).toList());
+
+        taskManager.updateTask(new Task(3L, "Task 2", "Task description", TaskStatus.NEW, localDateTime,
+                Duration.ofMinutes(30)));
+
+        Page<Task> tail = taskManager.getTasks(unscheduled.getNextCursor(), 2, TaskSort.START_TIME);
+        assertEquals(List.of(5L, 6L), tail.getItems().stream().map(Task::getId).toList());
+        assertFalse(tail.hasNext());
+    }
+
+    @Test
+    void shouldRejectInvalidPageRequests() {
+        taskManager.createTask(new Task("Task", "Task description"));
+        taskManager.createTask(new Task("Task", "Task description"));
+        String cursor = taskManager.getTasks(null, 1, TaskSort.ID).getNextCursor();
+
+        assertThrows(IllegalArgumentException.class, () -> taskManager.getTasks(null, 0, TaskSort.ID));
+        assertThrows(IllegalArgumentException.class, () -> taskManager.getTasks(cursor, 1, TaskSort.STATUS));
+        assertThrows(IllegalArgumentException.class, () -> taskManager.getTasks("ID::x", 1, TaskSort.ID));
+    }
+
+    @Test
+    void shouldStreamTasksLazily() {
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Epic description"));
+        taskManager.createSubtask(new Subtask("Subtask", "Subtask description", epic.getId()));
+        taskManager.createTask(new Task("Task", "Task description"));
+
+        assertEquals(1, taskManager.streamTasks().count());
+        assertEquals(1, taskManager.streamSubtasks().count());
+    }
+
+    @Test
+    void shouldCreateTasksInBatchAndRejectIntersections() {
+        LocalDateTime localDateTime = LocalDateTime.of(2025, 3, 25, 16, 15);
+        taskManager.createTask(new Task("Existing", "Task description", localDateTime, Duration.ofMinutes(30)));
+
+        BatchResult<Task> result = taskManager.createTasks(List.of(
+                new Task("Late", "Task description", localDateTime.plusHours(2), Duration.ofMinutes(30)),
+                new Task("Clash with existing", "Task description", localDateTime.plusMinutes(10),
+                        Duration.ofMinutes(10)),
+                new Task("Unscheduled", "Task description"),
+                new Task("Clash with late", "Task description", localDateTime.plusHours(2).plusMinutes(15),
+                        Duration.ofMinutes(30)),
+                new Task("Early", "Task description", localDateTime.minusHours(1), Duration.ofMinutes(30))
+        ));
+
+        assertEquals(5, result.size());
+        assertEquals(List.of(true, false, true, false, true),
+                List.of(result.isAccepted(0), result.isAccepted(1), result.isAccepted(2), result.isAccepted(3),
+                        result.isAccepted(4)));
+        assertNotNull(result.getRejection(1));
+        assertNull(result.get(1));
+        assertEquals(2, result.getRejectedCount());
+        assertEquals(4, taskManager.getTasks().size());
+        assertEquals(3, taskManager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void shouldCreateSubtasksInBatchAndRefreshEpics() {
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Epic description"));
+
+        BatchResult<Subtask> result = taskManager.createSubtasks(List.of(
+                new Subtask("Subtask", "Subtask description", epic.getId()),
+                new Subtask("Orphan", "Subtask description", 999L),
+                new Subtask("Subtask", "Subtask description", epic.getId(), LocalDateTime.of(2025, 3, 25, 16, 15),
+                        Duration.ofMinutes(30))
+        ));
+
+        assertEquals(2, result.getAccepted().size());
+        assertFalse(result.isAccepted(1));
+        assertEquals(2, taskManager.getEpicSubtasks(taskManager.getEpic(epic.getId())).size());
+        assertEquals(LocalDateTime.of(2025, 3, 25, 16, 15), taskManager.getEpic(epic.getId()).getStartTime());
+    }
+
+    @Test
+    void shouldUpdateAllInBatch() {
+        LocalDateTime localDateTime = LocalDateTime.of(2025, 3, 25, 16, 15);
+        Task first = taskManager.createTask(new Task("First", "Task description", localDateTime,
+                Duration.ofMinutes(30)));
+        Task second = taskManager.createTask(new Task("Second", "Task description", localDateTime.plusHours(1),
+                Duration.ofMinutes(30)));
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Epic description"));
+        Subtask subtask = taskManager.createSubtask(new Subtask("Subtask", "Subtask description", epic.getId()));
+
+        BatchResult<Task> result = taskManager.updateAll(List.of(
+                new Task(first.getId(), "First", "Task description", TaskStatus.DONE, localDateTime.plusHours(2),
+                        Duration.ofMinutes(30)),
+                new Task(second.getId(), "Second", "Task description", TaskStatus.DONE, localDateTime.plusHours(2),
+                        Duration.ofMinutes(10)),
+                new Subtask(subtask.getId(), "Subtask", "Subtask description", TaskStatus.DONE, epic.getId()),
+                new Epic(epic.getId(), "Renamed epic", "Epic description", TaskStatus.NEW),
+                new Task(999L, "Missing", "Task description", TaskStatus.NEW)
+        ));
+
+        assertEquals(3, result.getAccepted().size());
+        assertFalse(result.isAccepted(1));
+        assertFalse(result.isAccepted(4));
+        assertEquals(localDateTime.plusHours(2), taskManager.getTask(first.getId()).getStartTime());
+        assertEquals(localDateTime.plusHours(1), taskManager.getTask(second.getId()).getStartTime());
+        assertEquals(2, taskManager.getPrioritizedTasks().size());
+
+        Epic updatedEpic = taskManager.getEpic(epic.getId());
+        assertEquals("Renamed epic", updatedEpic.getTitle());
+        assertEquals(TaskStatus.DONE, updatedEpic.getStatus());
+        assertEquals(List.of(subtask.getId()), updatedEpic.getSubtaskIds());
+    }
+
+    @Test
+    void shouldKeepRejectedTaskSlotInBatchUpdate() {
+        LocalDateTime localDateTime = LocalDateTime.of(2025, 3, 25, 10, 0);
+        Task first = taskManager.createTask(new Task("First", "Task description", localDateTime,
+                Duration.ofMinutes(30)));
+        Task second = taskManager.createTask(new Task("Second", "Task description", localDateTime.plusHours(2),
+                Duration.ofMinutes(30)));
+        Task third = taskManager.createTask(new Task("Third", "Task description", localDateTime.plusHours(5),
+                Duration.ofMinutes(30)));
+
+        BatchResult<Task> result = taskManager.updateAll(List.of(
+                new Task(first.getId(), "First", "Task description", TaskStatus.NEW, localDateTime.plusHours(5),
+                        Duration.ofMinutes(30)),
+                new Task(second.getId(), "Second", "Task description", TaskStatus.NEW, localDateTime,
+                        Duration.ofMinutes(30))
+        ));
+
+        assertEquals(0, result.getAccepted().size());
+        assertEquals(localDateTime, taskManager.getTask(first.getId()).getStartTime());
+        assertEquals(localDateTime.plusHours(2), taskManager.getTask(second.getId()).getStartTime());
+        assertEquals(List.of(first, second, third), List.copyOf(taskManager.getPrioritizedTasks()));
+    }
+
+    @Test
+    void shouldDeleteAllInBatch() {
+        Task task = taskManager.createTask(new Task("Task", "Task description"));
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Epic description"));
+        Epic otherEpic = taskManager.createEpic(new Epic("Epic", "Epic description"));
+        Subtask subtask = taskManager.createSubtask(new Subtask("Subtask", "Subtask description", epic.getId()));
+        Subtask doneSubtask = taskManager.createSubtask(new Subtask("Subtask", "Subtask description",
+                otherEpic.getId()));
+        Subtask newSubtask = taskManager.createSubtask(new Subtask("Subtask", "Subtask description",
+                otherEpic.getId()));
+        updateSubtaskStatus(doneSubtask, TaskStatus.DONE);
+
+        BatchResult<Task> result = taskManager.deleteAll(List.of(task.getId(), epic.getId(), newSubtask.getId(),
+                999L));
+
+        assertEquals(3, result.getAccepted().size());
+        assertFalse(result.isAccepted(3));
+        assertEquals(0, taskManager.getTasks().size());
+        assertNull(taskManager.getSubtask(subtask.getId()));
+        assertEquals(List.of(otherEpic.getId()), taskManager.getEpics().stream().map(Epic::getId).toList());
+        assertEquals(TaskStatus.DONE, taskManager.getEpic(otherEpic.getId()).getStatus());
+    }
+
+    @Test
+    void shouldQueryPrioritizedTasksByTimeRange() {
+        LocalDateTime localDateTime = LocalDateTime.of(2025, 3, 24, 9, 0);
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Epic description"));
+        List<Task> scheduled = new ArrayList<>();
+        for (int day = 6; day >= 0; day--) {
+            scheduled.add(0, 0 == day % 2
+                    ? taskManager.createTask(new Task("Task", "Task description", localDateTime.plusDays(day),
+                            Duration.ofMinutes(30)))
+                    : taskManager.createSubtask(new Subtask("Subtask", "Subtask description", epic.getId(),
+                            localDateTime.plusDays(day), Duration.ofMinutes(30))));
+        }
+        taskManager.createTask(new Task("Unscheduled", "Task description"));
+
+        assertEquals(scheduled, List.copyOf(taskManager.getPrioritizedTasks()));
+        assertEquals(scheduled.subList(1, 4), taskManager.getPrioritizedTasks(localDateTime.plusDays(1),
+                localDateTime.plusDays(4)));
+        assertEquals(List.of(), taskManager.getPrioritizedTasks(localDateTime.plusHours(1),
+                localDateTime.plusHours(1)));
+
+        assertEquals(scheduled.subList(3, 5), taskManager.getPrioritizedTasksAfter(localDateTime.plusDays(2), 2));
+        assertEquals(List.of(), taskManager.getPrioritizedTasksAfter(localDateTime.plusDays(6), 10));
+        assertEquals(List.of(scheduled.get(2), scheduled.get(1), scheduled.get(0)),
+                taskManager.getPrioritizedTasksBefore(localDateTime.plusDays(3), 10));
+        assertEquals(List.of(scheduled.get(6)), taskManager.getPrioritizedTasksBefore(LocalDateTime.MAX, 1));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> taskManager.getPrioritizedTasks(localDateTime.plusDays(1), localDateTime));
+        assertThrows(IllegalArgumentException.class, () -> taskManager.getPrioritizedTasksAfter(null, 1));
+        assertThrows(IllegalArgumentException.class, () -> taskManager.getPrioritizedTasksBefore(localDateTime, 0));
+    }
+
+    @Test
+    void shouldFindEarliestFreeSlots() {
+        LocalDateTime localDateTime = LocalDateTime.of(2025, 3, 25, 10, 0);
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Epic description"));
+        taskManager.createTask(new Task("Task", "Task description", localDateTime, Duration.ofMinutes(30)));
+        taskManager.createSubtask(new Subtask("Subtask", "Subtask description", epic.getId(),
+                localDateTime.plusMinutes(45), Duration.ofMinutes(15)));
+        taskManager.createTask(new Task("Task", "Task description", localDateTime.plusHours(2),
+                Duration.ofHours(1)));
+        Duration duration = Duration.ofMinutes(30);
+
+        assertEquals(localDateTime.minusHours(1), taskManager.findFreeSlot(duration, localDateTime.minusHours(1),
+                localDateTime.plusHours(4)));
+        assertEquals(localDateTime.plusMinutes(61), taskManager.findFreeSlot(duration,
+                localDateTime.minusMinutes(15), localDateTime.plusHours(4)));
+        assertEquals(localDateTime.plusMinutes(31), taskManager.findFreeSlot(Duration.ofMinutes(10),
+                localDateTime.plusSeconds(90), localDateTime.plusHours(4)));
+        assertNull(taskManager.findFreeSlot(duration, localDateTime.minusMinutes(15), localDateTime.plusMinutes(90)));
+
+        List<LocalDateTime> slots = taskManager.findFreeSlots(duration, localDateTime.minusMinutes(15),
+                localDateTime.plusHours(4), 10);
+        assertEquals(List.of(localDateTime.plusMinutes(61), localDateTime.plusMinutes(181)), slots);
+        assertEquals(List.of(localDateTime.plusMinutes(61)), taskManager.findFreeSlots(duration,
+                localDateTime.minusMinutes(15), localDateTime.plusHours(4), 1));
+
+        for (LocalDateTime slot : slots) {
+            assertNotNull(taskManager.createTask(new Task("Task", "Task description", slot, duration)));
+        }
+
+        assertThrows(IllegalArgumentException.class,
+                () -> taskManager.findFreeSlot(Duration.ZERO, localDateTime, localDateTime.plusHours(1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> taskManager.findFreeSlot(duration, localDateTime.plusHours(1), localDateTime));
+        assertThrows(IllegalArgumentException.class,
+                () -> taskManager.findFreeSlots(duration, localDateTime, localDateTime.plusHours(1), 0));
+    }
+
+    @Test
+    void shouldClearScheduleOfOneTypeOnly() {
+        LocalDateTime localDateTime = LocalDateTime.of(2025, 3, 25, 10, 0);
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Epic description"));
+        Epic otherEpic = taskManager.createEpic(new Epic("Epic", "Epic description"));
+        Task task = taskManager.createTask(new Task("Task", "Task description", localDateTime,
+                Duration.ofMinutes(30)));
+        Subtask subtask = taskManager.createSubtask(new Subtask("Subtask", "Subtask description", epic.getId(),
+                localDateTime.plusHours(1), Duration.ofMinutes(30)));
+        Subtask otherSubtask = taskManager.createSubtask(new Subtask("Subtask", "Subtask description",
+                otherEpic.getId(), localDateTime.plusHours(2), Duration.ofMinutes(30)));
+        Task lastTask = taskManager.createTask(new Task("Task", "Task description", localDateTime.plusHours(3),
+                Duration.ofMinutes(30)));
+
+        assertEquals(List.of(task, subtask, otherSubtask, lastTask), List.copyOf(taskManager.getPrioritizedTasks()));
+
+        taskManager.deleteEpic(epic.getId());
+
+        assertEquals(List.of(task, otherSubtask, lastTask), List.copyOf(taskManager.getPrioritizedTasks()));
+        assertNotNull(taskManager.createTask(new Task("Task", "Task description", localDateTime.plusHours(1),
+                Duration.ofMinutes(30))));
+
+        taskManager.deleteTasks();
+
+        assertEquals(List.of(otherSubtask), List.copyOf(taskManager.getPrioritizedTasks()));
+        assertEquals(List.of(otherSubtask), taskManager.getPrioritizedTasksAfter(localDateTime, 10));
+        assertNotNull(taskManager.createTask(new Task("Task", "Task description", localDateTime,
+                Duration.ofMinutes(30))));
+        assertNull(taskManager.createTask(new Task("Task", "Task description", localDateTime.plusHours(2),
+                Duration.ofMinutes(30))));
+
+        taskManager.deleteSubtasks();
+
+        assertEquals(1, taskManager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void shouldQueryAndCountByStatus() {
+        Task task = taskManager.createTask(new Task("Task", "Task description"));
+        Task doneTask = taskManager.createTask(new Task("Task", "Task description"));
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Epic description"));
+        Subtask subtask = taskManager.createSubtask(new Subtask("Subtask", "Subtask description", epic.getId()));
+        Subtask otherSubtask = taskManager.createSubtask(new Subtask("Subtask", "Subtask description",
+                epic.getId()));
+
+        taskManager.updateTask(new Task(doneTask.getId(), "Task", "Task description", TaskStatus.DONE));
+        updateSubtaskStatus(subtask, TaskStatus.IN_PROGRESS);
+
+        assertEquals(List.of(task), taskManager.getByStatus(TaskType.TASK, TaskStatus.NEW));
+        assertEquals(List.of(doneTask), taskManager.getByStatus(TaskType.TASK, TaskStatus.DONE));
+        assertEquals(List.of(subtask), taskManager.getByStatus(TaskType.SUBTASK, TaskStatus.IN_PROGRESS));
+        assertEquals(List.of(epic), taskManager.getByStatus(TaskType.EPIC, TaskStatus.IN_PROGRESS));
+        assertEquals(Map.of(TaskStatus.NEW, 1, TaskStatus.IN_PROGRESS, 1, TaskStatus.DONE, 0),
+                taskManager.countByStatus(TaskType.SUBTASK));
+
+        updateSubtaskStatus(subtask, TaskStatus.DONE);
+        updateSubtaskStatus(otherSubtask, TaskStatus.DONE);
+
+        assertEquals(Map.of(TaskStatus.NEW, 0, TaskStatus.IN_PROGRESS, 0, TaskStatus.DONE, 2),
+                taskManager.countByStatus(TaskType.SUBTASK));
+        assertEquals(List.of(epic), taskManager.getByStatus(TaskType.EPIC, TaskStatus.DONE));
+
+        taskManager.deleteTask(doneTask.getId());
+        taskManager.deleteSubtask(subtask.getId());
+
+        assertEquals(Map.of(TaskStatus.NEW, 1, TaskStatus.IN_PROGRESS, 0, TaskStatus.DONE, 0),
+                taskManager.countByStatus(TaskType.TASK));
+        assertEquals(List.of(otherSubtask), taskManager.getByStatus(TaskType.SUBTASK, TaskStatus.DONE));
+
+        taskManager.deleteEpics();
+
+        assertEquals(0, taskManager.countByStatus(TaskType.SUBTASK).get(TaskStatus.DONE));
+        assertEquals(List.of(), taskManager.getByStatus(TaskType.EPIC, TaskStatus.DONE));
+    }
+
+    @Test
+    void shouldSearchByTitleAndDescription() {
+        Task task = taskManager.createTask(new Task("Купить молоко", "Зайти в магазин после работы"));
+        Epic epic = taskManager.createEpic(new Epic("Переезд", "Собрать вещи"));
+        Subtask subtask = taskManager.createSubtask(new Subtask("Магазин", "Купить коробки", epic.getId()));
+
+        assertEquals(List.of(subtask, task), taskManager.search("магаз", 10));
+        assertEquals(List.of(task), taskManager.search("молоко магазин", 10));
+        assertEquals(List.of(epic), taskManager.search("переезд", 10));
+
+        taskManager.updateTask(new Task(task.getId(), "Купить хлеб", "Зайти в пекарню", TaskStatus.NEW));
+        taskManager.updateEpic(new Epic(epic.getId(), "Ремонт", "Собрать вещи", TaskStatus.NEW));
+
+        assertEquals(List.of(subtask), taskManager.search("магазин", 10));
+        assertEquals(List.of(epic), taskManager.search("ремонт вещи", 10));
+        assertEquals(List.of(), taskManager.search("переезд", 10));
+
+        taskManager.deleteEpic(epic.getId());
+
+        assertEquals(List.of(task), taskManager.search("купить", 10));
+        assertThrows(IllegalArgumentException.class, () -> taskManager.search("купить", 0));
+    }
+
+    @Test
+    void shouldQueryWithCombinedCriteria() {
+        LocalDateTime localDateTime = LocalDateTime.of(2025, 3, 25, 16, 15);
+        Task task = taskManager.createTask(new Task("Отчёт", "Квартальный отчёт", localDateTime,
+                Duration.ofMinutes(30)));
+        Task doneTask = taskManager.createTask(new Task("Отчёт", "Годовой отчёт", localDateTime.plusHours(2),
+                Duration.ofMinutes(30)));
+        Epic epic = taskManager.createEpic(new Epic("Переезд", "Собрать вещи"));
+        Subtask subtask1 = taskManager.createSubtask(new Subtask("Коробки", "Купить коробки", epic.getId(),
+                localDateTime.plusHours(1), Duration.ofMinutes(30)));
+        Subtask subtask2 = taskManager.createSubtask(new Subtask("Вещи", "Упаковать вещи", epic.getId()));
+        Subtask subtask3 = taskManager.createSubtask(new Subtask("Грузчики", "Заказать грузчиков", epic.getId(),
+                localDateTime.plusDays(1), Duration.ofMinutes(30)));
+        Epic otherEpic = taskManager.createEpic(new Epic("Отпуск", "Отдохнуть"));
+        Subtask otherSubtask = taskManager.createSubtask(new Subtask("Билеты", "Купить билеты", otherEpic.getId(),
+                localDateTime.plusHours(3), Duration.ofMinutes(30)));
+        taskManager.updateTask(new Task(doneTask.getId(), "Отчёт", "Годовой отчёт", TaskStatus.DONE,
+                localDateTime.plusHours(2), Duration.ofMinutes(30)));
+
+        TaskQuery epicQuery = TaskQuery.all().ofType(TaskType.SUBTASK).inEpic(epic.getId());
+        assertEquals(List.of(subtask1, subtask2, subtask3), taskManager.query(epicQuery).toList());
+        assertEquals(QueryIndex.EPIC, taskManager.explain(epicQuery).getIndex());
+        assertEquals(3, taskManager.explain(epicQuery).getEstimatedRows());
+        assertEquals(List.of(subtask1), taskManager.query(epicQuery.matching("купить")).toList());
+        assertEquals(List.of(subtask1, subtask3), taskManager.query(epicQuery.startingBetween(localDateTime,
+                localDateTime.plusDays(2))).toList());
+
+        // Полуинтервал [from, to): задача, начинающаяся ровно в to, не попадает
+        TaskQuery timeQuery = TaskQuery.all().startingBetween(localDateTime, localDateTime.plusHours(2));
+        assertEquals(List.of(task, subtask1), taskManager.query(timeQuery).toList());
+        assertEquals(QueryIndex.TIME, taskManager.explain(timeQuery).getIndex());
+        assertEquals(List.of(), taskManager.explain(timeQuery).getFilters());
+
+        assertEquals(List.of(doneTask), taskManager.query(TaskQuery.all().ofType(TaskType.TASK)
+                .withStatus(TaskStatus.DONE).matching("отчёт")).toList());
+        assertEquals(List.of(subtask1, otherSubtask), taskManager.query(TaskQuery.all().matching("купить")).toList()
+                .stream().sorted(Comparator.comparingLong(Task::getId)).toList());
+        assertEquals(List.of(otherSubtask), taskManager.query(TaskQuery.all().inEpic(otherEpic.getId())).toList());
+        assertEquals(List.of(), taskManager.query(TaskQuery.all().ofType(TaskType.EPIC).inEpic(epic.getId()))
+                .toList());
+        assertEquals(2, taskManager.query(TaskQuery.all().ofType(TaskType.EPIC)).count());
+        assertEquals(List.of(task), taskManager.query(TaskQuery.all().ofType(TaskType.TASK).limit(1)).toList());
+
+        taskManager.deleteEpic(epic.getId());
+
+        assertEquals(List.of(), taskManager.query(epicQuery).toList());
+        assertEquals(List.of(task), taskManager.query(timeQuery).toList());
+        assertThrows(IllegalArgumentException.class, () -> TaskQuery.all().limit(0));
+        assertThrows(IllegalArgumentException.class,
+                () -> TaskQuery.all().startingBetween(localDateTime, localDateTime.minusMinutes(1)));
+    }
+
     private Subtask updateSubtaskStatus(Subtask subtask, TaskStatus status) {
         return taskManager.updateSubtask(new Subtask(
                 subtask.getId(),
@@ -0,0 +1,95 @@
+package service.impl;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import model.Task;
+import model.TaskStatus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ArrayHistoryManagerTest {
+
+    private ArrayHistoryManager historyManager;
+
+    @BeforeEach
+    void beforeEach() {
+        historyManager = new ArrayHistoryManager();
+    }
+
+    @Test
+    void shouldMoveRepeatedViewToTheEnd() {
+        historyManager.add(task(1L));
+        historyManager.add(task(2L));
+        historyManager.add(task(3L));
+        historyManager.add(task(1L));
+
+        assertEquals(List.of(2L, 3L, 1L), ids(historyManager.getHistory()));
+        assertEquals(3, historyManager.size());
+    }
+
+    @Test
+    void shouldRemoveFromAnyPosition() {
+        for (long id = 1; id <= 5; id++) {
+            historyManager.add(task(id));
+        }
+
+        historyManager.remove(1L);
+        historyManager.remove(3L);
+        historyManager.remove(5L);
+        historyManager.remove(42L);
+
+        assertEquals(List.of(2L, 4L), ids(historyManager.getHistory()));
+
+        historyManager.add(task(6L));
+
+        assertEquals(List.of(2L, 4L, 6L), ids(historyManager.getHistory()));
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyViewedWhenFull() {
+        ArrayHistoryManager boundedHistory = new ArrayHistoryManager(HistoryPolicy.ofCapacity(2));
+
+        boundedHistory.add(task(1L));
+        boundedHistory.add(task(2L));
+        boundedHistory.add(task(1L));
+        boundedHistory.add(task(3L));
+
+        assertEquals(List.of(1L, 3L), ids(boundedHistory.getHistory()));
+        assertEquals(1, boundedHistory.getCapacityEvictions());
+    }
+
+    @Test
+    void shouldMatchLinkedHistoryOnRandomOperations() {
+        InMemoryHistoryManager expected = new InMemoryHistoryManager(HistoryPolicy.ofCapacity(300));
+        ArrayHistoryManager actual = new ArrayHistoryManager(HistoryPolicy.ofCapacity(300));
+        Random random = new Random(14);
+
+        for (int i = 0; i < 20_000; i++) {
+            long id = random.nextInt(1_000) - 500;
+            if (random.nextInt(4) == 0) {
+                expected.remove(id);
+                actual.remove(id);
+            } else {
+                Task task = task(id);
+                expected.add(task);
+                actual.add(task);
+            }
+        }
+
+        assertEquals(ids(expected.getHistory()), ids(actual.getHistory()));
+        assertEquals(expected.getCapacityEvictions(), actual.getCapacityEvictions());
+    }
+
+    private static Task task(long id) {
+        return new Task(id, "Task", "Task description", TaskStatus.NEW);
+    }
+
+    private static List<Long> ids(List<Task> tasks) {
+        return tasks.stream().map(Task::getId).toList();
+    }
+
+}
@@ -0,0 +1,93 @@
+package service.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import exceptions.ManagerLoadException;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinarySnapshotCodecTest {
+
+    private File file;
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        file = File.createTempFile("tasks", ".bin");
+    }
+
+    @Test
+    void shouldWriteAndReadTasks() {
+        LocalDateTime startTime = LocalDateTime.of(2025, 3, 25, 16, 15);
+
+        BinarySnapshotCodec.write(file, List.of(
+                new Task(1L, "Задача, с запятой", "Описание\nв две строки", TaskStatus.IN_PROGRESS, startTime,
+                        Duration.ofMinutes(90)),
+                new Epic(2L, "Epic", null, TaskStatus.DONE, startTime.plusDays(1)),
+                new Subtask(3L, "Subtask", "Subtask description", TaskStatus.NEW, 2L)
+        ));
+
+        assertTrue(BinarySnapshotCodec.isBinary(file));
+
+        List<Task> tasks = BinarySnapshotCodec.read(file);
+        assertEquals(3, tasks.size());
+
+        Task task = tasks.get(0);
+        assertEquals(1L, task.getId());
+        assertEquals("Задача, с запятой", task.getTitle());
+        assertEquals("Описание\nв две строки", task.getDescription());
+        assertEquals(TaskStatus.IN_PROGRESS, task.getStatus());
+        assertEquals(startTime, task.getStartTime());
+        assertEquals(Duration.ofMinutes(90), task.getDuration());
+
+        Epic epic = assertInstanceOf(Epic.class, tasks.get(1));
+        assertNull(epic.getDescription());
+        assertEquals(TaskStatus.DONE, epic.getStatus());
+        assertEquals(startTime.plusDays(1), epic.getEndTime());
+
+        Subtask subtask = assertInstanceOf(Subtask.class, tasks.get(2));
+        assertEquals(2L, subtask.getEpicId());
+        assertNull(subtask.getStartTime());
+        assertNull(subtask.getDuration());
+    }
+
+    @Test
+    void shouldReadRecordsLargerThanBuffer() {
+        String description = "x".repeat(200_000);
+
+        BinarySnapshotCodec.write(file, List.of(
+                new Task(1L, "Task 1", description, TaskStatus.NEW),
+                new Task(2L, "Task 2", "Task 2 description", TaskStatus.NEW)
+        ));
+
+        List<Task> tasks = BinarySnapshotCodec.read(file);
+
+        assertEquals(description, tasks.get(0).getDescription());
+        assertEquals("Task 2", tasks.get(1).getTitle());
+    }
+
+    @Test
+    void shouldNotDetectCsvAsBinary() throws IOException {
+        Files.writeString(file.toPath(), Task.CSV_HEADER);
+
+        assertFalse(BinarySnapshotCodec.isBinary(file));
+        assertThrows(ManagerLoadException.class, () -> BinarySnapshotCodec.read(file));
+    }
+
+}
@@ -0,0 +1,97 @@
+package service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import model.Task;
+import model.TaskStatus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrentHistoryManagerTest {
+
+    private static final int THREADS = 8;
+
+    private ConcurrentHistoryManager historyManager;
+
+    @BeforeEach
+    void beforeEach() {
+        historyManager = new ConcurrentHistoryManager();
+    }
+
+    @Test
+    void shouldKeepViewOrderAcrossDrains() {
+        for (long id = 0; id < 1_000; id++) {
+            historyManager.add(task(id % 300));
+        }
+
+        historyManager.remove(5L);
+        historyManager.add(task(0L));
+
+        List<Long> expected = new ArrayList<>();
+        for (long id = 100; id < 300; id++) {
+            expected.add(id);
+        }
+        for (long id = 1; id < 100; id++) {
+            if (5L != id) {
+                expected.add(id);
+            }
+        }
+        expected.add(0L);
+
+        assertEquals(expected, ids(historyManager.getHistory()));
+    }
+
+    @Test
+    void shouldKeepEachThreadViewOrderUnderConcurrentAdds() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                long base = i * 10_000L;
+
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 5_000; j++) {
+                        historyManager.add(task(base + j % 500));
+                        if (0 == j % 1_000) {
+                            historyManager.getHistory();
+                        }
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        List<Long> history = ids(historyManager.getHistory());
+
+        assertEquals(THREADS * 500, history.size());
+
+        long[] last = new long[THREADS];
+        for (Long id : history) {
+            int thread = (int) (id / 10_000);
+            assertTrue(id % 10_000 >= last[thread], "Views of one thread must stay in order");
+            last[thread] = id % 10_000;
+        }
+    }
+
+    private static Task task(long id) {
+        return new Task(id, "Task", "Task description", TaskStatus.NEW);
+    }
+
+    private static List<Long> ids(List<Task> tasks) {
+        return tasks.stream().map(Task::getId).toList();
+    }
+
+}
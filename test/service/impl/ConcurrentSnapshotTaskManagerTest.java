@@ -0,0 +1,93 @@
+package service.impl;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import service.Page;
+import service.TaskManagerTest;
+import service.TaskSort;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrentSnapshotTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+
+    @BeforeEach
+    void beforeEach() {
+        taskManager = new ConcurrentTaskManager(true);
+    }
+
+    @Test
+    void shouldPageEpicSubtasksOfStoredEpic() {
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Epic description"));
+        Subtask first = taskManager.createSubtask(new Subtask("Subtask 1", "Subtask description", epic.getId()));
+        Subtask second = taskManager.createSubtask(new Subtask("Subtask 2", "Subtask description", epic.getId()));
+        Epic detachedEpic = new Epic(epic.getId(), "Epic", "Epic description", TaskStatus.NEW);
+
+        Page<Subtask> page = taskManager.getEpicSubtasks(detachedEpic, null, 1, TaskSort.ID);
+
+        assertEquals(List.of(first), page.getItems());
+        assertEquals(List.of(second), taskManager.getEpicSubtasks(detachedEpic, page.getNextCursor(), 1, TaskSort.ID)
+                .getItems());
+        assertEquals(List.of(), taskManager.getEpicSubtasks(new Epic(999L, "Epic", "Epic description",
+                TaskStatus.NEW), null, 10, TaskSort.ID).getItems());
+    }
+
+    @Test
+    void shouldKeepOldSnapshotUnchanged() {
+        LocalDateTime startTime = LocalDateTime.of(2025, 3, 25, 16, 15);
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Epic description"));
+        Subtask subtask = taskManager.createSubtask(new Subtask("Subtask", "Subtask description", epic.getId(),
+                startTime, Duration.ofMinutes(30)));
+
+        TaskSnapshot before = taskManager.snapshot();
+
+        taskManager.updateSubtask(new Subtask(subtask.getId(), "Subtask", "Subtask description", TaskStatus.DONE,
+                epic.getId(), startTime.plusHours(1), Duration.ofMinutes(30)));
+        taskManager.createTask(new Task("Task", "Task description", startTime, Duration.ofMinutes(15)));
+
+        TaskSnapshot after = taskManager.snapshot();
+
+        assertEquals(TaskStatus.NEW, before.getEpic(epic.getId()).getStatus());
+        assertEquals(startTime, before.getSubtask(subtask.getId()).getStartTime());
+        assertEquals(0, before.getTasks().size());
+        assertEquals(1, before.getPrioritizedTasks().size());
+
+        assertEquals(TaskStatus.DONE, after.getEpic(epic.getId()).getStatus());
+        assertEquals(List.of(startTime, startTime.plusHours(1)),
+                after.getPrioritizedTasks().stream().map(Task::getStartTime).toList());
+        assertEquals(1, after.getEpicSubtasks(epic.getId()).size());
+
+        taskManager.deleteEpic(epic.getId());
+
+        assertNull(taskManager.snapshot().getEpic(epic.getId()));
+        assertNull(taskManager.snapshot().getSubtask(subtask.getId()));
+        assertEquals(1, taskManager.snapshot().getPrioritizedTasks().size());
+        assertEquals(1, after.getSubtasks().size());
+    }
+
+    @Test
+    void shouldReturnSameSnapshotWithoutWrites() {
+        taskManager.createTask(new Task("Task", "Task description"));
+
+        assertSame(taskManager.snapshot(), taskManager.snapshot());
+        assertTrue(taskManager.getTasks().contains(taskManager.snapshot().getTasks().getFirst()));
+    }
+
+    @Test
+    void shouldRejectSnapshotWhenDisabled() {
+        assertThrows(IllegalStateException.class, () -> new ConcurrentTaskManager().snapshot());
+    }
+
+}
@@ -0,0 +1,173 @@
+package service.impl;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import service.Page;
+import service.TaskManagerTest;
+import service.TaskSort;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+
+    private static final int THREADS = 8;
+
+    @BeforeEach
+    void beforeEach() {
+        taskManager = new ConcurrentTaskManager();
+    }
+
+    @Test
+    void shouldKeepEpicsConsistentUnderConcurrentWrites() throws Exception {
+        List<Epic> epics = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            epics.add(taskManager.createEpic(new Epic("Epic " + i, "Epic description")));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                Long epicId = epics.get(i).getId();
+                Long otherEpicId = epics.get((i + 1) % THREADS).getId();
+
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 200; j++) {
+                        Subtask subtask = taskManager.createSubtask(new Subtask("Subtask", "Subtask description",
+                                epicId));
+                        taskManager.updateSubtask(new Subtask(subtask.getId(), "Subtask", "Subtask description",
+                                TaskStatus.DONE, epicId));
+
+                        if (0 == j % 2) {
+                            taskManager.moveSubtask(subtask.getId(), otherEpicId);
+                        }
+
+                        taskManager.getEpics();
+                        taskManager.getEpic(epicId);
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(THREADS * 200, taskManager.getSubtasks().size());
+        for (Epic epic : epics) {
+            Epic published = taskManager.getEpic(epic.getId());
+
+            assertEquals(200, published.getSubtaskIds().size());
+            assertEquals(200, taskManager.getEpicSubtasks(published).size());
+            assertEquals(TaskStatus.DONE, published.getStatus());
+        }
+    }
+
+    @Test
+    void shouldNotScheduleIntersectingTasksConcurrently() throws Exception {
+        LocalDateTime startTime = LocalDateTime.of(2025, 3, 25, 16, 15);
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Epic description"));
+        // Подзадача вне спорных слотов: без неё эпик остаётся без времени, если все слоты достанутся задачам
+        taskManager.createSubtask(new Subtask("Subtask", "Subtask description", epic.getId(),
+                startTime.minusHours(1), Duration.ofMinutes(30)));
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                boolean subtasks = 0 == i % 2;
+
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 100; j++) {
+                        LocalDateTime slot = startTime.plusHours(j);
+                        if (subtasks) {
+                            taskManager.createSubtask(new Subtask("Subtask", "Subtask description", epic.getId(),
+                                    slot, Duration.ofMinutes(30)));
+                        } else {
+                            taskManager.createTask(new Task("Task", "Task description", slot,
+                                    Duration.ofMinutes(30)));
+                        }
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(101, taskManager.getPrioritizedTasks().size());
+        assertEquals(101, taskManager.getTasks().size() + taskManager.getSubtasks().size());
+        assertEquals(startTime.minusHours(1), taskManager.getEpic(epic.getId()).getStartTime());
+    }
+
+    @Test
+    void shouldPublishEpicVersionsWithoutChangingEarlierOnes() {
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Epic description"));
+        Subtask first = taskManager.createSubtask(new Subtask("Subtask 1", "Subtask description", epic.getId()));
+        Epic published = taskManager.getEpic(epic.getId());
+
+        Subtask second = taskManager.createSubtask(new Subtask("Subtask 2", "Subtask description", epic.getId()));
+        taskManager.deleteSubtask(first.getId());
+
+        assertEquals(List.of(first.getId()), published.getSubtaskIds());
+        assertEquals(List.of(second.getId()), taskManager.getEpic(epic.getId()).getSubtaskIds());
+    }
+
+    @Test
+    void shouldPageEpicSubtasksOfStoredEpic() {
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Epic description"));
+        Subtask first = taskManager.createSubtask(new Subtask("Subtask 1", "Subtask description", epic.getId()));
+        Subtask second = taskManager.createSubtask(new Subtask("Subtask 2", "Subtask description", epic.getId()));
+        Epic detachedEpic = new Epic(epic.getId(), "Epic", "Epic description", TaskStatus.NEW);
+
+        Page<Subtask> page = taskManager.getEpicSubtasks(detachedEpic, null, 1, TaskSort.ID);
+
+        assertEquals(List.of(first), page.getItems());
+        assertEquals(List.of(second), taskManager.getEpicSubtasks(detachedEpic, page.getNextCursor(), 1, TaskSort.ID)
+                .getItems());
+        assertEquals(List.of(), taskManager.getEpicSubtasks(new Epic(999L, "Epic", "Epic description",
+                TaskStatus.NEW), null, 10, TaskSort.ID).getItems());
+    }
+
+    @Test
+    void shouldStreamWeaklyConsistentlyWhileModified() {
+        for (int i = 1; i <= 5; i++) {
+            taskManager.createTask(new Task("Task " + i, "Task description"));
+        }
+
+        Iterator<Task> iterator = taskManager.streamTasks().iterator();
+        List<Long> ids = new ArrayList<>();
+        ids.add(iterator.next().getId());
+        taskManager.deleteTask(ids.getFirst() + 1);
+        taskManager.createTask(new Task("Task 6", "Task description"));
+        iterator.forEachRemaining(task -> ids.add(task.getId()));
+
+        assertTrue(ids.containsAll(taskManager.getTasks().stream()
+                .map(Task::getId)
+                .filter(id -> id <= 5)
+                .toList()));
+        assertFalse(ids.contains(null));
+    }
+
+}
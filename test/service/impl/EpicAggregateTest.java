@@ -0,0 +1,102 @@
+package service.impl;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import model.Epic;
+import model.Subtask;
+import model.TaskStatus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class EpicAggregateTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 25, 10, 0);
+
+    private EpicAggregate aggregate;
+
+    @BeforeEach
+    void beforeEach() {
+        aggregate = new EpicAggregate();
+    }
+
+    @Test
+    void shouldBeNewWithoutSubtasks() {
+        assertEquals(TaskStatus.NEW, aggregate.getStatus());
+        assertNull(aggregate.getStartTime());
+        assertNull(aggregate.getDuration());
+        assertNull(aggregate.getEndTime());
+    }
+
+    @Test
+    void shouldCalculateStatus() {
+        aggregate.put(subtask(1L, TaskStatus.NEW, 0, 10));
+        aggregate.put(subtask(2L, TaskStatus.NEW, 20, 10));
+        assertEquals(TaskStatus.NEW, aggregate.getStatus());
+
+        aggregate.put(subtask(2L, TaskStatus.DONE, 20, 10));
+        assertEquals(TaskStatus.IN_PROGRESS, aggregate.getStatus());
+        assertEquals(1, aggregate.getStatusCount(TaskStatus.DONE));
+
+        aggregate.put(subtask(1L, TaskStatus.DONE, 0, 10));
+        assertEquals(TaskStatus.DONE, aggregate.getStatus());
+
+        aggregate.remove(1L);
+        aggregate.remove(2L);
+        assertEquals(TaskStatus.NEW, aggregate.getStatus());
+    }
+
+    @Test
+    void shouldKeepTimesWithDuplicateValues() {
+        aggregate.put(subtask(1L, TaskStatus.NEW, 0, 30));
+        aggregate.put(subtask(2L, TaskStatus.NEW, 0, 30));
+        aggregate.put(subtask(3L, TaskStatus.NEW, 60, 30));
+
+        assertEquals(START, aggregate.getStartTime());
+        assertEquals(START.plusMinutes(90), aggregate.getEndTime());
+        assertEquals(Duration.ofMinutes(90), aggregate.getDuration());
+
+        aggregate.remove(1L);
+        assertEquals(START, aggregate.getStartTime());
+
+        aggregate.remove(3L);
+        assertEquals(START.plusMinutes(30), aggregate.getEndTime());
+        assertEquals(Duration.ofMinutes(30), aggregate.getDuration());
+    }
+
+    @Test
+    void shouldSubtractSubtaskChangedInPlace() {
+        Subtask subtask = subtask(1L, TaskStatus.NEW, 0, 30);
+        aggregate.put(subtask);
+
+        subtask.setStatus(TaskStatus.DONE);
+        aggregate.put(subtask);
+
+        assertEquals(0, aggregate.getStatusCount(TaskStatus.NEW));
+        assertEquals(1, aggregate.getStatusCount(TaskStatus.DONE));
+        assertEquals(TaskStatus.DONE, aggregate.getStatus());
+    }
+
+    @Test
+    void shouldApplyToEpic() {
+        aggregate.put(subtask(1L, TaskStatus.IN_PROGRESS, 0, 30));
+
+        Epic epic = new Epic(10L, "Epic", "Epic description", TaskStatus.DONE);
+        aggregate.applyTo(epic);
+
+        assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus());
+        assertEquals(START, epic.getStartTime());
+        assertEquals(Duration.ofMinutes(30), epic.getDuration());
+        assertEquals(START.plusMinutes(30), epic.getEndTime());
+    }
+
+    private static Subtask subtask(Long id, TaskStatus status, long startMinutes, long durationMinutes) {
+        return new Subtask(id, "Subtask", "Subtask description", status, 10L, START.plusMinutes(startMinutes),
+                Duration.ofMinutes(durationMinutes));
+    }
+
+}
@@ -0,0 +1,277 @@
+package service.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import exceptions.ManagerSaveException;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import service.TaskManagerTest;
+
+class FileBackedTaskManagerJournalTest extends TaskManagerTest<FileBackedTaskManager> {
+
+    private File file;
+
+    private File journalFile;
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        file = File.createTempFile("tasks", ".csv");
+        journalFile = File.createTempFile("tasks", ".journal");
+        taskManager = new FileBackedTaskManager(file, journalFile);
+    }
+
+    @Test
+    void shouldAppendRecordsWithoutRewritingSnapshot() throws IOException {
+        Task task = taskManager.createTask(new Task("Task1", "Description task1"));
+        taskManager.updateTask(new Task(task.getId(), "Task1", "Description task1", TaskStatus.DONE));
+        taskManager.deleteTask(task.getId());
+
+        Assertions.assertEquals(0, file.length());
+        Assertions.assertEquals(List.of(
+                "CREATE,1,TASK,Task1,NEW,Description task1,null,null,null,null",
+                "UPDATE,1,TASK,Task1,DONE,Description task1,null,null,null,null",
+                "DELETE,TASK,1"
+        ), Files.readAllLines(journalFile.toPath()));
+    }
+
+    @Test
+    void shouldNotJournalRejectedDeletes() throws IOException {
+        Task task = taskManager.createTask(new Task("Task", "Task description"));
+
+        taskManager.deleteTask(null);
+        taskManager.deleteEpic(null);
+        taskManager.deleteSubtask(null);
+        taskManager.deleteTask(42L);
+        taskManager.deleteEpic(task.getId());
+
+        Assertions.assertEquals(List.of("CREATE,1,TASK,Task,NEW,Task description,null,null,null,null"),
+                Files.readAllLines(journalFile.toPath()));
+
+        FileBackedTaskManager restored = new FileBackedTaskManager(file, journalFile);
+
+        Assertions.assertEquals(List.of(task), restored.getTasks());
+    }
+
+    @Test
+    void shouldReplayJournalOnStartup() {
+        LocalDateTime localDateTime = LocalDateTime.of(2025, 3, 25, 16, 15);
+
+        Task task = taskManager.createTask(new Task("Task", "Task description", localDateTime, Duration.ofMinutes(30)));
+        Epic epic1 = taskManager.createEpic(new Epic("Epic 1", "Epic 1 description"));
+        Epic epic2 = taskManager.createEpic(new Epic("Epic 2", "Epic 2 description"));
+        Subtask subtask1 = taskManager.createSubtask(new Subtask("Subtask 1", "Subtask 1 description", epic1.getId()));
+        Subtask subtask2 = taskManager.createSubtask(new Subtask("Subtask 2", "Subtask 2 description", epic1.getId(),
+                localDateTime.plusHours(1), Duration.ofMinutes(30)));
+        taskManager.updateSubtask(new Subtask(subtask1.getId(), "Subtask 1", "Subtask 1 description",
+                TaskStatus.DONE, epic1.getId()));
+        taskManager.moveSubtask(subtask2.getId(), epic2.getId());
+        taskManager.deleteTask(task.getId());
+
+        FileBackedTaskManager restored = new FileBackedTaskManager(file, journalFile);
+
+        Assertions.assertEquals(0, restored.getTasks().size());
+        Assertions.assertEquals(2, restored.getEpics().size());
+        Assertions.assertEquals(2, restored.getSubtasks().size());
+        Assertions.assertEquals(TaskStatus.DONE, restored.getEpic(epic1.getId()).getStatus());
+        Assertions.assertEquals(List.of(subtask1.getId()), restored.getEpic(epic1.getId()).getSubtaskIds());
+        Assertions.assertEquals(List.of(subtask2.getId()), restored.getEpic(epic2.getId()).getSubtaskIds());
+        Assertions.assertEquals(localDateTime.plusHours(1), restored.getEpic(epic2.getId()).getStartTime());
+        Assertions.assertEquals(1, restored.getPrioritizedTasks().size());
+
+        Task newTask = restored.createTask(new Task("Task 2", "Task 2 description"));
+        Assertions.assertEquals(6L, newTask.getId());
+    }
+
+    @Test
+    void shouldDropIncompleteLastRecordOnStartup() throws IOException {
+        Task task = taskManager.createTask(new Task("Task 1", "Task 1 description"));
+        Files.writeString(journalFile.toPath(), "CREATE,2,TASK,\"Task 2\nwith new line\",NEW,Task",
+                StandardOpenOption.APPEND);
+
+        FileBackedTaskManager restored = new FileBackedTaskManager(file, journalFile);
+
+        Assertions.assertEquals(List.of(task), restored.getTasks());
+        Assertions.assertEquals(List.of("CREATE,1,TASK,Task 1,NEW,Task 1 description,null,null,null,null"),
+                Files.readAllLines(journalFile.toPath()));
+
+        Task newTask = restored.createTask(new Task("Task 2", "Task 2 description"));
+
+        Assertions.assertEquals(List.of(task, newTask), new FileBackedTaskManager(file, journalFile).getTasks());
+    }
+
+    @Test
+    void shouldCompactJournalIntoSnapshot() throws IOException {
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Epic description"));
+        taskManager.createSubtask(new Subtask("Subtask", "Subtask description", epic.getId()));
+
+        taskManager.compact();
+
+        Assertions.assertEquals(0, journalFile.length());
+        Assertions.assertEquals(3, Files.readAllLines(file.toPath()).size());
+
+        taskManager.createTask(new Task("Task", "Task description"));
+        taskManager.deleteSubtasks();
+
+        FileBackedTaskManager restored = new FileBackedTaskManager(file, journalFile);
+
+        Assertions.assertEquals(1, restored.getTasks().size());
+        Assertions.assertEquals(1, restored.getEpics().size());
+        Assertions.assertEquals(0, restored.getSubtasks().size());
+        Assertions.assertEquals(2, Files.readAllLines(journalFile.toPath()).size());
+    }
+
+    @Test
+    void shouldCompactInBackgroundWhenRecordLimitReached() throws IOException {
+        taskManager = new FileBackedTaskManager(file, journalFile, CompactionPolicy.ofRecords(3));
+
+        taskManager.createTask(new Task("Task 1", "Task 1 description"));
+        taskManager.createTask(new Task("Task 2", "Task 2 description"));
+        Assertions.assertEquals(0, file.length());
+
+        taskManager.createTask(new Task("Task 3", "Task 3 description"));
+        taskManager.createTask(new Task("Task 4", "Task 4 description"));
+        taskManager.close();
+
+        Assertions.assertFalse(taskManager.isCompacting());
+        Assertions.assertEquals(4, Files.readAllLines(file.toPath()).size());
+        Assertions.assertEquals(List.of("CREATE,4,TASK,Task 4,NEW,Task 4 description,null,null,null,null"),
+                Files.readAllLines(journalFile.toPath()));
+
+        FileBackedTaskManager restored = new FileBackedTaskManager(file, journalFile);
+
+        Assertions.assertEquals(4, restored.getTasks().size());
+    }
+
+    @Test
+    void shouldCompactWhenJournalSizeLimitReached() throws IOException {
+        taskManager = new FileBackedTaskManager(file, journalFile, CompactionPolicy.ofJournalBytes(100));
+
+        taskManager.createTask(new Task("Task 1", "Task 1 description"));
+        taskManager.createTask(new Task("Task 2", "Task 2 description"));
+        taskManager.close();
+
+        Assertions.assertEquals(3, Files.readAllLines(file.toPath()).size());
+        Assertions.assertFalse(journalFile.exists());
+    }
+
+    @Test
+    void shouldFinishInterruptedCompactionOnStartup() throws IOException {
+        taskManager.createTask(new Task("Task 1", "Task 1 description"));
+        taskManager.createTask(new Task("Task 2", "Task 2 description"));
+        File compactingFile = new File(journalFile.getPath() + ".compacting");
+        Files.move(journalFile.toPath(), compactingFile.toPath());
+
+        FileBackedTaskManager restored = new FileBackedTaskManager(file, journalFile);
+        restored.close();
+
+        Assertions.assertEquals(2, restored.getTasks().size());
+        Assertions.assertFalse(compactingFile.exists());
+        Assertions.assertEquals(3, Files.readAllLines(file.toPath()).size());
+    }
+
+    @Test
+    void shouldRetryFailedCompactionWithoutLosingRecords() throws IOException {
+        File compactingFile = new File(journalFile.getPath() + ".compacting");
+        // Временный файл снимка занят каталогом: фоновая запись снимка не удастся
+        File blockedTempFile = new File(file.getPath() + ".tmp");
+        Assertions.assertTrue(blockedTempFile.mkdir());
+
+        Task task = taskManager.createTask(new Task("Task 1", "Task 1 description"));
+        taskManager.createTask(new Task("Task 2", "Task 2 description"));
+        taskManager.updateTask(new Task(task.getId(), "Task 1", "Task 1 description", TaskStatus.DONE));
+
+        Assertions.assertThrows(ManagerSaveException.class, taskManager::compact);
+        Assertions.assertTrue(compactingFile.exists());
+
+        // Отделённая часть не потеряна, а новые записи идут в свежий журнал
+        taskManager.createTask(new Task("Task 3", "Task 3 description"));
+        Assertions.assertEquals(3, Files.readAllLines(compactingFile.toPath()).size());
+        Assertions.assertEquals(1, Files.readAllLines(journalFile.toPath()).size());
+
+        Assertions.assertTrue(blockedTempFile.delete());
+        taskManager.compact();
+        taskManager.createTask(new Task("Task 4", "Task 4 description"));
+        taskManager.close();
+
+        Assertions.assertFalse(compactingFile.exists());
+        Assertions.assertEquals(4, Files.readAllLines(file.toPath()).size());
+        Assertions.assertEquals(1, Files.readAllLines(journalFile.toPath()).size());
+
+        FileBackedTaskManager restored = new FileBackedTaskManager(file, journalFile);
+
+        Assertions.assertEquals(4, restored.getTasks().size());
+        Assertions.assertEquals(TaskStatus.DONE, restored.getTask(task.getId()).getStatus());
+    }
+
+    @Test
+    void shouldCheckCompactionPolicy() {
+        Assertions.assertFalse(CompactionPolicy.manual().shouldCompact(1_000_000L, 1_000_000L, Duration.ofDays(1)));
+        Assertions.assertFalse(CompactionPolicy.ofRecords(10).shouldCompact(0L, 0L, Duration.ZERO));
+        Assertions.assertTrue(CompactionPolicy.ofRecords(10).shouldCompact(0L, 10L, Duration.ZERO));
+        Assertions.assertTrue(CompactionPolicy.ofJournalBytes(10).shouldCompact(10L, 1L, Duration.ZERO));
+        Assertions.assertFalse(CompactionPolicy.ofInterval(Duration.ofMinutes(5))
+                .shouldCompact(10L, 1L, Duration.ofMinutes(4)));
+        Assertions.assertTrue(CompactionPolicy.ofInterval(Duration.ofMinutes(5))
+                .shouldCompact(10L, 1L, Duration.ofMinutes(5)));
+    }
+
+    @Test
+    void shouldWaitForGroupCommittedMutations() {
+        taskManager = new FileBackedTaskManager(file, journalFile, CompactionPolicy.manual(),
+                JournalDurability.groupCommit());
+
+        for (int i = 0; i < 100; i++) {
+            taskManager.createTask(new Task("Task " + i, "Task description"));
+        }
+
+        taskManager.awaitDurable(taskManager.getLastSequence());
+        taskManager.close();
+
+        Assertions.assertEquals(100L, taskManager.getLastSequence());
+        Assertions.assertEquals(100, new FileBackedTaskManager(file, journalFile).getTasks().size());
+    }
+
+    @Test
+    void shouldStayUsableAfterIncompleteWriteBehindRecord() throws IOException {
+        taskManager = new FileBackedTaskManager(file, journalFile, CompactionPolicy.ofRecords(3),
+                JournalDurability.writeBehind(8));
+        Task task = taskManager.createTask(new Task("Task 1", "Task 1 description"));
+        taskManager.close();
+        Files.writeString(journalFile.toPath(), "UPDATE,1,TASK,Task 1,DO", StandardOpenOption.APPEND);
+
+        FileBackedTaskManager restored = new FileBackedTaskManager(file, journalFile, CompactionPolicy.ofRecords(3),
+                JournalDurability.writeBehind(8));
+        restored.createTask(new Task("Task 2", "Task 2 description"));
+        restored.createTask(new Task("Task 3", "Task 3 description"));
+        restored.close();
+
+        Assertions.assertEquals(TaskStatus.NEW, restored.getTask(task.getId()).getStatus());
+        Assertions.assertEquals(3, new FileBackedTaskManager(file, journalFile).getTasks().size());
+        Assertions.assertEquals(0, journalFile.length());
+    }
+
+    @Test
+    void shouldReplayValuesWithCommasAndNewLines() {
+        Task task = taskManager.createTask(new Task("Title, with comma", "Line 1\nLine 2"));
+        taskManager.updateTask(new Task(task.getId(), "Title, updated", "Line 1\r\nLine \"2\"", TaskStatus.DONE));
+
+        FileBackedTaskManager restored = new FileBackedTaskManager(file, journalFile);
+
+        Assertions.assertEquals("Title, updated", restored.getTask(task.getId()).getTitle());
+        Assertions.assertEquals("Line 1\r\nLine \"2\"", restored.getTask(task.getId()).getDescription());
+        Assertions.assertEquals(TaskStatus.DONE, restored.getTask(task.getId()).getStatus());
+    }
+
+}
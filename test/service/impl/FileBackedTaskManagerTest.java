@@ -6,7 +6,9 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 
 import org.junit.jupiter.api.Assertions;
@@ -156,6 +158,104 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
         Assertions.assertEquals(Task.CSV_HEADER, readFile());
     }
 
+    @Test
+    void shouldSaveAndLoadBinarySnapshot() throws IOException {
+        taskManager = new FileBackedTaskManager(file, SnapshotFormat.BINARY);
+
+        LocalDateTime startTime = LocalDateTime.of(2025, 3, 25, 16, 15);
+        taskManager.createTask(new Task("Task1", "Description task1", startTime, Duration.ofMinutes(30)));
+        Epic epic = taskManager.createEpic(new Epic("Epic2", "Description epic2"));
+        taskManager.createSubtask(new Subtask("Sub Task3", "Description sub task3", epic.getId(),
+                startTime.plusHours(1), Duration.ofMinutes(15)));
+
+        Assertions.assertTrue(BinarySnapshotCodec.isBinary(file));
+
+        FileBackedTaskManager restored = new FileBackedTaskManager(file, SnapshotFormat.BINARY);
+        Assertions.assertEquals(startTime, restored.getTask(1L).getStartTime());
+        Assertions.assertEquals(List.of(3L), restored.getEpic(2L).getSubtaskIds());
+        Assertions.assertEquals(startTime.plusHours(1), restored.getEpic(2L).getStartTime());
+        Assertions.assertEquals(2, restored.getPrioritizedTasks().size());
+
+        File csvFile = File.createTempFile("tasks", ".csv");
+        restored.export(csvFile, SnapshotFormat.CSV);
+        Assertions.assertEquals(String.format(
+                "%s%s%n%s%n%s%n",
+                Task.CSV_HEADER,
+                "1,TASK,Task1,NEW,Description task1,null,2025-03-25T16:15,30,null",
+                "2,EPIC,Epic2,NEW,Description epic2,null,null,null,2025-03-25T17:30",
+                "3,SUBTASK,Sub Task3,NEW,Description sub task3,2,2025-03-25T17:15,15,null"
+        ), Files.readString(csvFile.toPath()));
+    }
+
+    @Test
+    void shouldImportCsvIntoBinarySnapshot() throws IOException {
+        taskManager.createTask(new Task("Task1", "Description task1"));
+
+        taskManager = new FileBackedTaskManager(file, SnapshotFormat.BINARY);
+        Assertions.assertEquals(1, taskManager.getTasks().size());
+
+        taskManager.createTask(new Task("Task2", "Description task2"));
+        Assertions.assertTrue(BinarySnapshotCodec.isBinary(file));
+        Assertions.assertEquals(2, new FileBackedTaskManager(file).getTasks().size());
+    }
+
+    @Test
+    void shouldSaveAndLoadValuesWithCommasAndNewLines() {
+        taskManager.createTask(new Task("Title, with comma", "Line 1\nLine \"2\""));
+
+        FileBackedTaskManager restored = new FileBackedTaskManager(file);
+
+        Assertions.assertEquals("Title, with comma", restored.getTask(1L).getTitle());
+        Assertions.assertEquals("Line 1\nLine \"2\"", restored.getTask(1L).getDescription());
+    }
+
+    @Test
+    void shouldRebuildEpicsAndScheduleOnLoad() {
+        LocalDateTime startTime = LocalDateTime.of(2025, 3, 25, 16, 15);
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Epic description"));
+        Subtask first = taskManager.createSubtask(new Subtask("Subtask 1", "Subtask 1 description", epic.getId(),
+                startTime, Duration.ofMinutes(30)));
+        Subtask second = taskManager.createSubtask(new Subtask("Subtask 2", "Subtask 2 description", epic.getId(),
+                startTime.plusHours(2), Duration.ofMinutes(45)));
+        taskManager.updateSubtask(new Subtask(second.getId(), "Subtask 2", "Subtask 2 description",
+                TaskStatus.DONE, epic.getId(), second.getStartTime(), second.getDuration()));
+        taskManager.createTask(new Task("Task", "Task description", startTime.plusHours(1), Duration.ofMinutes(15)));
+
+        FileBackedTaskManager restored = new FileBackedTaskManager(file);
+
+        Epic restoredEpic = restored.getEpic(epic.getId());
+        Assertions.assertEquals(List.of(first.getId(), second.getId()), restoredEpic.getSubtaskIds());
+        Assertions.assertEquals(TaskStatus.IN_PROGRESS, restoredEpic.getStatus());
+        Assertions.assertEquals(startTime, restoredEpic.getStartTime());
+        Assertions.assertEquals(Duration.ofMinutes(75), restoredEpic.getDuration());
+        Assertions.assertEquals(startTime.plusHours(2).plusMinutes(45), restoredEpic.getEndTime());
+        Assertions.assertEquals(3, restored.getPrioritizedTasks().size());
+        Assertions.assertNull(restored.createTask(new Task("Overlapping", "Overlapping description",
+                startTime.plusMinutes(10), Duration.ofMinutes(5))));
+    }
+
+    @Test
+    void shouldReportLoadStats() {
+        Assertions.assertEquals(0, taskManager.getLoadStats().getTasksLoaded());
+
+        taskManager.createTask(new Task("Task 1", "Task 1 description"));
+        Epic epic = taskManager.createEpic(new Epic("Epic 1", "Epic 1 description"));
+        taskManager.createSubtask(new Subtask("Subtask 1", "Subtask 1 description", epic.getId()));
+
+        LoadStats csvStats = new FileBackedTaskManager(file).getLoadStats();
+        Assertions.assertEquals(SnapshotFormat.CSV, csvStats.getFormat());
+        Assertions.assertEquals(3, csvStats.getTasksLoaded());
+        Assertions.assertTrue(csvStats.getBytesMapped() >= file.length());
+        Assertions.assertFalse(csvStats.getDecodeTime().isNegative());
+
+        new FileBackedTaskManager(file).export(file, SnapshotFormat.BINARY);
+
+        LoadStats binaryStats = new FileBackedTaskManager(file).getLoadStats();
+        Assertions.assertEquals(SnapshotFormat.BINARY, binaryStats.getFormat());
+        Assertions.assertEquals(3, binaryStats.getTasksLoaded());
+        Assertions.assertEquals(file.length(), binaryStats.getBytesMapped());
+    }
+
     private String readFile() throws IOException {
         StringBuilder data = new StringBuilder();
 
@@ -0,0 +1,117 @@
+package service.impl;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import model.Task;
+import model.TaskStatus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HistoryPartitionsTest {
+
+    private MutableClock clock;
+
+    private HistoryPartitions partitions;
+
+    @BeforeEach
+    void beforeEach() {
+        clock = new MutableClock();
+        partitions = new HistoryPartitions(2, Duration.ofMinutes(30), HistoryPolicy.unbounded(), clock);
+    }
+
+    @Test
+    void shouldCreatePartitionsOnFirstView() {
+        assertEquals(List.of(), partitions.getHistory("alice"));
+        assertEquals(0, partitions.size());
+
+        partitions.add("alice", task(1L));
+        partitions.add("bob", task(2L));
+        partitions.add("alice", task(3L));
+
+        assertEquals(List.of(1L, 3L), ids(partitions.getHistory("alice")));
+        assertEquals(List.of(2L), ids(partitions.getHistory("bob")));
+        assertEquals(2, partitions.size());
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedPartitionWhenFull() {
+        partitions.add("alice", task(1L));
+        partitions.add("bob", task(2L));
+        partitions.getHistory("alice");
+        partitions.add("carol", task(3L));
+
+        assertEquals(List.of(1L), ids(partitions.getHistory("alice")));
+        assertEquals(List.of(), partitions.getHistory("bob"));
+        assertEquals(1, partitions.getEvictions());
+    }
+
+    @Test
+    void shouldEvictIdlePartitions() {
+        partitions.add("alice", task(1L));
+        clock.advance(Duration.ofMinutes(20));
+        partitions.add("bob", task(2L));
+        clock.advance(Duration.ofMinutes(15));
+
+        assertEquals(List.of(2L), ids(partitions.getHistory("bob")));
+        assertEquals(1, partitions.size());
+        assertEquals(1, partitions.getEvictions());
+    }
+
+    @Test
+    void shouldPurgeTaskFromEveryPartition() {
+        partitions.add("alice", task(1L));
+        partitions.add("alice", task(2L));
+        partitions.add("bob", task(1L));
+
+        partitions.remove(1L);
+        partitions.remove(42L);
+
+        assertEquals(List.of(2L), ids(partitions.getHistory("alice")));
+        assertEquals(List.of(), partitions.getHistory("bob"));
+    }
+
+    @Test
+    void shouldDropEntriesEvictedByPartitionPolicyFromReverseIndex() {
+        HistoryPartitions bounded = new HistoryPartitions(2, Duration.ofMinutes(30), HistoryPolicy.ofCapacity(1),
+                clock);
+        for (int user = 0; user < 1000; user++) {
+            for (long id = 1; id <= 50; id++) {
+                bounded.add("user " + user, task(id));
+            }
+        }
+
+        assertEquals(2, bounded.size());
+        assertEquals(2, bounded.viewerCount());
+
+        HistoryPartitions expiring = new HistoryPartitions(2, Duration.ofHours(1),
+                HistoryPolicy.ofMaxAge(Duration.ofMinutes(10)), clock);
+        expiring.add("alice", task(1L));
+        clock.advance(Duration.ofMinutes(15));
+        expiring.add("alice", task(2L));
+
+        assertEquals(List.of(2L), ids(expiring.getHistory("alice")));
+        assertEquals(1, expiring.viewerCount());
+    }
+
+    @Test
+    void shouldRejectInvalidLimits() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new HistoryPartitions(0, Duration.ofMinutes(1), HistoryPolicy.unbounded()));
+        assertThrows(IllegalArgumentException.class,
+                () -> new HistoryPartitions(1, Duration.ZERO, HistoryPolicy.unbounded()));
+    }
+
+    private static Task task(long id) {
+        return new Task(id, "Task", "Task description", TaskStatus.NEW);
+    }
+
+    private static List<Long> ids(List<Task> tasks) {
+        return tasks.stream().map(Task::getId).toList();
+    }
+
+}
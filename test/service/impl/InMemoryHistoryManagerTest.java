@@ -1,5 +1,8 @@
 package service.impl;
 
+import java.time.Duration;
+import java.util.List;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -124,4 +127,41 @@ class InMemoryHistoryManagerTest {
         assertEquals(3, historyManager.getHistory().size());
     }
 
-}
\ No newline at end of file
+    @Test
+    void shouldEvictLeastRecentlyViewedWhenFull() {
+        InMemoryHistoryManager boundedHistory = new InMemoryHistoryManager(HistoryPolicy.ofCapacity(2));
+
+        boundedHistory.add(new Task(1L, "Task", "Task description", TaskStatus.NEW));
+        boundedHistory.add(new Task(2L, "Task", "Task description", TaskStatus.NEW));
+        boundedHistory.add(new Task(1L, "Task", "Task description", TaskStatus.NEW));
+        boundedHistory.add(new Task(3L, "Task", "Task description", TaskStatus.NEW));
+
+        assertEquals(List.of(1L, 3L), boundedHistory.getHistory().stream().map(Task::getId).toList());
+        assertEquals(1, boundedHistory.getCapacityEvictions());
+        assertEquals(0, boundedHistory.getExpirations());
+    }
+
+    @Test
+    void shouldExpireOldViews() {
+        MutableClock clock = new MutableClock();
+        InMemoryHistoryManager expiringHistory = new InMemoryHistoryManager(
+                HistoryPolicy.ofMaxAge(Duration.ofMinutes(10)), clock);
+
+        expiringHistory.add(new Task(1L, "Task", "Task description", TaskStatus.NEW));
+        clock.advance(Duration.ofMinutes(5));
+        expiringHistory.add(new Task(2L, "Task", "Task description", TaskStatus.NEW));
+        clock.advance(Duration.ofMinutes(4));
+        expiringHistory.add(new Task(1L, "Task", "Task description", TaskStatus.NEW));
+        clock.advance(Duration.ofMinutes(6));
+
+        assertEquals(List.of(1L), expiringHistory.getHistory().stream().map(Task::getId).toList());
+        assertEquals(1, expiringHistory.getExpirations());
+
+        clock.advance(Duration.ofMinutes(10));
+
+        assertEquals(0, expiringHistory.getHistory().size());
+        assertEquals(2, expiringHistory.getExpirations());
+        assertEquals(0, expiringHistory.getCapacityEvictions());
+    }
+
+}
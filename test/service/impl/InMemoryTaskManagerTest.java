@@ -1,8 +1,28 @@
 package service.impl;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import model.TaskType;
+import service.BatchResult;
+import service.QueryIndex;
+import service.QueryPlan;
 import service.TaskManagerTest;
+import service.TaskQuery;
+import service.TaskSort;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
 
@@ -11,4 +31,75 @@ class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
         taskManager = new InMemoryTaskManager();
     }
 
-}
\ No newline at end of file
+    @Test
+    void shouldSwapTimeSlotsInOneBatchUpdate() {
+        LocalDateTime localDateTime = LocalDateTime.of(2025, 3, 25, 16, 15);
+        Task first = taskManager.createTask(new Task("First", "Task description", localDateTime,
+                Duration.ofMinutes(30)));
+        Task second = taskManager.createTask(new Task("Second", "Task description", localDateTime.plusHours(1),
+                Duration.ofMinutes(30)));
+
+        BatchResult<Task> result = taskManager.updateAll(List.of(
+                new Task(first.getId(), "First", "Task description", TaskStatus.NEW, localDateTime.plusHours(1),
+                        Duration.ofMinutes(30)),
+                new Task(second.getId(), "Second", "Task description", TaskStatus.NEW, localDateTime,
+                        Duration.ofMinutes(30))
+        ));
+
+        assertEquals(0, result.getRejectedCount());
+        assertEquals(List.of(second, first), List.copyOf(taskManager.getTasks(null, 10, TaskSort.START_TIME)
+                .getItems()));
+    }
+
+    @Test
+    void shouldChooseMostSelectiveIndexForQuery() {
+        for (int i = 0; i < 20; i++) {
+            taskManager.createTask(new Task("Задача " + i, "Task description"));
+        }
+
+        Task report = taskManager.createTask(new Task("Отчёт", "Task description"));
+        taskManager.updateTask(new Task(report.getId(), "Отчёт", "Task description", TaskStatus.DONE));
+        Task newReport = taskManager.createTask(new Task("Отчёт", "Новый"));
+
+        TaskQuery doneQuery = TaskQuery.all().ofType(TaskType.TASK).withStatus(TaskStatus.DONE);
+        assertEquals("STATUS (~1 rows), filter: type", taskManager.explain(doneQuery).toString());
+        assertEquals(List.of(report), taskManager.query(doneQuery).toList());
+
+        TaskQuery textQuery = TaskQuery.all().withStatus(TaskStatus.NEW).matching("отчёт");
+        QueryPlan plan = taskManager.explain(textQuery);
+        assertEquals(QueryIndex.TEXT, plan.getIndex());
+        assertEquals(2, plan.getEstimatedRows());
+        assertEquals(List.of("status"), plan.getFilters());
+        assertEquals(List.of(newReport), taskManager.query(textQuery).toList());
+
+        assertEquals(QueryIndex.SCAN, taskManager.explain(TaskQuery.all().ofType(TaskType.EPIC)
+                .withStatus(TaskStatus.NEW)).getIndex());
+    }
+
+    @Test
+    void shouldFailStreamWhenModifiedDuringStreaming() {
+        for (int i = 1; i <= 5; i++) {
+            taskManager.createTask(new Task("Task " + i, "Task description"));
+        }
+        taskManager.deleteTask(5L);
+
+        Iterator<Task> deleted = taskManager.streamTasks().iterator();
+        assertEquals(1L, deleted.next().getId());
+        taskManager.deleteTask(2L);
+        assertThrows(ConcurrentModificationException.class, deleted::next);
+
+        // Ячейка удалённой задачи переиспользуется новой
+        Iterator<Task> reused = taskManager.streamTasks().iterator();
+        assertEquals(1L, reused.next().getId());
+        taskManager.deleteTask(3L);
+        taskManager.createTask(new Task("Task 6", "Task description"));
+        assertThrows(ConcurrentModificationException.class, reused::next);
+
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Epic description"));
+        taskManager.createSubtask(new Subtask("Subtask", "Subtask description", epic.getId()));
+        assertThrows(ConcurrentModificationException.class, () -> taskManager.streamSubtasks()
+                .forEach(subtask -> taskManager.createSubtask(new Subtask("Subtask", "Subtask description",
+                        epic.getId()))));
+    }
+
+}
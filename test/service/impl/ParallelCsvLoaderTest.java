@@ -0,0 +1,75 @@
+package service.impl;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskCsvWriter;
+import model.TaskStatus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelCsvLoaderTest {
+
+    private File file;
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        file = File.createTempFile("tasks", ".csv");
+    }
+
+    @Test
+    void shouldReadAllRowsInOrderWithAnyChunkSize() throws IOException {
+        LocalDateTime startTime = LocalDateTime.of(2025, 3, 25, 16, 15);
+        List<Task> tasks = new ArrayList<>();
+        tasks.add(new Epic(1L, "Epic", "Epic description", TaskStatus.NEW));
+        for (long id = 2; id <= 200; id++) {
+            String description = 0 == id % 3 ? "Строка 1,\n\"строка\" 2\n" : "Description " + id;
+            tasks.add(0 == id % 2
+                    ? new Task(id, "Task " + id, description, TaskStatus.NEW, startTime.plusHours(id),
+                            Duration.ofMinutes(30))
+                    : new Subtask(id, "Subtask " + id, description, TaskStatus.DONE, 1L));
+        }
+        write(tasks);
+
+        for (long chunkSize : new long[]{1, 7, 64, 1000, file.length(), 10 * file.length()}) {
+            List<Task> loaded = ParallelCsvLoader.read(file, chunkSize);
+
+            assertEquals(tasks.size(), loaded.size(), "chunkSize=" + chunkSize);
+            for (int i = 0; i < tasks.size(); i++) {
+                assertEquals(tasks.get(i).toCSVString(), loaded.get(i).toCSVString(), "chunkSize=" + chunkSize);
+            }
+        }
+    }
+
+    @Test
+    void shouldReadFileWithHeaderOnly() throws IOException {
+        write(List.of());
+
+        assertTrue(ParallelCsvLoader.read(file, 4).isEmpty());
+        assertTrue(ParallelCsvLoader.read(file).isEmpty());
+    }
+
+    private void write(List<Task> tasks) throws IOException {
+        try (TaskCsvWriter csvWriter = new TaskCsvWriter(new FileWriter(file, StandardCharsets.UTF_8))) {
+            csvWriter.writeHeader();
+
+            for (Task task : tasks) {
+                csvWriter.writeRow(task);
+            }
+        }
+    }
+
+}
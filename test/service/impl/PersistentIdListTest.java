@@ -0,0 +1,55 @@
+package service.impl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PersistentIdListTest {
+
+    @Test
+    void shouldBehaveLikeLinkedHashSet() {
+        Random random = new Random(42);
+        Set<Long> expected = new LinkedHashSet<>();
+        PersistentIdList list = PersistentIdList.empty();
+
+        for (int i = 0; i < 20_000; i++) {
+            long id = random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(id);
+                list = list.without(id);
+            } else {
+                expected.add(id);
+                list = list.with(id);
+            }
+
+            assertEquals(expected.contains(id), list.contains(id));
+        }
+
+        assertEquals(expected.size(), list.size());
+        assertEquals(new ArrayList<>(expected), list);
+        assertEquals(List.copyOf(expected).get(expected.size() / 2), list.get(expected.size() / 2));
+    }
+
+    @Test
+    void shouldKeepPreviousVersions() {
+        PersistentIdList first = PersistentIdList.copyOf(List.of(3L, 1L, 2L));
+        PersistentIdList second = first.without(1L).with(1L).with(4L);
+
+        assertEquals(List.of(3L, 1L, 2L), first);
+        assertEquals(List.of(3L, 2L, 1L, 4L), second);
+        assertTrue(first.contains(1L));
+        assertFalse(first.contains(4L));
+        assertSame(second, second.with(3L));
+        assertSame(second, second.without(999L));
+    }
+
+}
@@ -0,0 +1,59 @@
+package service.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class PersistentLongMapTest {
+
+    @Test
+    void shouldBehaveLikeHashMap() {
+        Random random = new Random(42);
+        Map<Long, String> expected = new HashMap<>();
+        PersistentLongMap<String> map = PersistentLongMap.empty();
+
+        for (int i = 0; i < 20_000; i++) {
+            long key = 0 == i % 3 ? random.nextLong() : random.nextInt(2_000);
+            if (random.nextInt(4) == 0) {
+                expected.remove(key);
+                map = map.remove(key);
+            } else {
+                expected.put(key, "value " + i);
+                map = map.put(key, "value " + i);
+            }
+
+            assertEquals(expected.get(key), map.get(key));
+        }
+
+        assertEquals(expected.size(), map.size());
+
+        List<String> values = new ArrayList<>();
+        map.forEach(values::add);
+        assertEquals(expected.size(), values.size());
+        assertEquals(new HashMap<>(expected).values().stream().sorted().toList(), values.stream().sorted().toList());
+    }
+
+    @Test
+    void shouldKeepPreviousVersions() {
+        PersistentLongMap<String> first = PersistentLongMap.<String>empty().put(1L, "one").put(33L, "thirty three");
+        PersistentLongMap<String> second = first.put(1L, "uno").remove(33L);
+
+        assertEquals("one", first.get(1L));
+        assertEquals("thirty three", first.get(33L));
+        assertEquals(2, first.size());
+        assertEquals("uno", second.get(1L));
+        assertNull(second.get(33L));
+        assertEquals(1, second.size());
+        assertSame(second, second.remove(999L));
+        assertEquals(0, second.remove(1L).size());
+    }
+
+}
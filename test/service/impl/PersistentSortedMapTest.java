@@ -0,0 +1,90 @@
+package service.impl;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PersistentSortedMapTest {
+
+    @Test
+    void shouldBehaveLikeTreeMap() {
+        Random random = new Random(42);
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        PersistentSortedMap<Integer, Integer> map = PersistentSortedMap.empty();
+
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(1_000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.remove(key);
+            } else {
+                expected.put(key, i);
+                map = map.put(key, i);
+            }
+
+            assertEquals(expected.get(key), map.get(key));
+        }
+
+        assertEquals(expected.size(), map.size());
+        assertEquals(new ArrayList<>(expected.values()), values(map));
+
+        PersistentSortedMap<Integer, Integer> even = map.filter(value -> 0 == value % 2);
+        assertEquals(expected.values().stream().filter(value -> 0 == value % 2).toList(), values(even));
+        assertEquals(expected.size(), map.size());
+    }
+
+    @Test
+    void shouldKeepPreviousVersions() {
+        PersistentSortedMap<Integer, String> first = PersistentSortedMap.<Integer, String>empty()
+                .put(2, "two")
+                .put(1, "one");
+        PersistentSortedMap<Integer, String> second = first.remove(1).put(3, "three");
+
+        assertEquals(List.of("one", "two"), values(first));
+        assertEquals(List.of("two", "three"), values(second));
+        assertNull(second.get(1));
+    }
+
+    @Test
+    void shouldIterateFromBoundInBothDirections() {
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        PersistentSortedMap<Integer, Integer> map = PersistentSortedMap.empty();
+        for (int key = 0; key < 200; key += 2) {
+            expected.put(key, key);
+            map = map.put(key, key);
+        }
+
+        for (int bound = -1; bound <= 200; bound++) {
+            assertEquals(new ArrayList<>(expected.tailMap(bound, true).values()),
+                    values(map.iteratorFrom(bound, true)));
+            assertEquals(new ArrayList<>(expected.tailMap(bound, false).values()),
+                    values(map.iteratorFrom(bound, false)));
+            assertEquals(new ArrayList<>(expected.headMap(bound, true).descendingMap().values()),
+                    values(map.descendingIteratorTo(bound, true)));
+            assertEquals(new ArrayList<>(expected.headMap(bound, false).descendingMap().values()),
+                    values(map.descendingIteratorTo(bound, false)));
+        }
+    }
+
+    private static <V> List<V> values(Iterator<V> iterator) {
+        List<V> values = new ArrayList<>();
+        iterator.forEachRemaining(values::add);
+
+        return values;
+    }
+
+    private static <V> List<V> values(PersistentSortedMap<?, V> map) {
+        List<V> values = new ArrayList<>();
+        map.forEach(values::add);
+
+        return values;
+    }
+
+}
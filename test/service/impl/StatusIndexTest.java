@@ -0,0 +1,63 @@
+package service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import model.TaskType;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StatusIndexTest {
+
+    private StatusIndex index;
+
+    @BeforeEach
+    void beforeEach() {
+        index = new StatusIndex();
+    }
+
+    @Test
+    void shouldMoveTaskChangedInPlaceToNewStatus() {
+        Task task = new Task(1L, "Task", "Task description", TaskStatus.NEW);
+        index.put(task);
+        index.put(new Task(2L, "Task", "Task description", TaskStatus.NEW));
+
+        task.setStatus(TaskStatus.DONE);
+        index.put(task);
+
+        assertEquals(List.of(2L), ids(TaskType.TASK, TaskStatus.NEW));
+        assertEquals(List.of(1L), ids(TaskType.TASK, TaskStatus.DONE));
+        assertEquals(1, index.count(TaskType.TASK, TaskStatus.DONE));
+
+        task.setStatus(TaskStatus.IN_PROGRESS);
+        index.remove(task);
+
+        assertEquals(0, index.count(TaskType.TASK, TaskStatus.DONE));
+        assertEquals(0, index.count(TaskType.TASK, TaskStatus.IN_PROGRESS));
+    }
+
+    @Test
+    void shouldClearOnlyOneType() {
+        index.put(new Task(1L, "Task", "Task description", TaskStatus.NEW));
+        index.put(new Subtask(2L, "Subtask", "Subtask description", TaskStatus.NEW, 3L));
+
+        index.clear(TaskType.TASK);
+
+        assertEquals(0, index.count(TaskType.TASK, TaskStatus.NEW));
+        assertEquals(1, index.count(TaskType.SUBTASK, TaskStatus.NEW));
+    }
+
+    private List<Long> ids(TaskType type, TaskStatus status) {
+        List<Long> ids = new ArrayList<>();
+        index.forEach(type, status, ids::add);
+
+        return ids;
+    }
+
+}
@@ -0,0 +1,99 @@
+package service.impl;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import model.TaskType;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskIntervalIndexTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 25, 10, 0);
+
+    private TaskIntervalIndex index;
+
+    @BeforeEach
+    void beforeEach() {
+        index = new TaskIntervalIndex();
+        index.add(task(1L, 0, 30));
+        index.add(task(2L, 60, 30));
+        index.add(task(3L, 120, 30));
+    }
+
+    @Test
+    void shouldNotAddTaskWithoutStartTimeOrDuration() {
+        index.add(new Task(4L, "Task", "Task description", TaskStatus.NEW));
+
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void shouldFindIntersections() {
+        assertTrue(index.intersects(task(null, 20, 5)));
+        assertTrue(index.intersects(task(null, 50, 10)));
+        assertTrue(index.intersects(task(null, 90, 5)));
+        assertTrue(index.intersects(task(null, -10, 300)));
+
+        assertFalse(index.intersects(task(null, 35, 10)));
+        assertFalse(index.intersects(task(null, 155, 10)));
+        assertFalse(index.intersects(task(null, -20, 10)));
+    }
+
+    @Test
+    void shouldIgnoreTaskWithSameId() {
+        assertFalse(index.intersects(task(2L, 70, 30), 2L));
+        assertTrue(index.intersects(task(2L, 70, 60), 2L));
+    }
+
+    @Test
+    void shouldReplaceAndRemoveTasks() {
+        index.replace(task(2L, 60, 30), task(2L, 200, 30));
+
+        assertFalse(index.intersects(task(null, 70, 10)));
+        assertTrue(index.intersects(task(null, 210, 10)));
+
+        index.remove(task(2L, 200, 30));
+
+        assertEquals(2, index.size());
+        assertFalse(index.intersects(task(null, 210, 10)));
+    }
+
+    @Test
+    void shouldKeepTypesSeparateAndMergeThemInStartTimeOrder() {
+        Subtask first = new Subtask(5L, "Subtask", "Subtask description", TaskStatus.NEW, 4L,
+                START.plusMinutes(40), Duration.ofMinutes(10));
+        Subtask second = new Subtask(6L, "Subtask", "Subtask description", TaskStatus.NEW, 4L,
+                START.plusMinutes(160), Duration.ofMinutes(10));
+        index.add(first);
+        index.add(second);
+
+        assertEquals(List.of(1L, 5L, 2L, 3L, 6L), index.values().stream().map(Task::getId).toList());
+        assertEquals(List.of(5L, 6L), index.values(TaskType.SUBTASK).stream().map(Task::getId).toList());
+        assertTrue(index.intersects(task(null, 45, 5)));
+
+        index.removeByType(TaskType.TASK);
+
+        assertEquals(List.of(first, second), List.copyOf(index.values()));
+        assertFalse(index.intersects(task(null, 0, 30)));
+
+        index.removeAll(List.of(first, second));
+
+        assertEquals(0, index.size());
+    }
+
+    private static Task task(Long id, long startMinutes, long durationMinutes) {
+        return new Task(id, "Task", "Task description", TaskStatus.NEW, START.plusMinutes(startMinutes),
+                Duration.ofMinutes(durationMinutes));
+    }
+
+}
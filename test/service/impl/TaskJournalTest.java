@@ -0,0 +1,127 @@
+package service.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import model.Task;
+import model.TaskStatus;
+import model.TaskType;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskJournalTest {
+
+    private File file;
+
+    private TaskJournal journal;
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        file = File.createTempFile("tasks", ".journal");
+    }
+
+    @AfterEach
+    void afterEach() {
+        journal.close();
+    }
+
+    @Test
+    void shouldBeDurableAfterAppendInSyncMode() throws IOException {
+        journal = new TaskJournal(file, JournalDurability.sync());
+
+        long sequence = journal.append(TaskJournal.delete(TaskType.TASK, 1L));
+
+        assertEquals(1L, sequence);
+        assertEquals(1L, journal.getDurableSequence());
+        assertEquals(List.of("DELETE,TASK,1"), Files.readAllLines(file.toPath()));
+    }
+
+    @Test
+    void shouldShareFlushInGroupCommitMode() throws IOException {
+        journal = new TaskJournal(file, JournalDurability.groupCommit());
+
+        long sequence = 0L;
+        for (long id = 1L; id <= 100L; id++) {
+            sequence = journal.append(TaskJournal.create(new Task(id, "Task", "Task description", TaskStatus.NEW)));
+        }
+
+        journal.awaitDurable(sequence);
+
+        assertEquals(100L, journal.getDurableSequence());
+        assertEquals(100, Files.readAllLines(file.toPath()).size());
+    }
+
+    @Test
+    void shouldBoundLagInWriteBehindMode() throws IOException {
+        journal = new TaskJournal(file, JournalDurability.writeBehind(4));
+
+        for (long id = 1L; id <= 50L; id++) {
+            long sequence = journal.append(TaskJournal.delete(TaskType.TASK, id));
+
+            assertTrue(sequence - journal.getDurableSequence() <= 4);
+        }
+
+        journal.awaitDurable();
+
+        List<String> records = new ArrayList<>();
+        journal.replay(record -> records.add(record.getRowText()));
+
+        assertEquals(50, records.size());
+        assertEquals("DELETE,TASK,1", records.getFirst());
+        assertEquals("DELETE,TASK,50", records.getLast());
+    }
+
+    @Test
+    void shouldReopenAfterIncompleteWriteInRelaxedModes() throws IOException {
+        for (JournalDurability durability : List.of(JournalDurability.groupCommit(),
+                JournalDurability.writeBehind(4))) {
+            Files.writeString(file.toPath(), "CLEAR,TASK" + System.lineSeparator() + "DELETE,TA");
+
+            journal = new TaskJournal(file, durability);
+
+            List<String> records = new ArrayList<>();
+            journal.replay(record -> records.add(record.getRowText()));
+
+            assertEquals(List.of("CLEAR,TASK"), records);
+            assertEquals(1L, journal.getRecordCount());
+            assertEquals(file.length(), journal.getSize());
+
+            journal.append(TaskJournal.delete(TaskType.TASK, 1L));
+            journal.close();
+
+            assertEquals(file.length(), journal.getSize());
+            assertEquals(List.of("CLEAR,TASK", "DELETE,TASK,1"), Files.readAllLines(file.toPath()));
+        }
+    }
+
+    @Test
+    void shouldFlushBeforeRotate() {
+        journal = new TaskJournal(file, JournalDurability.writeBehind(100));
+
+        journal.append(TaskJournal.clear(TaskType.TASK));
+        journal.append(TaskJournal.clear(TaskType.EPIC));
+        journal.rotate();
+
+        assertTrue(journal.hasRotated());
+        assertFalse(file.exists());
+        assertEquals(2L, journal.getDurableSequence());
+
+        journal.append(TaskJournal.clear(TaskType.SUBTASK));
+        journal.awaitDurable();
+
+        List<String> records = new ArrayList<>();
+        journal.replay(record -> records.add(record.getRowText()));
+
+        assertEquals(List.of("CLEAR,TASK", "CLEAR,EPIC", "CLEAR,SUBTASK"), records);
+    }
+
+}
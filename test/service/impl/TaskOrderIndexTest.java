@@ -0,0 +1,78 @@
+package service.impl;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import model.TaskType;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TaskOrderIndexTest {
+
+    private TaskOrderIndex index;
+
+    @BeforeEach
+    void beforeEach() {
+        index = new TaskOrderIndex();
+    }
+
+    @Test
+    void shouldMergeStatusesInIdOrderFromCursor() {
+        index.put(new Task(4L, "Task", "Task description", TaskStatus.DONE));
+        index.put(new Task(1L, "Task", "Task description", TaskStatus.IN_PROGRESS));
+        index.put(new Task(3L, "Task", "Task description", TaskStatus.NEW));
+        index.put(new Task(2L, "Task", "Task description", TaskStatus.DONE));
+
+        assertEquals(List.of(1L, 2L, 3L, 4L), ids(index.idsAfter(TaskType.TASK, Long.MIN_VALUE)));
+        assertEquals(List.of(3L, 4L), ids(index.idsAfter(TaskType.TASK, 2L)));
+        assertEquals(List.of(4L), ids(index.idsAfter(TaskType.TASK, TaskStatus.DONE, 2L)));
+    }
+
+    @Test
+    void shouldMoveTaskChangedInPlace() {
+        Task task = new Task(1L, "Task", "Task description", TaskStatus.NEW);
+        index.put(task);
+
+        task.setStatus(TaskStatus.DONE);
+        index.put(task);
+        index.put(new Task(1L, "Task", "Task description", TaskStatus.DONE, LocalDateTime.of(2025, 3, 25, 16, 15),
+                Duration.ofMinutes(30)));
+
+        assertEquals(List.of(), ids(index.idsAfter(TaskType.TASK, TaskStatus.NEW, Long.MIN_VALUE)));
+        assertEquals(List.of(1L), ids(index.idsAfter(TaskType.TASK, TaskStatus.DONE, Long.MIN_VALUE)));
+        assertEquals(List.of(), ids(index.unscheduledIdsAfter(TaskType.TASK, Long.MIN_VALUE)));
+
+        task.setStatus(TaskStatus.IN_PROGRESS);
+        index.remove(task);
+
+        assertEquals(List.of(), ids(index.idsAfter(TaskType.TASK, Long.MIN_VALUE)));
+    }
+
+    @Test
+    void shouldClearOnlyOneType() {
+        index.put(new Task(1L, "Task", "Task description", TaskStatus.NEW));
+        index.put(new Subtask(2L, "Subtask", "Subtask description", TaskStatus.NEW, 3L));
+
+        index.clear(TaskType.TASK);
+
+        assertEquals(List.of(), ids(index.unscheduledIdsAfter(TaskType.TASK, Long.MIN_VALUE)));
+        assertEquals(List.of(2L), ids(index.unscheduledIdsAfter(TaskType.SUBTASK, Long.MIN_VALUE)));
+    }
+
+    private static List<Long> ids(Iterator<Long> iterator) {
+        List<Long> ids = new ArrayList<>();
+        iterator.forEachRemaining(ids::add);
+
+        return ids;
+    }
+
+}
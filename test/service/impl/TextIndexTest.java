@@ -0,0 +1,89 @@
+package service.impl;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import model.Task;
+import model.TaskStatus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TextIndexTest {
+
+    private TextIndex index;
+
+    @BeforeEach
+    void beforeEach() {
+        index = new TextIndex();
+        index.put(task(1L, "Купить молоко", "Зайти в магазин после работы"));
+        index.put(task(2L, "Release 2.0", "Prepare release notes, tag the build"));
+        index.put(task(3L, "Магазин", "Сравнить цены"));
+    }
+
+    @Test
+    void shouldTokenizeByLettersAndDigits() {
+        assertEquals(List.of("release", "2", "0", "notes"), TextIndex.tokenize("Release 2.0: notes!"));
+        assertEquals(List.of(), TextIndex.tokenize(null));
+    }
+
+    @Test
+    void shouldRankTitleMatchesAboveDescriptionMatches() {
+        assertEquals(List.of(3L, 1L), index.search("магазин", 10));
+        assertEquals(List.of(3L), index.search("магазин", 1));
+    }
+
+    @Test
+    void shouldMatchPrefixesAndRequireEveryWord() {
+        assertEquals(List.of(3L, 1L), index.search("МАГАЗ", 10));
+        assertEquals(List.of(1L), index.search("магазин молоко", 10));
+        assertEquals(List.of(2L), index.search("rel not", 10));
+        assertEquals(List.of(), index.search("магазин release", 10));
+        assertEquals(List.of(), index.search("  ...  ", 10));
+    }
+
+    @Test
+    void shouldReindexOnlyChangedTerms() {
+        int terms = index.termCount();
+
+        index.put(task(3L, "Рынок", "Сравнить цены"));
+
+        // "магазин" остаётся в описании первой задачи
+        assertEquals(terms + 1, index.termCount());
+        assertEquals(List.of(1L), index.search("магазин", 10));
+        assertEquals(List.of(3L), index.search("рынок", 10));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void shouldDropPostingsOfRemovedTasks() {
+        for (long id = 10; id < 1_000; id++) {
+            index.put(task(id, "Задача " + id, "Общее описание"));
+        }
+
+        for (long id = 10; id < 990; id++) {
+            index.remove(id);
+        }
+
+        assertEquals(List.of(990L, 991L), index.search("общее", 2));
+        assertEquals(13, index.size());
+
+        index.remove(1L);
+        index.remove(3L);
+
+        assertEquals(List.of(), index.search("магазин", 10));
+    }
+
+    @Test
+    void shouldRejectInvalidQueries() {
+        assertThrows(IllegalArgumentException.class, () -> index.search(null, 10));
+        assertThrows(IllegalArgumentException.class, () -> index.search("магазин", 0));
+    }
+
+    private static Task task(Long id, String title, String description) {
+        return new Task(id, title, description, TaskStatus.NEW);
+    }
+
+}
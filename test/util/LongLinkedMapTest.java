@@ -0,0 +1,101 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongLinkedMapTest {
+
+    @Test
+    void shouldBehaveLikeLinkedHashMap() {
+        Random random = new Random(17);
+        Map<Long, String> expected = new LinkedHashMap<>();
+        LongLinkedMap<String> map = new LongLinkedMap<>();
+
+        for (int i = 0; i < 50_000; i++) {
+            long key = 0 == i % 3 ? random.nextLong() : random.nextInt(3_000) - 1_000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, "value " + i), map.put(key, "value " + i));
+            }
+
+            assertEquals(expected.get(key), map.get(key));
+        }
+
+        assertEquals(expected.size(), map.size());
+        assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(map.values()));
+
+        List<Long> keys = new ArrayList<>();
+        map.forEachKey(keys::add);
+        assertEquals(new ArrayList<>(expected.keySet()), keys);
+    }
+
+    @Test
+    void shouldRemoveThroughValuesIterator() {
+        LongLinkedMap<String> map = new LongLinkedMap<>();
+        for (long key = 1; key <= 5; key++) {
+            map.put(key, "value " + key);
+        }
+
+        map.values().removeIf(value -> value.endsWith("2") || value.endsWith("4"));
+
+        assertEquals(List.of("value 1", "value 3", "value 5"), new ArrayList<>(map.values()));
+        assertFalse(map.containsKey(2L));
+        assertTrue(map.containsKey(3L));
+    }
+
+    @Test
+    void shouldFailFastWhenModifiedDuringIteration() {
+        LongLinkedMap<String> map = new LongLinkedMap<>();
+        for (long key = 1; key <= 5; key++) {
+            map.put(key, "value " + key);
+        }
+        map.remove(5L);
+
+        Iterator<String> removed = map.values().iterator();
+        assertEquals("value 1", removed.next());
+        map.remove(2L);
+        assertThrows(ConcurrentModificationException.class, removed::hasNext);
+        assertThrows(ConcurrentModificationException.class, removed::next);
+
+        // Освобождённая ячейка достаётся новому ключу
+        Iterator<String> reused = map.values().iterator();
+        assertEquals("value 1", reused.next());
+        map.remove(3L);
+        map.put(6L, "value 6");
+        assertThrows(ConcurrentModificationException.class, reused::next);
+
+        Iterator<String> replaced = map.values().iterator();
+        map.put(1L, "other value");
+        assertEquals("other value", replaced.next());
+
+        assertThrows(ConcurrentModificationException.class, () -> map.forEachKey(key -> map.remove(key)));
+    }
+
+    @Test
+    void shouldClear() {
+        LongLinkedMap<String> map = new LongLinkedMap<>();
+        map.put(1L, "value");
+        map.clear();
+
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1L));
+
+        map.put(2L, "value");
+        assertEquals(List.of("value"), new ArrayList<>(map.values()));
+    }
+
+}
@@ -0,0 +1,68 @@
+package util;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongLinkedSetTest {
+
+    @Test
+    void shouldKeepInsertionOrderWithoutDuplicates() {
+        LongLinkedSet set = new LongLinkedSet();
+
+        assertTrue(set.add(3L));
+        assertTrue(set.add(1L));
+        assertFalse(set.add(3L));
+        assertTrue(set.add(2L));
+
+        assertEquals(List.of(3L, 1L, 2L), set.asList());
+        assertTrue(set.contains(1L));
+    }
+
+    @Test
+    void shouldRemoveFromTheMiddle() {
+        LongLinkedSet set = new LongLinkedSet();
+        for (long value = 0; value < 100; value++) {
+            set.add(value);
+        }
+
+        for (long value = 0; value < 100; value += 2) {
+            assertTrue(set.remove(value));
+        }
+
+        assertFalse(set.remove(0L));
+        assertEquals(50, set.size());
+        assertEquals(1L, set.asList().getFirst());
+        assertEquals(99L, set.asList().getLast());
+        assertEquals(51L, set.asList().get(25));
+        assertThrows(IndexOutOfBoundsException.class, () -> set.asList().get(50));
+    }
+
+    @Test
+    void shouldFailFastWhenModifiedDuringIteration() {
+        LongLinkedSet set = new LongLinkedSet();
+        for (long value = 1; value <= 5; value++) {
+            set.add(value);
+        }
+
+        Iterator<Long> iterator = set.asList().iterator();
+        assertEquals(1L, iterator.next());
+        set.remove(2L);
+        assertThrows(ConcurrentModificationException.class, iterator::hasNext);
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+
+        assertThrows(ConcurrentModificationException.class, () -> set.forEach(value -> set.add(value + 10)));
+
+        Iterator<Long> unchanged = set.asList().iterator();
+        set.add(1L);
+        assertEquals(1L, unchanged.next());
+    }
+
+}